@@ -0,0 +1,86 @@
+package com.spotlight.platform.userprofile.api.core.json;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfile;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfileBenchmarkFixtures;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfileUpdate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Responses are single profiles, request bodies of bulk updates are lists of updates
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonMapperBenchmark {
+    private static final int LIST_LENGTH = 10;
+
+    @Param({"10", "100", "1000"})
+    public int profileSize;
+
+    @Param({"100"})
+    public int updateCount;
+
+    private ObjectWriter userProfileWriter;
+    private ObjectReader userProfileReader;
+    private ObjectWriter userProfileUpdatesWriter;
+    private ObjectReader userProfileUpdatesReader;
+    private UserProfile userProfile;
+    private byte[] serializedUserProfile;
+    private List<UserProfileUpdate> userProfileUpdates;
+    private byte[] serializedUserProfileUpdates;
+
+    @Setup
+    public void setUp() throws IOException {
+        var updatesType = new TypeReference<List<UserProfileUpdate>>() {};
+        userProfileWriter = JsonMapper.getInstance().writerFor(UserProfile.class);
+        userProfileReader = JsonMapper.getInstance().readerFor(UserProfile.class);
+        userProfileUpdatesWriter = JsonMapper.getInstance().writerFor(updatesType);
+        userProfileUpdatesReader = JsonMapper.getInstance().readerFor(updatesType);
+        userProfile =
+                UserProfileBenchmarkFixtures.userProfile(
+                        UserProfileBenchmarkFixtures.userId(0), profileSize, LIST_LENGTH);
+        serializedUserProfile = userProfileWriter.writeValueAsBytes(userProfile);
+        userProfileUpdates = UserProfileBenchmarkFixtures.userProfileUpdates(updateCount);
+        serializedUserProfileUpdates =
+                userProfileUpdatesWriter.writeValueAsBytes(userProfileUpdates);
+    }
+
+    @Benchmark
+    public byte[] serializeUserProfile() throws IOException {
+        return userProfileWriter.writeValueAsBytes(userProfile);
+    }
+
+    @Benchmark
+    public UserProfile deserializeUserProfile() throws IOException {
+        return userProfileReader.readValue(serializedUserProfile);
+    }
+
+    @Benchmark
+    public byte[] serializeUserProfileUpdates() throws IOException {
+        return userProfileUpdatesWriter.writeValueAsBytes(userProfileUpdates);
+    }
+
+    @Benchmark
+    public List<UserProfileUpdate> deserializeUserProfileUpdates() throws IOException {
+        return userProfileUpdatesReader.readValue(serializedUserProfileUpdates);
+    }
+}
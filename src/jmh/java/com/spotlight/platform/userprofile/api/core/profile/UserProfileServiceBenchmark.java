@@ -0,0 +1,60 @@
+package com.spotlight.platform.userprofile.api.core.profile;
+
+import com.codahale.metrics.MetricRegistry;
+import com.spotlight.platform.userprofile.api.core.profile.persistence.UserProfileDaoInMemory;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfileBenchmarkFixtures;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfileUpdate;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserUpdateType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Single update of a stored profile, by the type of the update and the shape of the profile
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserProfileServiceBenchmark {
+    @Param({"REPLACE", "INCREMENT", "COLLECT"})
+    public UserUpdateType userUpdateType;
+
+    @Param({"10", "100", "1000"})
+    public int profileSize;
+
+    @Param({"10", "1000"})
+    public int listLength;
+
+    private UserProfileService userProfileService;
+    private UserProfileUpdate userProfileUpdate;
+
+    // Per iteration, so collected lists only grow by the updates of a single iteration
+    @Setup(Level.Iteration)
+    public void setUp() {
+        UserId userId = UserProfileBenchmarkFixtures.userId(0);
+        var userProfileDao = new UserProfileDaoInMemory();
+        userProfileDao.put(
+                UserProfileBenchmarkFixtures.userProfile(userId, profileSize, listLength));
+        userProfileService = new UserProfileService(userProfileDao, new MetricRegistry());
+        userProfileUpdate = UserProfileBenchmarkFixtures.userProfileUpdate(userId, userUpdateType);
+    }
+
+    @Benchmark
+    public void update() {
+        userProfileService.update(userProfileUpdate);
+    }
+}
@@ -0,0 +1,96 @@
+package com.spotlight.platform.userprofile.api.core.profile.persistence;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.spotlight.platform.userprofile.api.core.json.JsonMapper;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfile;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfileBenchmarkFixtures;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyValue;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Binary encoding of stored profiles against their JSON, which the storages used before
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserProfileCodecBenchmark {
+    private static final int LIST_LENGTH = 10;
+
+    @Param({"10", "100", "1000"})
+    public int profileSize;
+
+    private Path dictionaryFile;
+    private PropertyNameDictionary propertyNameDictionary;
+    private UserProfileCodec codec;
+    private ObjectWriter jsonWriter;
+    private ObjectReader jsonReader;
+    private UserProfile userProfile;
+    private ByteBuffer encodedProfile;
+    private byte[] serializedProfile;
+
+    @Setup
+    public void setUp() throws IOException {
+        dictionaryFile = Files.createTempFile("property-names", ".dict");
+        propertyNameDictionary = PropertyNameDictionary.open(dictionaryFile);
+        codec = new UserProfileCodec(propertyNameDictionary);
+        jsonWriter = JsonMapper.getInstance().writerFor(UserProfile.class);
+        jsonReader = JsonMapper.getInstance().readerFor(UserProfile.class);
+        userProfile =
+                UserProfileBenchmarkFixtures.userProfile(
+                        UserProfileBenchmarkFixtures.userId(0), profileSize, LIST_LENGTH);
+        encodedProfile = ByteBuffer.wrap(codec.encode(userProfile));
+        serializedProfile = jsonWriter.writeValueAsBytes(userProfile);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        propertyNameDictionary.close();
+        Files.delete(dictionaryFile);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return codec.encode(userProfile);
+    }
+
+    @Benchmark
+    public UserProfile decode() {
+        return codec.decode(encodedProfile);
+    }
+
+    @Benchmark
+    public Optional<UserProfilePropertyValue> decodeProperty() {
+        return codec.decodeProperty(encodedProfile, UserProfileBenchmarkFixtures.LIST_PROPERTY);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+        return jsonWriter.writeValueAsBytes(userProfile);
+    }
+
+    @Benchmark
+    public UserProfile decodeJson() throws IOException {
+        return jsonReader.readValue(serializedProfile);
+    }
+}
@@ -0,0 +1,98 @@
+package com.spotlight.platform.userprofile.api.core.profile.persistence;
+
+import com.spotlight.platform.userprofile.api.model.profile.UserProfile;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfileBenchmarkFixtures;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// Reads and writes of random users, by a single thread and by as many threads as there are
+// cores, to show how the storage scales
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserProfileDaoInMemoryBenchmark {
+    private static final int PROFILE_SIZE = 20;
+    private static final int LIST_LENGTH = 10;
+
+    @Param({"1000", "100000"})
+    public int userCount;
+
+    private UserProfileDaoInMemory userProfileDao;
+    private UserId[] userIds;
+    private UserProfile[] userProfiles;
+
+    @Setup
+    public void setUp() {
+        userProfileDao = new UserProfileDaoInMemory();
+        userIds =
+                IntStream.range(0, userCount)
+                        .mapToObj(UserProfileBenchmarkFixtures::userId)
+                        .toArray(UserId[]::new);
+        userProfiles =
+                IntStream.range(0, userCount)
+                        .mapToObj(
+                                i ->
+                                        UserProfileBenchmarkFixtures.userProfile(
+                                                userIds[i], PROFILE_SIZE, LIST_LENGTH))
+                        .toArray(UserProfile[]::new);
+        for (UserProfile userProfile : userProfiles) {
+            userProfileDao.put(userProfile);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Optional<UserProfile> get_singleThread() {
+        return get();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Optional<UserProfile> get_allCores() {
+        return get();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void put_singleThread() {
+        put();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void put_allCores() {
+        put();
+    }
+
+    private Optional<UserProfile> get() {
+        return userProfileDao.get(userIds[randomIndex()]);
+    }
+
+    private void put() {
+        userProfileDao.put(userProfiles[randomIndex()]);
+    }
+
+    private int randomIndex() {
+        return ThreadLocalRandom.current().nextInt(userCount);
+    }
+}
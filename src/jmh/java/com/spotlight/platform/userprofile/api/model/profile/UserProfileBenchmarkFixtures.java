@@ -0,0 +1,67 @@
+package com.spotlight.platform.userprofile.api.model.profile;
+
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyName;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyValue;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserUpdateType;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+// Profiles shaped like the ones of a game: mostly counters, some strings and one list
+public class UserProfileBenchmarkFixtures {
+    public static final UserProfilePropertyName COUNTER_PROPERTY =
+            UserProfilePropertyName.valueOf("property0");
+    public static final UserProfilePropertyName STRING_PROPERTY =
+            UserProfilePropertyName.valueOf("property1");
+    public static final UserProfilePropertyName LIST_PROPERTY =
+            UserProfilePropertyName.valueOf("inventory");
+
+    private UserProfileBenchmarkFixtures() {}
+
+    public static UserId userId(int index) {
+        return UserId.valueOf("user-" + index);
+    }
+
+    // Every third property is a string, the others are counters
+    public static UserProfile userProfile(UserId userId, int propertyCount, int listLength) {
+        Map<UserProfilePropertyName, UserProfilePropertyValue> properties = new HashMap<>();
+        for (int i = 0; i < propertyCount; i++) {
+            properties.put(
+                    UserProfilePropertyName.valueOf("property" + i),
+                    i % 3 == 1
+                            ? UserProfilePropertyValue.valueOf("value" + i)
+                            : UserProfilePropertyValue.valueOf(i));
+        }
+        properties.put(LIST_PROPERTY, UserProfilePropertyValue.valueOf(itemList(listLength)));
+        return new UserProfile(userId, Instant.now(), properties);
+    }
+
+    // Update of a single property, as sent by a game client
+    public static UserProfileUpdate userProfileUpdate(UserId userId, UserUpdateType type) {
+        return new UserProfileUpdate(
+                userId,
+                type,
+                switch (type) {
+                    case REPLACE -> Map.of(
+                            STRING_PROPERTY, UserProfilePropertyValue.valueOf("replaced"));
+                    case INCREMENT -> Map.of(COUNTER_PROPERTY, UserProfilePropertyValue.valueOf(1));
+                    case COLLECT -> Map.of(
+                            LIST_PROPERTY, UserProfilePropertyValue.valueOf(itemList(1)));
+                });
+    }
+
+    public static List<UserProfileUpdate> userProfileUpdates(int count) {
+        UserUpdateType[] types = UserUpdateType.values();
+        return IntStream.range(0, count)
+                .mapToObj(i -> userProfileUpdate(userId(i), types[i % types.length]))
+                .toList();
+    }
+
+    private static List<String> itemList(int length) {
+        return IntStream.range(0, length).mapToObj(i -> "item" + i).toList();
+    }
+}
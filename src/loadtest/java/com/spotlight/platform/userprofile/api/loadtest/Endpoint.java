@@ -0,0 +1,27 @@
+package com.spotlight.platform.userprofile.api.loadtest;
+
+enum Endpoint {
+    GET("get"),
+    UPDATE("update"),
+    BULK_UPDATE("bulk");
+
+    private final String name;
+
+    Endpoint(String name) {
+        this.name = name;
+    }
+
+    static Endpoint fromName(String name) {
+        for (Endpoint endpoint : values()) {
+            if (endpoint.name.equals(name)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Unknown endpoint " + name);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
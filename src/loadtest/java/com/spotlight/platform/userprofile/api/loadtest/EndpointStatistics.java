@@ -0,0 +1,34 @@
+package com.spotlight.platform.userprofile.api.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latencies in microseconds, recorded concurrently by the threads completing the requests
+final class EndpointStatistics {
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Recorder latencies = new Recorder(SIGNIFICANT_DIGITS);
+    private final LongAdder errors = new LongAdder();
+
+    void record(long latencyNanos, boolean successful) {
+        latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        if (!successful) {
+            errors.increment();
+        }
+    }
+
+    void reset() {
+        latencies.reset();
+        errors.reset();
+    }
+
+    // Everything recorded since the last reset or snapshot
+    Snapshot snapshot() {
+        return new Snapshot(latencies.getIntervalHistogram(), errors.sumThenReset());
+    }
+
+    record Snapshot(Histogram latencies, long errors) {}
+}
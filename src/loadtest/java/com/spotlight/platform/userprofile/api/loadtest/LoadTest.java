@@ -0,0 +1,212 @@
+package com.spotlight.platform.userprofile.api.loadtest;
+
+import com.spotlight.platform.userprofile.api.model.configuration.UserProfileApiConfiguration;
+import com.spotlight.platform.userprofile.api.web.UserProfileApiApplication;
+
+import io.dropwizard.testing.ConfigOverride;
+import io.dropwizard.testing.DropwizardTestSupport;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Starts the application on a random local port and sends it a mix of requests at a fixed
+// rate, then reports throughput and latency percentiles per endpoint. Runs offline, with the
+// application and the load generator in the same process.
+//
+// The load is open loop: requests are sent on a fixed schedule whether or not earlier ones have
+// completed, and latency counts from the scheduled time of a request. A server that stalls
+// therefore shows up as high latencies instead of silently lowering the rate, which a closed
+// loop of clients waiting for their previous response would hide (coordinated omission).
+public final class LoadTest {
+    private static final int POPULATION_BATCH_SIZE = 1000;
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final LoadTestOptions options;
+    private final HttpClient httpClient;
+    private final RequestFactory requestFactory;
+    private final Endpoint[] endpointsByWeight;
+    private final Semaphore inFlightRequests;
+    private final Map<Endpoint, EndpointStatistics> statistics = new EnumMap<>(Endpoint.class);
+
+    private LoadTest(
+            LoadTestOptions options, HttpClient httpClient, RequestFactory requestFactory) {
+        this.options = options;
+        this.httpClient = httpClient;
+        this.requestFactory = requestFactory;
+        List<Endpoint> endpoints = new ArrayList<>();
+        options.mix()
+                .forEach(
+                        (endpoint, weight) ->
+                                endpoints.addAll(Collections.nCopies(weight, endpoint)));
+        this.endpointsByWeight = endpoints.toArray(Endpoint[]::new);
+        this.inFlightRequests = new Semaphore(options.maxInFlight());
+        for (Endpoint endpoint : Endpoint.values()) {
+            statistics.put(endpoint, new EndpointStatistics());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        var application =
+                new DropwizardTestSupport<UserProfileApiConfiguration>(
+                        UserProfileApiApplication.class,
+                        (String) null,
+                        getConfigOverrides(options, Files.createTempDirectory("load-test")));
+        application.before();
+        ExecutorService clientExecutor =
+                Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            HttpClient httpClient =
+                    HttpClient.newBuilder()
+                            .version(HttpClient.Version.HTTP_1_1)
+                            .executor(clientExecutor)
+                            .build();
+            var requestFactory =
+                    new RequestFactory(
+                            URI.create("http://localhost:" + application.getLocalPort() + "/"),
+                            options.users(),
+                            options.bulkSize());
+            new LoadTest(options, httpClient, requestFactory).run();
+        } finally {
+            clientExecutor.shutdownNow();
+            application.after();
+        }
+    }
+
+    private void run() throws IOException, InterruptedException {
+        System.out.printf("Creating %d user profiles%n", options.users());
+        for (HttpRequest request : requestFactory.createPopulationRequests(POPULATION_BATCH_SIZE)) {
+            HttpResponse<Void> response =
+                    httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() >= 400) {
+                throw new IllegalStateException(
+                        "Creating user profiles failed with status " + response.statusCode());
+            }
+        }
+
+        System.out.printf("Warming up for %s at %d requests/s%n", options.warmup(), options.rate());
+        sendRequests(options.warmup());
+        awaitInFlightRequests();
+        statistics.values().forEach(EndpointStatistics::reset);
+
+        System.out.printf(
+                "Measuring for %s at %d requests/s%n", options.duration(), options.rate());
+        long startTime = System.nanoTime();
+        sendRequests(options.duration());
+        awaitInFlightRequests();
+        report(System.nanoTime() - startTime);
+    }
+
+    private void sendRequests(Duration duration) throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate();
+        long requestCount = duration.toNanos() / intervalNanos;
+        long startTime = System.nanoTime();
+        for (long request = 0; request < requestCount; request++) {
+            long scheduledTime = startTime + request * intervalNanos;
+            long delayNanos = scheduledTime - System.nanoTime();
+            if (delayNanos > 0) {
+                LockSupport.parkNanos(delayNanos);
+            }
+            // Waiting for a free slot delays the request, which is counted in its latency
+            inFlightRequests.acquire();
+            send(pickEndpoint(), scheduledTime);
+        }
+    }
+
+    private void send(Endpoint endpoint, long scheduledTime) {
+        httpClient
+                .sendAsync(requestFactory.create(endpoint), HttpResponse.BodyHandlers.discarding())
+                .whenComplete(
+                        (response, failure) -> {
+                            statistics
+                                    .get(endpoint)
+                                    .record(
+                                            System.nanoTime() - scheduledTime,
+                                            failure == null && response.statusCode() < 400);
+                            inFlightRequests.release();
+                        });
+    }
+
+    private Endpoint pickEndpoint() {
+        return endpointsByWeight[ThreadLocalRandom.current().nextInt(endpointsByWeight.length)];
+    }
+
+    private void awaitInFlightRequests() throws InterruptedException {
+        inFlightRequests.acquire(options.maxInFlight());
+        inFlightRequests.release(options.maxInFlight());
+    }
+
+    private void report(long elapsedNanos) {
+        double elapsedSeconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        System.out.printf(
+                "%n%-8s %10s %8s %10s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        long totalRequests = 0;
+        for (Map.Entry<Endpoint, EndpointStatistics> entry : statistics.entrySet()) {
+            EndpointStatistics.Snapshot snapshot = entry.getValue().snapshot();
+            Histogram latencies = snapshot.latencies();
+            totalRequests += latencies.getTotalCount();
+            System.out.printf(
+                    "%-8s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                    entry.getKey(),
+                    latencies.getTotalCount(),
+                    snapshot.errors(),
+                    latencies.getTotalCount() / elapsedSeconds,
+                    toMillis(latencies.getValueAtPercentile(50)),
+                    toMillis(latencies.getValueAtPercentile(99)),
+                    toMillis(latencies.getValueAtPercentile(99.9)),
+                    toMillis(latencies.getMaxValue()));
+        }
+        System.out.printf(
+                "%ntotal %.1f requests/s of %d requests/s scheduled%n",
+                totalRequests / elapsedSeconds, options.rate());
+    }
+
+    // Random ports, and request logs to a file and only warnings to the console, so logging
+    // does not slow down the application
+    private static ConfigOverride[] getConfigOverrides(
+            LoadTestOptions options, Path logDirectory) {
+        List<ConfigOverride> configOverrides = new ArrayList<>();
+        configOverrides.add(ConfigOverride.config("server.applicationConnectors[0].port", "0"));
+        configOverrides.add(ConfigOverride.config("server.adminConnectors[0].port", "0"));
+        configOverrides.add(ConfigOverride.config("logging.level", "WARN"));
+        configOverrides.add(ConfigOverride.config("server.requestLog.appenders[0].type", "file"));
+        configOverrides.add(
+                ConfigOverride.config(
+                        "server.requestLog.appenders[0].currentLogFilename",
+                        logDirectory.resolve("requests.log").toString()));
+        configOverrides.add(
+                ConfigOverride.config("server.requestLog.appenders[0].archive", "false"));
+        for (String configOverride : options.configOverrides()) {
+            int separator = configOverride.indexOf('=');
+            configOverrides.add(
+                    ConfigOverride.config(
+                            configOverride.substring(0, separator),
+                            configOverride.substring(separator + 1)));
+        }
+        return configOverrides.toArray(ConfigOverride[]::new);
+    }
+
+    private static double toMillis(long micros) {
+        return micros / MICROS_PER_MILLI;
+    }
+}
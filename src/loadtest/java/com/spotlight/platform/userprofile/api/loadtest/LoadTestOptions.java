@@ -0,0 +1,62 @@
+package com.spotlight.platform.userprofile.api.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Options are given as --name=value, e.g. --rate=5000 --mix=get:80,update:15,bulk:5.
+// Every --override=key=value overrides a setting of the application configuration, e.g.
+// --override=profileStorage.type=SHARDED.
+record LoadTestOptions(
+        int rate,
+        Duration warmup,
+        Duration duration,
+        Map<Endpoint, Integer> mix,
+        int users,
+        int bulkSize,
+        int maxInFlight,
+        List<String> configOverrides) {
+
+    static LoadTestOptions parse(String[] args) {
+        int rate = 1000;
+        Duration warmup = Duration.ofSeconds(10);
+        Duration duration = Duration.ofSeconds(30);
+        Map<Endpoint, Integer> mix = parseMix("get:80,update:15,bulk:5");
+        int users = 10_000;
+        int bulkSize = 100;
+        int maxInFlight = 256;
+        List<String> configOverrides = new ArrayList<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value instead of " + arg);
+            }
+            String value = arg.substring(separator + 1);
+            switch (arg.substring(2, separator)) {
+                case "rate" -> rate = Integer.parseInt(value);
+                case "warmup" -> warmup = Duration.ofSeconds(Long.parseLong(value));
+                case "duration" -> duration = Duration.ofSeconds(Long.parseLong(value));
+                case "mix" -> mix = parseMix(value);
+                case "users" -> users = Integer.parseInt(value);
+                case "bulk-size" -> bulkSize = Integer.parseInt(value);
+                case "max-in-flight" -> maxInFlight = Integer.parseInt(value);
+                case "override" -> configOverrides.add(value);
+                default -> throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        return new LoadTestOptions(
+                rate, warmup, duration, mix, users, bulkSize, maxInFlight, configOverrides);
+    }
+
+    // Weights of the endpoints, e.g. get:80,update:15,bulk:5
+    private static Map<Endpoint, Integer> parseMix(String value) {
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        for (String weight : value.split(",")) {
+            String[] nameAndWeight = weight.split(":");
+            mix.put(Endpoint.fromName(nameAndWeight[0]), Integer.parseInt(nameAndWeight[1]));
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,136 @@
+package com.spotlight.platform.userprofile.api.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spotlight.platform.userprofile.api.core.json.JsonMapper;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfileUpdate;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyName;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyValue;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserUpdateType;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+// Requests for random users. Bodies are serialized up front, so the load generator spends its
+// time on sending requests rather than on JSON.
+final class RequestFactory {
+    private static final String JSON = "application/json";
+    private static final int BULK_BODY_COUNT = 64;
+    private static final UserProfilePropertyName COUNTER =
+            UserProfilePropertyName.valueOf("counter");
+    private static final UserProfilePropertyName NAME = UserProfilePropertyName.valueOf("name");
+    private static final UserProfilePropertyName INVENTORY =
+            UserProfilePropertyName.valueOf("inventory");
+
+    private final ObjectMapper objectMapper = JsonMapper.getInstance();
+    private final URI baseUri;
+    private final int users;
+    private final Map<UserUpdateType, byte[]> updateBodies = new EnumMap<>(UserUpdateType.class);
+    private final List<byte[]> bulkUpdateBodies = new ArrayList<>();
+
+    RequestFactory(URI baseUri, int users, int bulkSize) throws JsonProcessingException {
+        this.baseUri = baseUri;
+        this.users = users;
+        for (UserUpdateType userUpdateType : UserUpdateType.values()) {
+            updateBodies.put(
+                    userUpdateType,
+                    objectMapper.writeValueAsBytes(getUpdatedProperties(userUpdateType)));
+        }
+        for (int i = 0; i < BULK_BODY_COUNT; i++) {
+            bulkUpdateBodies.add(
+                    objectMapper.writeValueAsBytes(
+                            IntStream.range(0, bulkSize)
+                                    .mapToObj(update -> createRandomUpdate())
+                                    .toList()));
+        }
+    }
+
+    HttpRequest create(Endpoint endpoint) {
+        var random = ThreadLocalRandom.current();
+        return switch (endpoint) {
+            case GET -> HttpRequest.newBuilder(resolve("users/" + getRandomUserId() + "/profile"))
+                    .GET()
+                    .build();
+            case UPDATE -> {
+                UserUpdateType userUpdateType =
+                        UserUpdateType.values()[random.nextInt(UserUpdateType.values().length)];
+                yield post(
+                        "users/" + getRandomUserId() + "/update/" + userUpdateType,
+                        updateBodies.get(userUpdateType));
+            }
+            case BULK_UPDATE -> post(
+                    "users/update",
+                    bulkUpdateBodies.get(random.nextInt(bulkUpdateBodies.size())));
+        };
+    }
+
+    // Bulk replaces creating the profile of every user, so reads find them and increments and
+    // collects find a counter and a list
+    List<HttpRequest> createPopulationRequests(int batchSize) throws JsonProcessingException {
+        List<HttpRequest> requests = new ArrayList<>();
+        for (int first = 0; first < users; first += batchSize) {
+            List<UserProfileUpdate> userProfileUpdates =
+                    IntStream.range(first, Math.min(first + batchSize, users))
+                            .mapToObj(
+                                    user ->
+                                            new UserProfileUpdate(
+                                                    getUserId(user),
+                                                    UserUpdateType.REPLACE,
+                                                    Map.of(
+                                                            COUNTER,
+                                                            UserProfilePropertyValue.valueOf(0),
+                                                            NAME,
+                                                            UserProfilePropertyValue.valueOf(
+                                                                    "user"),
+                                                            INVENTORY,
+                                                            UserProfilePropertyValue.valueOf(
+                                                                    List.of("item")))))
+                            .toList();
+            requests.add(post("users/update", objectMapper.writeValueAsBytes(userProfileUpdates)));
+        }
+        return requests;
+    }
+
+    private UserProfileUpdate createRandomUpdate() {
+        UserUpdateType userUpdateType =
+                UserUpdateType.values()[
+                        ThreadLocalRandom.current().nextInt(UserUpdateType.values().length)];
+        return new UserProfileUpdate(
+                getRandomUserId(), userUpdateType, getUpdatedProperties(userUpdateType));
+    }
+
+    private static Map<UserProfilePropertyName, UserProfilePropertyValue> getUpdatedProperties(
+            UserUpdateType userUpdateType) {
+        return switch (userUpdateType) {
+            case REPLACE -> Map.of(NAME, UserProfilePropertyValue.valueOf("renamed"));
+            case INCREMENT -> Map.of(COUNTER, UserProfilePropertyValue.valueOf(1));
+            case COLLECT -> Map.of(INVENTORY, UserProfilePropertyValue.valueOf(List.of("item")));
+        };
+    }
+
+    private HttpRequest post(String path, byte[] body) {
+        return HttpRequest.newBuilder(resolve(path))
+                .header("Content-Type", JSON)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+    }
+
+    private URI resolve(String path) {
+        return baseUri.resolve(path);
+    }
+
+    private UserId getRandomUserId() {
+        return getUserId(ThreadLocalRandom.current().nextInt(users));
+    }
+
+    private static UserId getUserId(int user) {
+        return UserId.valueOf("user-" + user);
+    }
+}
@@ -0,0 +1,8 @@
+package com.spotlight.platform.userprofile.api.core.exceptions;
+
+// An ArithmeticException, so it is handled the same as any other failure of applying an update
+public class IncrementOverflowException extends ArithmeticException {
+    public IncrementOverflowException() {
+        super("Increment overflows the range of the property value");
+    }
+}
@@ -0,0 +1,14 @@
+package com.spotlight.platform.userprofile.api.core.profile;
+
+import com.spotlight.platform.userprofile.api.model.profile.UserProfileUpdate;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyName;
+
+import java.util.List;
+import java.util.Map;
+
+// One profile write with the same effect as applying the original commands in order
+public record CoalescedUserProfileUpdate(
+        UserId userId,
+        Map<UserProfilePropertyName, UserProfilePropertyUpdate> propertyUpdates,
+        List<UserProfileUpdate> userProfileUpdates) {}
@@ -0,0 +1,162 @@
+package com.spotlight.platform.userprofile.api.core.profile;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.spotlight.platform.userprofile.api.core.exceptions.QueueFullException;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfileUpdate;
+
+import io.dropwizard.lifecycle.Managed;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Accepts commands to be applied in the background. Every user is assigned to one worker, so
+// the commands of a user are applied in the order they were accepted. The number of accepted
+// but not yet applied commands is bounded; beyond that, commands are rejected.
+public class UserProfileAsyncUpdateService implements Managed {
+    public static final String EXECUTOR_NAME = "asyncUpdateExecutor";
+    public static final String METRICS_PREFIX = "user-profile.async-update";
+
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(UserProfileAsyncUpdateService.class);
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+    private static final int MAX_DRAIN_SIZE = 256;
+
+    private final UserProfileService userProfileService;
+    private final ExecutorService executorService;
+    private final int queueCapacity;
+    // Permits for the free slots of all queues, so a bulk update is accepted or rejected as whole
+    private final Semaphore freeCapacity;
+    private final List<BlockingQueue<QueuedUpdate>> queues;
+    private final List<Future<?>> workers = new ArrayList<>();
+    private final Meter applied;
+    private final Meter rejected;
+    private final Meter failed;
+    private final Timer enqueueToApplyTime;
+
+    private volatile boolean running;
+
+    public UserProfileAsyncUpdateService(
+            UserProfileService userProfileService,
+            ExecutorService executorService,
+            int queueCapacity,
+            int workerCount,
+            MetricRegistry metricRegistry) {
+        this.userProfileService = userProfileService;
+        this.executorService = executorService;
+        this.queueCapacity = queueCapacity;
+        this.freeCapacity = new Semaphore(queueCapacity);
+        this.queues = new ArrayList<>(workerCount);
+        for (int worker = 0; worker < workerCount; worker++) {
+            queues.add(new LinkedBlockingQueue<>());
+        }
+        metricRegistry.register(
+                MetricRegistry.name(METRICS_PREFIX, "queue-depth"),
+                (Gauge<Integer>) () -> queueCapacity - freeCapacity.availablePermits());
+        this.applied = metricRegistry.meter(MetricRegistry.name(METRICS_PREFIX, "applied"));
+        this.rejected = metricRegistry.meter(MetricRegistry.name(METRICS_PREFIX, "rejected"));
+        this.failed = metricRegistry.meter(MetricRegistry.name(METRICS_PREFIX, "failed"));
+        this.enqueueToApplyTime =
+                metricRegistry.timer(MetricRegistry.name(METRICS_PREFIX, "enqueue-to-apply"));
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        for (BlockingQueue<QueuedUpdate> queue : queues) {
+            workers.add(executorService.submit(() -> drain(queue)));
+        }
+    }
+
+    // Stops accepting commands and waits until the accepted ones have been applied
+    @Override
+    public synchronized void stop() throws InterruptedException {
+        running = false;
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                LOGGER.error("Async update worker failed", e.getCause());
+            }
+        }
+        workers.clear();
+    }
+
+    public void enqueue(UserProfileUpdate userProfileUpdate) {
+        enqueue(List.of(userProfileUpdate));
+    }
+
+    public void enqueue(List<UserProfileUpdate> userProfileUpdates) {
+        if (userProfileUpdates.isEmpty()) {
+            return;
+        }
+        // Capacity is claimed before checking whether the service runs, so a stopping service
+        // keeps its workers running until every claimed command has been applied.
+        if (!freeCapacity.tryAcquire(userProfileUpdates.size())) {
+            rejected.mark(userProfileUpdates.size());
+            throw new QueueFullException();
+        }
+        if (!running) {
+            freeCapacity.release(userProfileUpdates.size());
+            rejected.mark(userProfileUpdates.size());
+            throw new QueueFullException();
+        }
+        long enqueueNanos = System.nanoTime();
+        for (UserProfileUpdate userProfileUpdate : userProfileUpdates) {
+            getQueue(userProfileUpdate).add(new QueuedUpdate(userProfileUpdate, enqueueNanos));
+        }
+    }
+
+    private BlockingQueue<QueuedUpdate> getQueue(UserProfileUpdate userProfileUpdate) {
+        return queues.get(Math.floorMod(userProfileUpdate.userId().hashCode(), queues.size()));
+    }
+
+    private void drain(BlockingQueue<QueuedUpdate> queue) {
+        List<QueuedUpdate> queuedUpdates = new ArrayList<>(MAX_DRAIN_SIZE);
+        while (running || freeCapacity.availablePermits() < queueCapacity) {
+            try {
+                QueuedUpdate queuedUpdate = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (queuedUpdate == null) {
+                    continue;
+                }
+                queuedUpdates.add(queuedUpdate);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(queuedUpdates, MAX_DRAIN_SIZE - 1);
+            for (QueuedUpdate queuedUpdate : queuedUpdates) {
+                apply(queuedUpdate);
+            }
+            freeCapacity.release(queuedUpdates.size());
+            queuedUpdates.clear();
+        }
+    }
+
+    private void apply(QueuedUpdate queuedUpdate) {
+        try {
+            userProfileService.update(queuedUpdate.userProfileUpdate());
+        } catch (RuntimeException e) {
+            // Nobody waits for the result anymore, so the failure can only be reported here
+            failed.mark();
+            LOGGER.warn("Failed to apply {}", queuedUpdate.userProfileUpdate(), e);
+        }
+        applied.mark();
+        enqueueToApplyTime.update(
+                System.nanoTime() - queuedUpdate.enqueueNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private record QueuedUpdate(UserProfileUpdate userProfileUpdate, long enqueueNanos) {}
+}
@@ -0,0 +1,191 @@
+package com.spotlight.platform.userprofile.api.core.profile;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfileUpdate;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class UserProfileBulkService {
+    public static final String METRICS_PREFIX = "user-profile.bulk-update";
+
+    private final UserProfileService userProfileService;
+    private final UserProfileUpdateCoalescer userProfileUpdateCoalescer;
+    private final ExecutorService executorService;
+    private final int parallelism;
+    private final Timer batchTimer;
+    private final Histogram batchSizes;
+    private final Histogram nanosPerCommand;
+    private final Meter profileWrites;
+
+    public UserProfileBulkService(
+            UserProfileService userProfileService,
+            UserProfileUpdateCoalescer userProfileUpdateCoalescer,
+            ExecutorService executorService,
+            int parallelism,
+            MetricRegistry metricRegistry) {
+        this.userProfileService = userProfileService;
+        this.userProfileUpdateCoalescer = userProfileUpdateCoalescer;
+        this.executorService = executorService;
+        this.parallelism = parallelism;
+        this.batchTimer = metricRegistry.timer(MetricRegistry.name(METRICS_PREFIX, "batch-time"));
+        this.batchSizes =
+                metricRegistry.histogram(MetricRegistry.name(METRICS_PREFIX, "batch-size"));
+        this.nanosPerCommand =
+                metricRegistry.histogram(MetricRegistry.name(METRICS_PREFIX, "nanos-per-command"));
+        this.profileWrites = metricRegistry.meter(MetricRegistry.name(METRICS_PREFIX, "writes"));
+    }
+
+    // Commands of different users are applied in parallel, while the commands of one user are
+    // coalesced into as few profile writes as possible with the same effect as applying them in
+    // the order they were submitted.
+    public void update(List<UserProfileUpdate> userProfileUpdates) {
+        if (userProfileUpdates.isEmpty()) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        Collection<List<UserProfileUpdate>> updatesPerUser = partitionByUser(userProfileUpdates);
+        if (updatesPerUser.size() == 1 || parallelism == 1) {
+            // Not worth handing over to another thread
+            updateEachInOrder(updatesPerUser);
+        } else {
+            updateInParallel(updatesPerUser);
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        batchTimer.update(elapsedNanos, TimeUnit.NANOSECONDS);
+        batchSizes.update(userProfileUpdates.size());
+        nanosPerCommand.update(elapsedNanos / userProfileUpdates.size());
+    }
+
+    private void updateInOrder(List<UserProfileUpdate> userProfileUpdates) {
+        for (CoalescedUserProfileUpdate coalescedUpdate :
+                userProfileUpdateCoalescer.coalesce(userProfileUpdates)) {
+            update(coalescedUpdate);
+        }
+    }
+
+    private void update(CoalescedUserProfileUpdate coalescedUpdate) {
+        List<UserProfileUpdate> userProfileUpdates = coalescedUpdate.userProfileUpdates();
+        if (userProfileUpdates.size() == 1) {
+            profileWrites.mark();
+            userProfileService.update(userProfileUpdates.get(0));
+            return;
+        }
+        profileWrites.mark();
+        if (!userProfileService.updateProperties(
+                coalescedUpdate.userId(), coalescedUpdate.propertyUpdates())) {
+            // The folded updates could not be applied and nothing has been written, so the
+            // commands are applied one after the other to fail at exactly the command that
+            // sequential application would have failed at.
+            for (UserProfileUpdate userProfileUpdate : userProfileUpdates) {
+                profileWrites.mark();
+                userProfileService.update(userProfileUpdate);
+            }
+        }
+    }
+
+    // Users are spread over at most as many tasks as there are threads, so that a batch of many
+    // users does not create a task for each of them. All commands of a user end up in the same
+    // task, in order.
+    private void updateInParallel(Collection<List<UserProfileUpdate>> updatesPerUser) {
+        int taskCount = Math.min(parallelism, updatesPerUser.size());
+        List<List<List<UserProfileUpdate>>> updatesPerTask = new ArrayList<>(taskCount);
+        for (int task = 0; task < taskCount; task++) {
+            updatesPerTask.add(new ArrayList<>());
+        }
+        for (List<UserProfileUpdate> userProfileUpdates : updatesPerUser) {
+            int task = Math.floorMod(userProfileUpdates.get(0).userId().hashCode(), taskCount);
+            updatesPerTask.get(task).add(userProfileUpdates);
+        }
+        List<Callable<Void>> tasks = new ArrayList<>(taskCount);
+        for (List<List<UserProfileUpdate>> taskUpdates : updatesPerTask) {
+            if (!taskUpdates.isEmpty()) {
+                tasks.add(
+                        () -> {
+                            updateEachInOrder(taskUpdates);
+                            return null;
+                        });
+            }
+        }
+        try {
+            awaitAll(executorService.invokeAll(tasks));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while applying bulk update", e);
+        }
+    }
+
+    // A failure of one user does not keep the commands of the others from being applied
+    private void updateEachInOrder(Collection<List<UserProfileUpdate>> updatesPerUser) {
+        RuntimeException failure = null;
+        for (List<UserProfileUpdate> userProfileUpdates : updatesPerUser) {
+            try {
+                updateInOrder(userProfileUpdates);
+            } catch (RuntimeException e) {
+                failure = addFailure(failure, e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static Collection<List<UserProfileUpdate>> partitionByUser(
+            List<UserProfileUpdate> userProfileUpdates) {
+        Map<UserId, List<UserProfileUpdate>> updatesPerUser = new LinkedHashMap<>();
+        for (UserProfileUpdate userProfileUpdate : userProfileUpdates) {
+            updatesPerUser
+                    .computeIfAbsent(userProfileUpdate.userId(), userId -> new ArrayList<>())
+                    .add(userProfileUpdate);
+        }
+        return updatesPerUser.values();
+    }
+
+    // Waits for every task to be done, so that a failure of one user does not leave the
+    // updates of others running in the background, then rethrows the first failure.
+    private static void awaitAll(List<Future<Void>> futures) throws InterruptedException {
+        RuntimeException failure = null;
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                failure = addFailure(failure, asRuntimeException(e.getCause()));
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static RuntimeException addFailure(RuntimeException failure, RuntimeException cause) {
+        if (failure == null) {
+            return cause;
+        }
+        if (failure != cause) {
+            failure.addSuppressed(cause);
+        }
+        return failure;
+    }
+
+    private static RuntimeException asRuntimeException(Throwable throwable) {
+        if (throwable instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (throwable instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(throwable);
+    }
+}
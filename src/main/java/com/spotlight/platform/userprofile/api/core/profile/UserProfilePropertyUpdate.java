@@ -0,0 +1,57 @@
+package com.spotlight.platform.userprofile.api.core.profile;
+
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyValue;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserUpdateType;
+
+import java.util.List;
+import java.util.Optional;
+
+public record UserProfilePropertyUpdate(
+        UserUpdateType userUpdateType, UserProfilePropertyValue value) {
+    private static final UserProfilePropertyValue INITIAL_INCREMENT_VALUE =
+            UserProfilePropertyValue.valueOf(0);
+    private static final UserProfilePropertyValue INITIAL_COLLECT_VALUE =
+            UserProfilePropertyValue.valueOf(List.of());
+
+    // currentValue is null if the profile does not have the property yet
+    public static UserProfilePropertyValue apply(
+            UserUpdateType userUpdateType,
+            UserProfilePropertyValue currentValue,
+            UserProfilePropertyValue value) {
+        return switch (userUpdateType) {
+            case REPLACE -> value;
+            case INCREMENT -> (currentValue == null ? INITIAL_INCREMENT_VALUE : currentValue)
+                    .increment(value);
+            case COLLECT -> (currentValue == null ? INITIAL_COLLECT_VALUE : currentValue)
+                    .collect(value);
+        };
+    }
+
+    public UserProfilePropertyValue applyTo(UserProfilePropertyValue currentValue) {
+        return apply(userUpdateType, currentValue, value);
+    }
+
+    // Folds this update and the one following it into a single update with the same effect as
+    // applying both in order. Empty if the result depends on the current value of the property.
+    public Optional<UserProfilePropertyUpdate> andThen(UserProfilePropertyUpdate nextUpdate) {
+        if (nextUpdate.userUpdateType == UserUpdateType.REPLACE) {
+            return Optional.of(nextUpdate);
+        }
+        if (userUpdateType == UserUpdateType.INCREMENT) {
+            // Summing the increments first may round or overflow differently than adding them to
+            // the current value one after the other, e.g. 1e16 + 1.0 + 1.0 or MAX_VALUE + 1 - 1
+            return Optional.empty();
+        }
+        if (userUpdateType != UserUpdateType.REPLACE
+                && userUpdateType != nextUpdate.userUpdateType) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(
+                    new UserProfilePropertyUpdate(userUpdateType, nextUpdate.applyTo(value)));
+        } catch (RuntimeException e) {
+            // Let the failure happen when applying the updates one after the other instead
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.spotlight.platform.userprofile.api.core.profile;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfile;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
+
+// JSON of the profiles last read per user, so reading an unchanged profile again only copies
+// bytes to the response. Every write stores a profile of a new version, so cached JSON is only
+// served for a profile of the version it was written from. JSON of a profile that has changed
+// since is replaced by the next read of the user, and can never be served, whichever order
+// concurrent reads and writes happen in. Only the version is kept besides the JSON, so the cache
+// does not keep profiles alive that its weight does not account for, and storages decoding a new
+// profile for every read, like the memory-mapped one, benefit as well.
+public class UserProfileResponseCache {
+    public static final String METRICS_PREFIX = "user-profile.response-cache";
+
+    // Object headers and references of an entry besides the JSON itself
+    private static final int ENTRY_BYTES = 64;
+
+    private final ObjectWriter userProfileWriter;
+    private final Cache<UserId, CachedJson> cache;
+    private final Meter hits;
+    private final Meter misses;
+
+    // A maximum size of 0 disables caching, the JSON is then written for every read
+    public UserProfileResponseCache(
+            ObjectMapper objectMapper, long maximumSizeInBytes, MetricRegistry metricRegistry) {
+        this.userProfileWriter = objectMapper.writerFor(UserProfile.class);
+        this.hits = metricRegistry.meter(name(METRICS_PREFIX, "hits"));
+        this.misses = metricRegistry.meter(name(METRICS_PREFIX, "misses"));
+        if (maximumSizeInBytes == 0) {
+            this.cache = null;
+            return;
+        }
+        this.cache =
+                Caffeine.newBuilder()
+                        .executor(Runnable::run)
+                        .maximumWeight(maximumSizeInBytes)
+                        .<UserId, CachedJson>weigher(
+                                (userId, cachedJson) -> ENTRY_BYTES + cachedJson.json().length)
+                        .build();
+        metricRegistry.register(
+                name(METRICS_PREFIX, "bytes"),
+                (Gauge<Long>)
+                        () -> cache.policy().eviction().orElseThrow().weightedSize().orElse(0));
+        metricRegistry.register(
+                name(METRICS_PREFIX, "hit-ratio"),
+                new RatioGauge() {
+                    @Override
+                    protected Ratio getRatio() {
+                        return Ratio.of(
+                                hits.getOneMinuteRate(),
+                                hits.getOneMinuteRate() + misses.getOneMinuteRate());
+                    }
+                });
+    }
+
+    public byte[] getJson(UserProfile userProfile) throws JsonProcessingException {
+        if (cache == null) {
+            return userProfileWriter.writeValueAsBytes(userProfile);
+        }
+        CachedJson cachedJson = cache.getIfPresent(userProfile.userId());
+        if (cachedJson != null && cachedJson.version() == userProfile.version()) {
+            hits.mark();
+            return cachedJson.json();
+        }
+        misses.mark();
+        byte[] json = userProfileWriter.writeValueAsBytes(userProfile);
+        cache.put(userProfile.userId(), new CachedJson(userProfile.version(), json));
+        return json;
+    }
+
+    private record CachedJson(long version, byte[] json) {}
+}
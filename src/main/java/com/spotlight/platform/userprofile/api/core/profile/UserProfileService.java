@@ -1,84 +1,308 @@
 package com.spotlight.platform.userprofile.api.core.profile;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.spotlight.platform.userprofile.api.core.exceptions.EntityNotFoundException;
 import com.spotlight.platform.userprofile.api.core.profile.persistence.UserProfileDao;
+import com.spotlight.platform.userprofile.api.model.common.PersistentHashMap;
 import com.spotlight.platform.userprofile.api.model.profile.UserProfile;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfileBatch;
 import com.spotlight.platform.userprofile.api.model.profile.UserProfileUpdate;
 import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
 import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyName;
 import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyValue;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserUpdateType;
 
 import java.time.Instant;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
 import javax.inject.Inject;
 
 public class UserProfileService {
+    public static final String METRICS_PREFIX = "user-profile";
+
+    static final int MAX_UPDATE_RETRIES = 8;
+    private static final long MIN_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
     private final UserProfileDao userProfileDao;
+    private final Map<UserUpdateType, Timer> updateTimers = new EnumMap<>(UserUpdateType.class);
+    private final Timer propertiesUpdateTimer;
+    private final Histogram readPropertyCounts;
+    private final Histogram writtenPropertyCounts;
+    private final Histogram collectListLengths;
+    private final Histogram updateRetries;
+    private final Meter updateConflicts;
+    private final Meter exhaustedUpdateRetries;
 
     @Inject
-    public UserProfileService(UserProfileDao userProfileDao) {
+    public UserProfileService(UserProfileDao userProfileDao, MetricRegistry metricRegistry) {
         this.userProfileDao = userProfileDao;
+        for (UserUpdateType userUpdateType : UserUpdateType.values()) {
+            updateTimers.put(
+                    userUpdateType,
+                    metricRegistry.timer(
+                            MetricRegistry.name(
+                                    METRICS_PREFIX, "update", userUpdateType.toString())));
+        }
+        this.propertiesUpdateTimer =
+                metricRegistry.timer(MetricRegistry.name(METRICS_PREFIX, "update", "properties"));
+        this.readPropertyCounts =
+                metricRegistry.histogram(MetricRegistry.name(METRICS_PREFIX, "read-properties"));
+        this.writtenPropertyCounts =
+                metricRegistry.histogram(MetricRegistry.name(METRICS_PREFIX, "written-properties"));
+        this.collectListLengths =
+                metricRegistry.histogram(
+                        MetricRegistry.name(METRICS_PREFIX, "collect-list-length"));
+        this.updateRetries =
+                metricRegistry.histogram(MetricRegistry.name(METRICS_PREFIX, "update-retries"));
+        this.updateConflicts =
+                metricRegistry.meter(MetricRegistry.name(METRICS_PREFIX, "update-conflicts"));
+        this.exhaustedUpdateRetries =
+                metricRegistry.meter(
+                        MetricRegistry.name(METRICS_PREFIX, "update-retries-exhausted"));
     }
 
     public UserProfile get(UserId userId) {
-        return userProfileDao.get(userId).orElseThrow(EntityNotFoundException::new);
+        UserProfile userProfile =
+                userProfileDao.get(userId).orElseThrow(EntityNotFoundException::new);
+        readPropertyCounts.update(userProfile.userProfileProperties().size());
+        return userProfile;
     }
 
-    private Map<UserProfilePropertyName, UserProfilePropertyValue> getProfileProperties(
-            UserId userId) {
-        Optional<UserProfile> userProfile = userProfileDao.get(userId);
-        if (userProfile.isEmpty()) {
-            // Reduce downstream complexities by providing empty HashMap
-            // in the event that a user profile did not previously exist.
-            return new HashMap<>();
+    // Missing users are reported instead of failing the whole batch
+    public UserProfileBatch getAll(List<UserId> userIds) {
+        var uniqueUserIds = new LinkedHashSet<>(userIds);
+        Map<UserId, UserProfile> storedUserProfiles = userProfileDao.getAll(uniqueUserIds);
+        List<UserProfile> userProfiles = new ArrayList<>(storedUserProfiles.size());
+        List<UserId> missingUserIds = new ArrayList<>();
+        for (UserId userId : uniqueUserIds) {
+            UserProfile userProfile = storedUserProfiles.get(userId);
+            if (userProfile == null) {
+                missingUserIds.add(userId);
+            } else {
+                userProfiles.add(userProfile);
+            }
         }
-        return new HashMap<>(userProfile.get().userProfileProperties());
+        return new UserProfileBatch(userProfiles, missingUserIds);
     }
 
-    public void replace(UserProfileUpdate userProfileUpdate) {
-        UserId userId = userProfileUpdate.userId();
-        Map<UserProfilePropertyName, UserProfilePropertyValue> profileProperties =
-                getProfileProperties(userId);
+    // Versions of profiles read with a different epoch must not be compared to the current ones
+    public String getStorageEpoch() {
+        return userProfileDao.getEpoch();
+    }
+
+    // The stream has to be closed once consumed
+    public Stream<UserProfile> streamUpdatedSince(Instant updatedSince) {
+        return userProfileDao
+                .streamAll()
+                .filter(userProfile -> !userProfile.latestUpdateTime().isBefore(updatedSince));
+    }
+
+    private PersistentHashMap<UserProfilePropertyName, UserProfilePropertyValue>
+            getProfileProperties(Optional<UserProfile> userProfile) {
+        // Reduce downstream complexities by providing an empty map
+        // in the event that a user profile did not previously exist.
+        return userProfile
+                .map(profile -> PersistentHashMap.copyOf(profile.userProfileProperties()))
+                .orElseGet(PersistentHashMap::empty);
+    }
+
+    private static long getVersion(Optional<UserProfile> userProfile) {
+        return userProfile.map(UserProfile::version).orElse(UserProfile.INITIAL_VERSION);
+    }
+
+    // The updater may only add or change the given properties, so that the storage can write
+    // just those
+    private UserProfile updateProfileProperties(
+            UserId userId,
+            Timer updateTimer,
+            Collection<UserProfilePropertyName> updatedPropertyNames,
+            UnaryOperator<PersistentHashMap<UserProfilePropertyName, UserProfilePropertyValue>>
+                    propertiesUpdater) {
+        UserProfile updatedUserProfile;
+        try (Timer.Context ignored = updateTimer.time()) {
+            updatedUserProfile =
+                    putUpdatedProfile(userId, updatedPropertyNames, propertiesUpdater);
+        }
+        writtenPropertyCounts.update(updatedUserProfile.userProfileProperties().size());
+        return updatedUserProfile;
+    }
+
+    // Optimistic read-modify-write: the profile is only stored if no other writer stored another
+    // version of it in the meantime, so no lock is held while the update is applied. The
+    // properties are persistent, so an update only copies the entries it touches instead of the
+    // whole profile. A writer that keeps losing to the other writers of a hot user ends up applying
+    // the update through the storage, so contention slows updates down but never fails them.
+    private UserProfile putUpdatedProfile(
+            UserId userId,
+            Collection<UserProfilePropertyName> updatedPropertyNames,
+            UnaryOperator<PersistentHashMap<UserProfilePropertyName, UserProfilePropertyValue>>
+                    propertiesUpdater) {
+        for (int retries = 0; ; retries++) {
+            Optional<UserProfile> userProfile = userProfileDao.get(userId);
+            long version = getVersion(userProfile);
+            var updatedUserProfile =
+                    new UserProfile(
+                            userId,
+                            Instant.now(),
+                            propertiesUpdater.apply(getProfileProperties(userProfile)),
+                            version + 1);
+            if (userProfileDao.putIfVersion(updatedUserProfile, version, updatedPropertyNames)) {
+                updateRetries.update(retries);
+                return updatedUserProfile;
+            }
+            updateConflicts.mark();
+            if (retries == MAX_UPDATE_RETRIES) {
+                exhaustedUpdateRetries.mark();
+                updateRetries.update(retries);
+                return computeUpdatedProfile(userId, updatedPropertyNames, propertiesUpdater);
+            }
+            backOff(retries);
+        }
+    }
+
+    // The storage applies the update atomically with storing it, which cannot conflict with the
+    // other writers of the user
+    private UserProfile computeUpdatedProfile(
+            UserId userId,
+            Collection<UserProfilePropertyName> updatedPropertyNames,
+            UnaryOperator<PersistentHashMap<UserProfilePropertyName, UserProfilePropertyValue>>
+                    propertiesUpdater) {
+        return userProfileDao.compute(
+                userId,
+                userProfile ->
+                        new UserProfile(
+                                userId,
+                                Instant.now(),
+                                propertiesUpdater.apply(getProfileProperties(userProfile)),
+                                getVersion(userProfile) + 1),
+                updatedPropertyNames);
+    }
 
+    // Random delay up to a limit that doubles with every retry, so the writers of a hot user
+    // spread out instead of colliding again
+    private static void backOff(int retries) {
+        long maxBackoffNanos = Math.min(MAX_BACKOFF_NANOS, MIN_BACKOFF_NANOS << retries);
+        LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(maxBackoffNanos) + 1);
+    }
+
+    // Long collected lists make every later write and read of the profile more expensive
+    private void recordCollectListLengths(
+            UserProfile userProfile, Collection<UserProfilePropertyName> collectedPropertyNames) {
+        for (UserProfilePropertyName propertyName : collectedPropertyNames) {
+            if (userProfile.userProfileProperties().get(propertyName).getValue()
+                    instanceof List<?> list) {
+                collectListLengths.update(list.size());
+            }
+        }
+    }
+
+    public void replace(UserProfileUpdate userProfileUpdate) {
         // Replace existing UserProfilePropertyName in profile and add new ones;
         // It will replace regardless of previous type.
-        profileProperties.putAll(userProfileUpdate.userProfileProperties());
-
-        userProfileDao.put(new UserProfile(userId, Instant.now(), profileProperties));
+        updateProfileProperties(
+                userProfileUpdate.userId(),
+                updateTimers.get(UserUpdateType.REPLACE),
+                userProfileUpdate.userProfileProperties().keySet(),
+                profileProperties ->
+                        profileProperties.plusAll(userProfileUpdate.userProfileProperties()));
     }
 
     public void increment(UserProfileUpdate userProfileUpdate) {
-        UserId userId = userProfileUpdate.userId();
-        Map<UserProfilePropertyName, UserProfilePropertyValue> profileProperties =
-                getProfileProperties(userId);
-
-        for (Map.Entry<UserProfilePropertyName, UserProfilePropertyValue> entry :
-                userProfileUpdate.userProfileProperties().entrySet()) {
-            UserProfilePropertyValue currentValue =
-                    profileProperties.getOrDefault(
-                            entry.getKey(), UserProfilePropertyValue.valueOf(0));
-            profileProperties.put(entry.getKey(), currentValue.increment(entry.getValue()));
-        }
-        userProfileDao.put(new UserProfile(userId, Instant.now(), profileProperties));
+        updateProfileProperties(userProfileUpdate, UserUpdateType.INCREMENT);
     }
 
     public void collect(UserProfileUpdate userProfileUpdate) {
-        UserId userId = userProfileUpdate.userId();
-        Map<UserProfilePropertyName, UserProfilePropertyValue> profileProperties =
-                getProfileProperties(userId);
-
-        for (Map.Entry<UserProfilePropertyName, UserProfilePropertyValue> entry :
-                userProfileUpdate.userProfileProperties().entrySet()) {
-            UserProfilePropertyValue currentValue =
-                    profileProperties.getOrDefault(
-                            entry.getKey(), UserProfilePropertyValue.valueOf(List.of()));
-            profileProperties.put(entry.getKey(), currentValue.collect(entry.getValue()));
+        UserProfile updatedUserProfile =
+                updateProfileProperties(userProfileUpdate, UserUpdateType.COLLECT);
+        recordCollectListLengths(
+                updatedUserProfile, userProfileUpdate.userProfileProperties().keySet());
+    }
+
+    private UserProfile updateProfileProperties(
+            UserProfileUpdate userProfileUpdate, UserUpdateType userUpdateType) {
+        return updateProfileProperties(
+                userProfileUpdate.userId(),
+                updateTimers.get(userUpdateType),
+                userProfileUpdate.userProfileProperties().keySet(),
+                profileProperties -> {
+                    for (Map.Entry<UserProfilePropertyName, UserProfilePropertyValue> entry :
+                            userProfileUpdate.userProfileProperties().entrySet()) {
+                        profileProperties =
+                                profileProperties.plus(
+                                        entry.getKey(),
+                                        UserProfilePropertyUpdate.apply(
+                                                userUpdateType,
+                                                profileProperties.get(entry.getKey()),
+                                                entry.getValue()));
+                    }
+                    return profileProperties;
+                });
+    }
+
+    // Applies the updates of several properties, each possibly folded from multiple commands,
+    // with a single profile write. Returns false without writing anything if the updates cannot
+    // be applied to the stored profile, e.g. an increment of a string, so that the caller can
+    // find out which command fails. A failure of the storage is thrown as usual.
+    public boolean updateProperties(
+            UserId userId,
+            Map<UserProfilePropertyName, UserProfilePropertyUpdate> propertyUpdates) {
+        UserProfile updatedUserProfile;
+        try {
+            updatedUserProfile =
+                    updateProfileProperties(
+                            userId,
+                            propertiesUpdateTimer,
+                            propertyUpdates.keySet(),
+                            profileProperties ->
+                                    applyPropertyUpdates(profileProperties, propertyUpdates));
+        } catch (NotApplicableException e) {
+            return false;
+        }
+        recordCollectListLengths(
+                updatedUserProfile,
+                propertyUpdates.entrySet().stream()
+                        .filter(
+                                entry ->
+                                        entry.getValue().userUpdateType()
+                                                == UserUpdateType.COLLECT)
+                        .map(Map.Entry::getKey)
+                        .toList());
+        return true;
+    }
+
+    // Runs before the profile is stored, whether optimistically or through the storage
+    private static PersistentHashMap<UserProfilePropertyName, UserProfilePropertyValue>
+            applyPropertyUpdates(
+                    PersistentHashMap<UserProfilePropertyName, UserProfilePropertyValue>
+                            profileProperties,
+                    Map<UserProfilePropertyName, UserProfilePropertyUpdate> propertyUpdates) {
+        try {
+            for (Map.Entry<UserProfilePropertyName, UserProfilePropertyUpdate> entry :
+                    propertyUpdates.entrySet()) {
+                profileProperties =
+                        profileProperties.plus(
+                                entry.getKey(),
+                                entry.getValue().applyTo(profileProperties.get(entry.getKey())));
+            }
+            return profileProperties;
+        } catch (ClassCastException | ArithmeticException e) {
+            throw new NotApplicableException(e);
         }
-        userProfileDao.put(new UserProfile(userId, Instant.now(), profileProperties));
     }
 
     public void update(UserProfileUpdate userProfileUpdate) {
@@ -88,4 +312,11 @@ public class UserProfileService {
             case COLLECT -> collect(userProfileUpdate);
         }
     }
+
+    // Tells failures of applying the updates apart from failures of the storage
+    private static class NotApplicableException extends RuntimeException {
+        private NotApplicableException(RuntimeException cause) {
+            super(cause);
+        }
+    }
 }
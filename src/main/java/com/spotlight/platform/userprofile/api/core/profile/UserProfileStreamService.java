@@ -0,0 +1,123 @@
+package com.spotlight.platform.userprofile.api.core.profile;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.TreeNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfileUpdate;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfileUpdateError;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfileUpdateSummary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+// Applies a stream of commands one at a time as they are parsed, so only a single command is
+// held in memory regardless of the size of the stream. Invalid commands are skipped.
+public class UserProfileStreamService {
+    static final int MAX_REPORTED_ERRORS = 10;
+
+    private final UserProfileService userProfileService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    public UserProfileStreamService(
+            UserProfileService userProfileService, ObjectMapper objectMapper, Validator validator) {
+        this.userProfileService = userProfileService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+    }
+
+    public UserProfileUpdateSummary update(InputStream inputStream) throws IOException {
+        var summary = new SummaryCollector();
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            while (true) {
+                long line = parser.currentLocation().getLineNr();
+                TreeNode command;
+                try {
+                    if (parser.nextToken() == null) {
+                        break;
+                    }
+                    line = parser.currentTokenLocation().getLineNr();
+                    command = parser.readValueAsTree();
+                } catch (JsonProcessingException e) {
+                    // Malformed JSON, there is no telling where the next command starts
+                    long errorLine = e.getLocation() == null ? line : e.getLocation().getLineNr();
+                    summary.reject(errorLine, e.getOriginalMessage());
+                    break;
+                }
+                update(command, line, summary);
+            }
+        }
+        return summary.toSummary();
+    }
+
+    private void update(TreeNode command, long line, SummaryCollector summary) {
+        UserProfileUpdate userProfileUpdate;
+        try {
+            userProfileUpdate = objectMapper.treeToValue(command, UserProfileUpdate.class);
+        } catch (JsonProcessingException e) {
+            summary.reject(line, e.getOriginalMessage());
+            return;
+        }
+        String validationError = validate(userProfileUpdate);
+        if (validationError != null) {
+            summary.reject(line, validationError);
+            return;
+        }
+        try {
+            userProfileService.update(userProfileUpdate);
+            summary.apply();
+        } catch (RuntimeException e) {
+            summary.reject(line, Objects.toString(e.getMessage(), e.getClass().getSimpleName()));
+        }
+    }
+
+    private String validate(UserProfileUpdate userProfileUpdate) {
+        if (userProfileUpdate == null
+                || userProfileUpdate.userId() == null
+                || userProfileUpdate.userUpdateType() == null
+                || userProfileUpdate.userProfileProperties() == null) {
+            return "userId, userUpdateType and userProfileProperties are required";
+        }
+        var violations = validator.validate(userProfileUpdate);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(UserProfileStreamService::formatViolation)
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String formatViolation(ConstraintViolation<UserProfileUpdate> violation) {
+        return violation.getPropertyPath() + " " + violation.getMessage();
+    }
+
+    private static class SummaryCollector {
+        private final List<UserProfileUpdateError> errors = new ArrayList<>();
+        private long applied;
+        private long rejected;
+
+        private void apply() {
+            applied++;
+        }
+
+        private void reject(long line, String message) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new UserProfileUpdateError(line, message));
+            }
+        }
+
+        private UserProfileUpdateSummary toSummary() {
+            return new UserProfileUpdateSummary(applied, rejected, List.copyOf(errors));
+        }
+    }
+}
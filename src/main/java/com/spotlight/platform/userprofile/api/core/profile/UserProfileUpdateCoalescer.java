@@ -0,0 +1,78 @@
+package com.spotlight.platform.userprofile.api.core.profile;
+
+import com.spotlight.platform.userprofile.api.model.profile.UserProfileUpdate;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyName;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyValue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class UserProfileUpdateCoalescer {
+
+    // Folds the commands of a single user into as few profile writes as possible: the last
+    // replace wins, increments and collects are applied to a preceding replace and collects are
+    // concatenated. A new write is started whenever a command cannot be folded into the current
+    // one, e.g. a collect or another increment after an increment of the same property.
+    public List<CoalescedUserProfileUpdate> coalesce(List<UserProfileUpdate> userProfileUpdates) {
+        List<CoalescedUserProfileUpdate> coalescedUpdates = new ArrayList<>();
+        Map<UserProfilePropertyName, UserProfilePropertyUpdate> propertyUpdates = new HashMap<>();
+        List<UserProfileUpdate> foldedUpdates = new ArrayList<>();
+        UserId userId = null;
+        for (UserProfileUpdate userProfileUpdate : userProfileUpdates) {
+            if (userId != null && !userId.equals(userProfileUpdate.userId())) {
+                throw new IllegalArgumentException("Only commands of a single user can coalesce");
+            }
+            userId = userProfileUpdate.userId();
+            if (!fold(propertyUpdates, userProfileUpdate)) {
+                coalescedUpdates.add(
+                        new CoalescedUserProfileUpdate(userId, propertyUpdates, foldedUpdates));
+                propertyUpdates = new HashMap<>();
+                foldedUpdates = new ArrayList<>();
+                fold(propertyUpdates, userProfileUpdate);
+            }
+            foldedUpdates.add(userProfileUpdate);
+        }
+        if (!foldedUpdates.isEmpty()) {
+            coalescedUpdates.add(
+                    new CoalescedUserProfileUpdate(userId, propertyUpdates, foldedUpdates));
+        }
+        return coalescedUpdates;
+    }
+
+    // Folds the command into the property updates in place, unless any of its properties cannot
+    // be folded; then nothing is changed, so a command is never split. Only the properties of the
+    // command are looked at, so folding many commands stays linear in their size.
+    private static boolean fold(
+            Map<UserProfilePropertyName, UserProfilePropertyUpdate> propertyUpdates,
+            UserProfileUpdate userProfileUpdate) {
+        Map<UserProfilePropertyName, UserProfilePropertyValue> properties =
+                userProfileUpdate.userProfileProperties();
+        List<Map.Entry<UserProfilePropertyName, UserProfilePropertyUpdate>> foldedUpdates =
+                new ArrayList<>(properties.size());
+        for (Map.Entry<UserProfilePropertyName, UserProfilePropertyValue> property :
+                properties.entrySet()) {
+            var nextUpdate =
+                    new UserProfilePropertyUpdate(
+                            userProfileUpdate.userUpdateType(), property.getValue());
+            UserProfilePropertyUpdate currentUpdate = propertyUpdates.get(property.getKey());
+            if (currentUpdate == null) {
+                foldedUpdates.add(Map.entry(property.getKey(), nextUpdate));
+                continue;
+            }
+            Optional<UserProfilePropertyUpdate> foldedUpdate = currentUpdate.andThen(nextUpdate);
+            if (foldedUpdate.isEmpty()) {
+                return false;
+            }
+            foldedUpdates.add(Map.entry(property.getKey(), foldedUpdate.get()));
+        }
+        for (Map.Entry<UserProfilePropertyName, UserProfilePropertyUpdate> foldedUpdate :
+                foldedUpdates) {
+            propertyUpdates.put(foldedUpdate.getKey(), foldedUpdate.getValue());
+        }
+        return true;
+    }
+}
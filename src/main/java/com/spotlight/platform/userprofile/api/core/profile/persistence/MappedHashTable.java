@@ -0,0 +1,348 @@
+package com.spotlight.platform.userprofile.api.core.profile.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+// Hash table of byte keys and values kept outside the heap in memory-mapped files: an index
+// file of open addressing slots, each pointing to a record in a data file. A value is updated
+// in place while it fits into its record and moved to a new, larger record otherwise, so most
+// updates write no new record. Not thread-safe.
+class MappedHashTable implements Closeable {
+    private static final int MAGIC = 0x50524F46;
+    private static final int VERSION = 1;
+    // Magic, version, slot count, size, end of the data and bytes of the data no longer used
+    private static final int HEADER_SIZE = 32;
+    private static final int SLOT_COUNT_POSITION = 8;
+    private static final int SIZE_POSITION = 12;
+    private static final int DATA_END_POSITION = 16;
+    private static final int GARBAGE_BYTES_POSITION = 24;
+    // Position of the record plus one, so zero marks a free slot, and hash of the key
+    private static final int SLOT_SIZE = 16;
+    // Key length, value capacity and value length, followed by the key and the value
+    private static final int RECORD_HEADER_SIZE = 3 * Integer.BYTES;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int MIN_SLOT_COUNT = 16;
+    private static final int MAX_SLOT_COUNT = 1 << 26;
+    private static final int MIN_SPARE_CAPACITY = 16;
+
+    private final Path indexFile;
+    private final FileChannel dataChannel;
+    private final int chunkSize;
+    // The data file is mapped in chunks, as a single mapping is limited to 2 GiB. Records never
+    // cross the end of a chunk.
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+
+    private MappedByteBuffer index;
+    private int slotCount;
+    private int size;
+    private long dataEnd;
+    private long garbageBytes;
+
+    private MappedHashTable(Path indexFile, FileChannel dataChannel, int chunkSize) {
+        this.indexFile = indexFile;
+        this.dataChannel = dataChannel;
+        this.chunkSize = chunkSize;
+    }
+
+    // Opens the table stored in the files or creates it, sized for the expected number of keys
+    static MappedHashTable open(Path indexFile, Path dataFile, long expectedSize, int chunkSize)
+            throws IOException {
+        FileChannel dataChannel =
+                FileChannel.open(
+                        dataFile,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+        var table = new MappedHashTable(indexFile, dataChannel, chunkSize);
+        try {
+            if (Files.exists(indexFile)) {
+                table.loadIndex();
+            } else {
+                table.createIndex(getSlotCount(expectedSize));
+            }
+        } catch (IOException | RuntimeException e) {
+            dataChannel.close();
+            throw e;
+        }
+        return table;
+    }
+
+    // Copy of the value of the key, null if the key is not in the table
+    byte[] get(byte[] key, int hash) {
+        return get(
+                key,
+                hash,
+                valueView -> {
+                    var value = new byte[valueView.remaining()];
+                    valueView.get(value);
+                    return value;
+                });
+    }
+
+    // Result of reading the value of the key straight from the mapped file, null if the key is
+    // not in the table. The view is only valid until the table is changed.
+    <T> T get(byte[] key, int hash, Function<ByteBuffer, T> valueReader) {
+        long recordPosition = getRecordPosition(findSlot(key, hash));
+        if (recordPosition < 0) {
+            return null;
+        }
+        ByteBuffer chunk = getChunk(recordPosition);
+        int position = (int) (recordPosition % chunkSize);
+        int valueLength = chunk.getInt(position + 2 * Integer.BYTES);
+        return valueReader.apply(
+                chunk.slice(position + RECORD_HEADER_SIZE + key.length, valueLength)
+                        .asReadOnlyBuffer());
+    }
+
+    void put(byte[] key, int hash, byte[] value) throws IOException {
+        int slot = findSlot(key, hash);
+        long recordPosition = getRecordPosition(slot);
+        if (recordPosition < 0) {
+            if (size + 1 > slotCount * LOAD_FACTOR) {
+                resizeIndex();
+                slot = findSlot(key, hash);
+            }
+            setSlot(slot, appendRecord(key, value), hash);
+            size++;
+            index.putInt(SIZE_POSITION, size);
+            return;
+        }
+        ByteBuffer chunk = getChunk(recordPosition);
+        int position = (int) (recordPosition % chunkSize);
+        int capacity = chunk.getInt(position + Integer.BYTES);
+        if (value.length <= capacity) {
+            chunk.put(position + RECORD_HEADER_SIZE + key.length, value);
+            chunk.putInt(position + 2 * Integer.BYTES, value.length);
+            return;
+        }
+        setSlot(slot, appendRecord(key, value), hash);
+        addGarbage(RECORD_HEADER_SIZE + key.length + capacity);
+    }
+
+    // Copies of all values
+    List<byte[]> values() {
+        List<byte[]> values = new ArrayList<>(size);
+        for (int slot = 0; slot < slotCount; slot++) {
+            long recordPosition = getRecordPosition(slot);
+            if (recordPosition >= 0) {
+                ByteBuffer chunk = getChunk(recordPosition);
+                int position = (int) (recordPosition % chunkSize);
+                int keyLength = chunk.getInt(position);
+                var value = new byte[chunk.getInt(position + 2 * Integer.BYTES)];
+                chunk.get(position + RECORD_HEADER_SIZE + keyLength, value);
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getDataBytes() {
+        return dataEnd;
+    }
+
+    long getGarbageBytes() {
+        return garbageBytes;
+    }
+
+    // Writes all changes to the files
+    @Override
+    public void close() throws IOException {
+        index.force();
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+        dataChannel.close();
+    }
+
+    private void loadIndex() throws IOException {
+        index = map(indexFile, HEADER_SIZE);
+        if (index.getInt(0) != MAGIC || index.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException(indexFile + " is not an index of a supported version");
+        }
+        slotCount = index.getInt(SLOT_COUNT_POSITION);
+        index = map(indexFile, getIndexSize(slotCount));
+        size = index.getInt(SIZE_POSITION);
+        dataEnd = index.getLong(DATA_END_POSITION);
+        garbageBytes = index.getLong(GARBAGE_BYTES_POSITION);
+        mapChunks(dataEnd);
+    }
+
+    private void createIndex(int newSlotCount) throws IOException {
+        Path temporaryFile = getTemporaryIndexFile();
+        Files.deleteIfExists(temporaryFile);
+        MappedByteBuffer newIndex = map(temporaryFile, getIndexSize(newSlotCount));
+        newIndex.putInt(0, MAGIC)
+                .putInt(Integer.BYTES, VERSION)
+                .putInt(SLOT_COUNT_POSITION, newSlotCount);
+        newIndex.force();
+        Files.move(temporaryFile, indexFile, StandardCopyOption.ATOMIC_MOVE);
+        index = newIndex;
+        slotCount = newSlotCount;
+    }
+
+    // Rehashes into an index of twice the size, written next to the current one and then
+    // renamed over it, so a crash never leaves a half-written index behind.
+    private void resizeIndex() throws IOException {
+        if (slotCount >= MAX_SLOT_COUNT) {
+            throw new IllegalStateException("Index " + indexFile + " is full");
+        }
+        int newSlotCount = slotCount * 2;
+        Path temporaryFile = getTemporaryIndexFile();
+        Files.deleteIfExists(temporaryFile);
+        MappedByteBuffer newIndex = map(temporaryFile, getIndexSize(newSlotCount));
+        newIndex.put(0, index, 0, HEADER_SIZE).putInt(SLOT_COUNT_POSITION, newSlotCount);
+        int newMask = newSlotCount - 1;
+        for (int slot = 0; slot < slotCount; slot++) {
+            int slotPosition = getSlotPosition(slot);
+            long reference = index.getLong(slotPosition);
+            if (reference != 0) {
+                int hash = index.getInt(slotPosition + Long.BYTES);
+                int newSlot = hash & newMask;
+                while (newIndex.getLong(getSlotPosition(newSlot)) != 0) {
+                    newSlot = (newSlot + 1) & newMask;
+                }
+                newIndex.putLong(getSlotPosition(newSlot), reference)
+                        .putInt(getSlotPosition(newSlot) + Long.BYTES, hash);
+            }
+        }
+        newIndex.force();
+        Files.move(
+                temporaryFile,
+                indexFile,
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        index = newIndex;
+        slotCount = newSlotCount;
+    }
+
+    // Slot of the key, or the free slot to put it into
+    private int findSlot(byte[] key, int hash) {
+        int mask = slotCount - 1;
+        int slot = hash & mask;
+        while (true) {
+            int slotPosition = getSlotPosition(slot);
+            long reference = index.getLong(slotPosition);
+            if (reference == 0
+                    || index.getInt(slotPosition + Long.BYTES) == hash
+                            && keyEquals(reference - 1, key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private boolean keyEquals(long recordPosition, byte[] key) {
+        ByteBuffer chunk = getChunk(recordPosition);
+        int position = (int) (recordPosition % chunkSize);
+        if (chunk.getInt(position) != key.length) {
+            return false;
+        }
+        ByteBuffer storedKey = chunk.slice(position + RECORD_HEADER_SIZE, key.length);
+        return ByteBuffer.wrap(key).mismatch(storedKey) == -1;
+    }
+
+    // Position of the record the slot points to, -1 if the slot is free
+    private long getRecordPosition(int slot) {
+        return index.getLong(getSlotPosition(slot)) - 1;
+    }
+
+    private void setSlot(int slot, long recordPosition, int hash) {
+        int slotPosition = getSlotPosition(slot);
+        index.putInt(slotPosition + Long.BYTES, hash).putLong(slotPosition, recordPosition + 1);
+    }
+
+    private long appendRecord(byte[] key, byte[] value) throws IOException {
+        int maxCapacity = chunkSize - RECORD_HEADER_SIZE - key.length;
+        if (value.length > maxCapacity) {
+            throw new IllegalArgumentException(
+                    "Value of " + value.length + " bytes does not fit into a chunk");
+        }
+        // Growing capacity geometrically bounds the space left behind by moved records
+        int spareCapacity = Math.max(MIN_SPARE_CAPACITY, value.length / 2);
+        int capacity = (int) Math.min(maxCapacity, (long) value.length + spareCapacity);
+        int recordSize = RECORD_HEADER_SIZE + key.length + capacity;
+        long recordPosition = dataEnd;
+        int remainingChunkSize = chunkSize - (int) (recordPosition % chunkSize);
+        if (recordSize > remainingChunkSize) {
+            addGarbage(remainingChunkSize);
+            recordPosition += remainingChunkSize;
+        }
+        mapChunks(recordPosition + recordSize);
+        ByteBuffer chunk = getChunk(recordPosition);
+        int position = (int) (recordPosition % chunkSize);
+        chunk.putInt(position, key.length)
+                .putInt(position + Integer.BYTES, capacity)
+                .putInt(position + 2 * Integer.BYTES, value.length)
+                .put(position + RECORD_HEADER_SIZE, key)
+                .put(position + RECORD_HEADER_SIZE + key.length, value);
+        dataEnd = recordPosition + recordSize;
+        index.putLong(DATA_END_POSITION, dataEnd);
+        return recordPosition;
+    }
+
+    private void addGarbage(long bytes) {
+        garbageBytes += bytes;
+        index.putLong(GARBAGE_BYTES_POSITION, garbageBytes);
+    }
+
+    private ByteBuffer getChunk(long recordPosition) {
+        return chunks.get((int) (recordPosition / chunkSize));
+    }
+
+    // Maps the chunks holding the data up to the given position, growing the file if needed
+    private void mapChunks(long endPosition) throws IOException {
+        while ((long) chunks.size() * chunkSize < endPosition) {
+            chunks.add(
+                    dataChannel.map(
+                            FileChannel.MapMode.READ_WRITE,
+                            (long) chunks.size() * chunkSize,
+                            chunkSize));
+        }
+    }
+
+    private Path getTemporaryIndexFile() {
+        return indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+    }
+
+    // Fits into an int, as the index of the largest table is 1 GiB
+    private static int getSlotPosition(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private static long getIndexSize(int slotCount) {
+        return getSlotPosition(slotCount);
+    }
+
+    private static int getSlotCount(long expectedSize) {
+        long slotCount = MIN_SLOT_COUNT;
+        while (slotCount < MAX_SLOT_COUNT && slotCount * LOAD_FACTOR < expectedSize) {
+            slotCount *= 2;
+        }
+        return (int) slotCount;
+    }
+
+    private static MappedByteBuffer map(Path file, long size) throws IOException {
+        try (FileChannel channel =
+                FileChannel.open(
+                        file,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.READ,
+                        StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.spotlight.platform.userprofile.api.core.profile.persistence;
+
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyName;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Assigns small ids to property names, so encoded profiles can refer to a name by its id instead
+// of spelling it out. A new id is synced to the file before it is handed out, so every profile
+// encoded with it can still be decoded after a crash. The number of ids is bounded, as property
+// names come from requests; names beyond that are not assigned an id.
+public class PropertyNameDictionary implements Closeable {
+    public static final int NO_ID = -1;
+
+    static final int DEFAULT_MAX_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final int maxSize;
+    private final ConcurrentHashMap<UserProfilePropertyName, Integer> ids =
+            new ConcurrentHashMap<>();
+    // Written while holding the monitor of this; ids are published only after their names
+    private volatile UserProfilePropertyName[] names = new UserProfilePropertyName[64];
+    private int size;
+
+    private PropertyNameDictionary(FileChannel channel, int maxSize) {
+        this.channel = channel;
+        this.maxSize = maxSize;
+    }
+
+    public static PropertyNameDictionary open(Path file) throws IOException {
+        return open(file, DEFAULT_MAX_SIZE);
+    }
+
+    static PropertyNameDictionary open(Path file, int maxSize) throws IOException {
+        boolean created = Files.notExists(file);
+        FileChannel channel =
+                FileChannel.open(
+                        file,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+        var dictionary = new PropertyNameDictionary(channel, maxSize);
+        try {
+            // A name torn by a crash was never handed out, so it can be dropped
+            long validSize =
+                    RecordFiles.read(
+                            channel,
+                            record ->
+                                    dictionary.add(
+                                            UserProfilePropertyName.valueOf(
+                                                    StandardCharsets.UTF_8
+                                                            .decode(record)
+                                                            .toString())));
+            channel.truncate(validSize);
+            channel.position(validSize);
+            if (created) {
+                RecordFiles.syncDirectory(file.getParent());
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return dictionary;
+    }
+
+    // NO_ID if the name has no id
+    public int getId(UserProfilePropertyName name) {
+        return ids.getOrDefault(name, NO_ID);
+    }
+
+    // NO_ID if the name has no id and the dictionary is full
+    public int getOrAssignId(UserProfilePropertyName name) {
+        Integer id = ids.get(name);
+        return id != null ? id : assignId(name);
+    }
+
+    public UserProfilePropertyName getName(int id) {
+        UserProfilePropertyName[] currentNames = names;
+        if (id < 0 || id >= currentNames.length || currentNames[id] == null) {
+            throw new IllegalArgumentException("Unknown property name id " + id);
+        }
+        return currentNames[id];
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private synchronized int assignId(UserProfilePropertyName name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        if (size >= maxSize) {
+            return NO_ID;
+        }
+        ByteBuffer record = RecordFiles.encode(name.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return add(name);
+    }
+
+    private synchronized int add(UserProfilePropertyName name) {
+        int id = size++;
+        UserProfilePropertyName[] newNames =
+                id < names.length ? names : Arrays.copyOf(names, names.length * 2);
+        newNames[id] = name;
+        names = newNames;
+        ids.put(name, id);
+        return id;
+    }
+}
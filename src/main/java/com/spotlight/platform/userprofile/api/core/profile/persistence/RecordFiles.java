@@ -0,0 +1,72 @@
+package com.spotlight.platform.userprofile.api.core.profile.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+// Files of records, each stored as its length, a checksum of its payload and the payload
+// itself, so a record torn by a crash is detected and dropped when the file is read.
+final class RecordFiles {
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    private RecordFiles() {}
+
+    static ByteBuffer encode(byte[] payload) {
+        var checksum = new CRC32C();
+        checksum.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        record.putInt(payload.length).putInt((int) checksum.getValue()).put(payload).flip();
+        return record;
+    }
+
+    // Passes the payload of every intact record to the consumer and stops at the first torn
+    // one. Returns the size of the intact part of the file.
+    static long read(FileChannel channel, Consumer<ByteBuffer> recordConsumer)
+            throws IOException {
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (position + HEADER_SIZE <= size) {
+            header.clear();
+            readFully(channel, header, position);
+            header.flip();
+            int payloadLength = header.getInt();
+            int expectedChecksum = header.getInt();
+            if (payloadLength < 0 || position + HEADER_SIZE + payloadLength > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(payloadLength);
+            readFully(channel, payload, position + HEADER_SIZE);
+            payload.flip();
+            var checksum = new CRC32C();
+            checksum.update(payload.duplicate());
+            if ((int) checksum.getValue() != expectedChecksum) {
+                break;
+            }
+            recordConsumer.accept(payload);
+            position += HEADER_SIZE + payloadLength;
+        }
+        return position;
+    }
+
+    // Makes files created, renamed or deleted in the directory survive a crash
+    static void syncDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of record file");
+            }
+        }
+    }
+}
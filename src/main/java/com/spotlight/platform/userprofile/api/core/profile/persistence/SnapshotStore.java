@@ -0,0 +1,165 @@
+package com.spotlight.platform.userprofile.api.core.profile.persistence;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Snapshots of every stored record, each split into partitions that are loaded in parallel. A
+// snapshot is written to a temporary directory that is renamed once it is complete, so a
+// snapshot torn by a crash is never loaded.
+public class SnapshotStore {
+    private static final String SNAPSHOT_DIRECTORY_FORMAT = "snapshot-%020d";
+    private static final Pattern SNAPSHOT_DIRECTORY_PATTERN =
+            Pattern.compile("snapshot-(\\d{20})(\\.tmp)?");
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final String PARTITION_FILE_FORMAT = "partition-%04d";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final int partitionCount;
+
+    public SnapshotStore(Path directory, int partitionCount) {
+        this.directory = directory;
+        this.partitionCount = partitionCount;
+    }
+
+    // Passes the payload of every record of the newest snapshot to the consumer, which is
+    // called from several threads at once. Returns the id of the loaded snapshot.
+    public OptionalLong loadLatest(Consumer<ByteBuffer> recordConsumer) throws IOException {
+        Files.createDirectories(directory);
+        OptionalLong snapshotId =
+                listSnapshots().stream()
+                        .filter(snapshot -> !snapshot.temporary())
+                        .mapToLong(Snapshot::id)
+                        .max();
+        if (snapshotId.isEmpty()) {
+            return snapshotId;
+        }
+        List<Path> partitionFiles;
+        try (Stream<Path> files = Files.list(getSnapshotDirectory(snapshotId.getAsLong()))) {
+            partitionFiles = files.toList();
+        }
+        try {
+            partitionFiles.parallelStream().forEach(file -> loadPartition(file, recordConsumer));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return snapshotId;
+    }
+
+    // Writes the records to a new snapshot, dealt out to the partitions in turn
+    public void write(long snapshotId, Iterator<byte[]> records) throws IOException {
+        Path temporaryDirectory =
+                directory.resolve(
+                        String.format(SNAPSHOT_DIRECTORY_FORMAT, snapshotId) + TEMPORARY_SUFFIX);
+        deleteRecursively(temporaryDirectory);
+        Files.createDirectories(temporaryDirectory);
+        List<FileChannel> channels = new ArrayList<>(partitionCount);
+        try {
+            List<OutputStream> outputStreams = new ArrayList<>(partitionCount);
+            for (int partition = 0; partition < partitionCount; partition++) {
+                FileChannel channel =
+                        FileChannel.open(
+                                temporaryDirectory.resolve(
+                                        String.format(PARTITION_FILE_FORMAT, partition)),
+                                StandardOpenOption.CREATE_NEW,
+                                StandardOpenOption.WRITE);
+                channels.add(channel);
+                outputStreams.add(
+                        new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+            }
+            int partition = 0;
+            while (records.hasNext()) {
+                ByteBuffer record = RecordFiles.encode(records.next());
+                outputStreams.get(partition).write(record.array(), 0, record.limit());
+                partition = (partition + 1) % partitionCount;
+            }
+            for (partition = 0; partition < partitionCount; partition++) {
+                outputStreams.get(partition).flush();
+                channels.get(partition).force(true);
+            }
+        } finally {
+            for (FileChannel channel : channels) {
+                channel.close();
+            }
+        }
+        RecordFiles.syncDirectory(temporaryDirectory);
+        Files.move(
+                temporaryDirectory,
+                getSnapshotDirectory(snapshotId),
+                StandardCopyOption.ATOMIC_MOVE);
+        RecordFiles.syncDirectory(directory);
+    }
+
+    // Deletes the snapshots older than the given one, including those that were never completed
+    public void deleteOlderThan(long snapshotId) throws IOException {
+        for (Snapshot snapshot : listSnapshots()) {
+            if (snapshot.id() < snapshotId) {
+                deleteRecursively(directory.resolve(snapshot.directoryName()));
+            }
+        }
+        RecordFiles.syncDirectory(directory);
+    }
+
+    private static void loadPartition(Path file, Consumer<ByteBuffer> recordConsumer) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // Partitions are synced before the snapshot is completed, so they cannot be torn
+            if (RecordFiles.read(channel, recordConsumer) != channel.size()) {
+                throw new IOException("Snapshot partition " + file + " is corrupted");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path getSnapshotDirectory(long snapshotId) {
+        return directory.resolve(String.format(SNAPSHOT_DIRECTORY_FORMAT, snapshotId));
+    }
+
+    private List<Snapshot> listSnapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .map(SNAPSHOT_DIRECTORY_PATTERN::matcher)
+                    .filter(Matcher::matches)
+                    .map(
+                            matcher ->
+                                    new Snapshot(
+                                            Long.parseLong(matcher.group(1)),
+                                            matcher.group(2) != null,
+                                            matcher.group()))
+                    .toList();
+        }
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(path)) {
+            files = walk.sorted(Comparator.reverseOrder()).toList();
+        }
+        for (Path file : files) {
+            Files.delete(file);
+        }
+    }
+
+    private record Snapshot(long id, boolean temporary, String directoryName) {}
+}
@@ -0,0 +1,40 @@
+package com.spotlight.platform.userprofile.api.core.profile.persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Random id of the storage that profile versions count within. Storages that keep their profiles
+// in their data directory keep the id there as well, so it only changes if the profiles are lost.
+final class StorageEpoch {
+    static final String FILE_NAME = "epoch";
+
+    private StorageEpoch() {}
+
+    static String create() {
+        return Long.toHexString(ThreadLocalRandom.current().nextLong());
+    }
+
+    static String loadOrCreate(Path dataDirectory) throws IOException {
+        Path file = dataDirectory.resolve(FILE_NAME);
+        if (Files.exists(file)) {
+            return Files.readString(file).strip();
+        }
+        // Written under another name first, so a crash never leaves a partial id behind
+        String epoch = create();
+        Path temporaryFile = dataDirectory.resolve(FILE_NAME + ".tmp");
+        Files.writeString(
+                temporaryFile,
+                epoch,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.SYNC);
+        Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE);
+        RecordFiles.syncDirectory(dataDirectory);
+        return epoch;
+    }
+}
@@ -0,0 +1,503 @@
+package com.spotlight.platform.userprofile.api.core.profile.persistence;
+
+import com.spotlight.platform.userprofile.api.model.common.PersistentHashMap;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfile;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyName;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyValue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Binary encoding of profiles for storage, a fraction of the size of their JSON. Integers are
+// varints, property names are ids of the dictionary and every property value is prefixed with
+// its length, so a single property can be decoded without decoding the rest of the profile.
+// Values decode to the same Java types as their JSON does.
+//
+// Version 2, which added the profile version. Profiles encoded by version 1 decode as version 0.
+// Changes are laid out like a profile with only the properties a write changed, and are merged
+// onto the previous profile of the user when decoded.
+//   profile  = version:byte userId:string profileVersion:varint time propertyCount:varint
+//              (name value)*
+//   changes  = 0x80:byte userId:string profileVersion:varint time propertyCount:varint
+//              (name value)*
+//   time     = 0 | 1 zigzag(epochMillis) | 2 zigzag(epochSeconds) nanos:varint
+//   name     = varint(id << 1 | 1) | varint(length << 1) utf8
+//   value    = length:varint tag:byte body
+//   string   = length:varint utf8
+public class UserProfileCodec {
+    static final byte VERSION = 2;
+
+    private static final byte VERSION_WITHOUT_PROFILE_VERSION = 1;
+    // Out of the range of versions, so a version that is added later cannot be taken for it
+    private static final byte CHANGES = (byte) 0x80;
+
+    private static final int NO_TIME = 0;
+    private static final int EPOCH_MILLIS = 1;
+    private static final int EPOCH_SECONDS_AND_NANOS = 2;
+
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte INTEGER = 3;
+    private static final byte BIG_INTEGER = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte STRING = 6;
+    private static final byte LIST = 7;
+    private static final byte MAP = 8;
+
+    private final PropertyNameDictionary propertyNameDictionary;
+
+    public UserProfileCodec(PropertyNameDictionary propertyNameDictionary) {
+        this.propertyNameDictionary = propertyNameDictionary;
+    }
+
+    public byte[] encode(UserProfile userProfile) {
+        return encode(VERSION, userProfile, userProfile.userProfileProperties());
+    }
+
+    // Encodes only the properties whose value is not the same instance as in the previous profile,
+    // so a write of a few properties of a large profile is logged in a few bytes. Changes cannot
+    // remove properties, so the whole profile is encoded if a property was removed.
+    public byte[] encodeChanges(UserProfile previousProfile, UserProfile userProfile) {
+        if (previousProfile == null) {
+            return encode(userProfile);
+        }
+        Map<UserProfilePropertyName, UserProfilePropertyValue> previousProperties =
+                previousProfile.userProfileProperties();
+        Map<UserProfilePropertyName, UserProfilePropertyValue> changedProperties =
+                new LinkedHashMap<>();
+        int keptPropertyCount = 0;
+        for (Map.Entry<UserProfilePropertyName, UserProfilePropertyValue> property :
+                userProfile.userProfileProperties().entrySet()) {
+            UserProfilePropertyValue previousValue = previousProperties.get(property.getKey());
+            boolean kept =
+                    previousValue != null || previousProperties.containsKey(property.getKey());
+            if (kept) {
+                keptPropertyCount++;
+            }
+            if (!kept || previousValue != property.getValue()) {
+                changedProperties.put(property.getKey(), property.getValue());
+            }
+        }
+        if (keptPropertyCount < previousProperties.size()) {
+            return encode(userProfile);
+        }
+        return encode(CHANGES, userProfile, changedProperties);
+    }
+
+    // Encodes only the given properties, which the caller knows to be the only ones the write
+    // added or changed, so the cost does not grow with the properties the write left alone
+    public byte[] encodeChanges(
+            UserProfile previousProfile,
+            UserProfile userProfile,
+            Collection<UserProfilePropertyName> changedPropertyNames) {
+        if (previousProfile == null) {
+            return encode(userProfile);
+        }
+        Map<UserProfilePropertyName, UserProfilePropertyValue> properties =
+                userProfile.userProfileProperties();
+        Map<UserProfilePropertyName, UserProfilePropertyValue> changedProperties =
+                new LinkedHashMap<>();
+        for (UserProfilePropertyName propertyName : changedPropertyNames) {
+            changedProperties.put(propertyName, properties.get(propertyName));
+        }
+        return encode(CHANGES, userProfile, changedProperties);
+    }
+
+    private byte[] encode(
+            byte format,
+            UserProfile userProfile,
+            Map<UserProfilePropertyName, UserProfilePropertyValue> properties) {
+        var output = new Output();
+        output.writeByte(format);
+        output.writeString(userProfile.userId().toString());
+        output.writeVarint(userProfile.version());
+        writeTime(output, userProfile.latestUpdateTime());
+        output.writeVarint(properties.size());
+        for (Map.Entry<UserProfilePropertyName, UserProfilePropertyValue> property :
+                properties.entrySet()) {
+            writeName(output, property.getKey());
+            int valueStart = output.size;
+            writeValue(output, toPlainValue(property.getValue()));
+            output.insertVarint(valueStart, output.size - valueStart);
+        }
+        return output.toByteArray();
+    }
+
+    // Reads the profile from the remaining bytes of the buffer, without changing its position
+    public UserProfile decode(ByteBuffer encodedProfile) {
+        return decode(encodedProfile, startDecoding(encodedProfile), PersistentHashMap.empty());
+    }
+
+    // Reads the user id of a profile or of changes, without changing the position of the buffer
+    public UserId decodeUserId(ByteBuffer record) {
+        return UserId.valueOf(readString(startDecodingRecord(record)));
+    }
+
+    // Merges changes onto the previous profile, which may be missing; a profile replaces it
+    public UserProfile decodeChanges(ByteBuffer record, UserProfile previousProfile) {
+        ByteBuffer input = startDecodingRecord(record);
+        if (record.get(record.position()) != CHANGES || previousProfile == null) {
+            return decode(record, input, PersistentHashMap.empty());
+        }
+        return decode(
+                record, input, PersistentHashMap.copyOf(previousProfile.userProfileProperties()));
+    }
+
+    private UserProfile decode(
+            ByteBuffer encodedProfile,
+            ByteBuffer input,
+            PersistentHashMap<UserProfilePropertyName, UserProfilePropertyValue> properties) {
+        var userId = UserId.valueOf(readString(input));
+        long version = readProfileVersion(encodedProfile, input);
+        Instant latestUpdateTime = readTime(input);
+        int propertyCount = readVarintAsInt(input);
+        for (int i = 0; i < propertyCount; i++) {
+            UserProfilePropertyName name = readName(input);
+            readVarintAsInt(input);
+            properties = properties.plus(name, toPropertyValue(readValue(input)));
+        }
+        return new UserProfile(userId, latestUpdateTime, properties, version);
+    }
+
+    // Decodes only the version of the profile, which is written before anything of variable size
+    // but the user id
+    public long decodeProfileVersion(ByteBuffer encodedProfile) {
+        ByteBuffer input = startDecoding(encodedProfile);
+        skip(input, readVarintAsInt(input));
+        return readProfileVersion(encodedProfile, input);
+    }
+
+    // Decodes only the value of the property, skipping the values of every other property
+    public Optional<UserProfilePropertyValue> decodeProperty(
+            ByteBuffer encodedProfile, UserProfilePropertyName propertyName) {
+        ByteBuffer input = startDecoding(encodedProfile);
+        skip(input, readVarintAsInt(input));
+        readProfileVersion(encodedProfile, input);
+        readTime(input);
+        int propertyCount = readVarintAsInt(input);
+        int propertyNameId = propertyNameDictionary.getId(propertyName);
+        byte[] propertyNameBytes = null;
+        for (int i = 0; i < propertyCount; i++) {
+            int nameReference = readVarintAsInt(input);
+            boolean found;
+            if ((nameReference & 1) != 0) {
+                found = nameReference >>> 1 == propertyNameId;
+            } else {
+                if (propertyNameBytes == null) {
+                    propertyNameBytes = propertyName.toString().getBytes(StandardCharsets.UTF_8);
+                }
+                found = nextBytesEqual(input, nameReference >>> 1, propertyNameBytes);
+                skip(input, nameReference >>> 1);
+            }
+            int valueLength = readVarintAsInt(input);
+            if (found) {
+                return Optional.ofNullable(toPropertyValue(readValue(input)));
+            }
+            skip(input, valueLength);
+        }
+        return Optional.empty();
+    }
+
+    private void writeName(Output output, UserProfilePropertyName name) {
+        int id = propertyNameDictionary.getOrAssignId(name);
+        if (id != PropertyNameDictionary.NO_ID) {
+            output.writeVarint((long) id << 1 | 1);
+            return;
+        }
+        byte[] nameBytes = name.toString().getBytes(StandardCharsets.UTF_8);
+        output.writeVarint((long) nameBytes.length << 1);
+        output.writeBytes(nameBytes);
+    }
+
+    private UserProfilePropertyName readName(ByteBuffer input) {
+        int nameReference = readVarintAsInt(input);
+        if ((nameReference & 1) != 0) {
+            return propertyNameDictionary.getName(nameReference >>> 1);
+        }
+        return UserProfilePropertyName.valueOf(readString(input, nameReference >>> 1));
+    }
+
+    // Null values are kept as nulls, the same as in JSON
+    private static Object toPlainValue(UserProfilePropertyValue value) {
+        return value == null ? null : value.getValue();
+    }
+
+    private static UserProfilePropertyValue toPropertyValue(Object value) {
+        return value == null ? null : UserProfilePropertyValue.valueOf(value);
+    }
+
+    private static void writeTime(Output output, Instant time) {
+        if (time == null) {
+            output.writeVarint(NO_TIME);
+        } else if (time.getNano() % 1_000_000 == 0) {
+            output.writeVarint(EPOCH_MILLIS);
+            output.writeVarint(zigZag(time.toEpochMilli()));
+        } else {
+            output.writeVarint(EPOCH_SECONDS_AND_NANOS);
+            output.writeVarint(zigZag(time.getEpochSecond()));
+            output.writeVarint(time.getNano());
+        }
+    }
+
+    private static Instant readTime(ByteBuffer input) {
+        int format = readVarintAsInt(input);
+        return switch (format) {
+            case NO_TIME -> null;
+            case EPOCH_MILLIS -> Instant.ofEpochMilli(unZigZag(readVarint(input)));
+            case EPOCH_SECONDS_AND_NANOS -> Instant.ofEpochSecond(
+                    unZigZag(readVarint(input)), readVarint(input));
+            default -> throw new IllegalArgumentException("Unknown time format " + format);
+        };
+    }
+
+    private static void writeValue(Output output, Object value) {
+        if (value == null) {
+            output.writeByte(NULL);
+        } else if (value instanceof Boolean booleanValue) {
+            output.writeByte(booleanValue ? TRUE : FALSE);
+        } else if (value instanceof Integer
+                || value instanceof Long
+                || value instanceof Short
+                || value instanceof Byte) {
+            output.writeByte(INTEGER);
+            output.writeVarint(zigZag(((Number) value).longValue()));
+        } else if (value instanceof BigInteger bigIntegerValue) {
+            output.writeByte(BIG_INTEGER);
+            byte[] bytes = bigIntegerValue.toByteArray();
+            output.writeVarint(bytes.length);
+            output.writeBytes(bytes);
+        } else if (value instanceof Double
+                || value instanceof Float
+                || value instanceof BigDecimal) {
+            // Decimals are read back from JSON as doubles as well
+            output.writeByte(DOUBLE);
+            output.writeLong(Double.doubleToRawLongBits(((Number) value).doubleValue()));
+        } else if (value instanceof String stringValue) {
+            output.writeByte(STRING);
+            output.writeString(stringValue);
+        } else if (value instanceof List<?> listValue) {
+            output.writeByte(LIST);
+            output.writeVarint(listValue.size());
+            for (Object element : listValue) {
+                writeValue(output, element);
+            }
+        } else if (value instanceof Map<?, ?> mapValue) {
+            output.writeByte(MAP);
+            output.writeVarint(mapValue.size());
+            for (Map.Entry<?, ?> entry : mapValue.entrySet()) {
+                output.writeString(String.valueOf(entry.getKey()));
+                writeValue(output, entry.getValue());
+            }
+        } else {
+            throw new IllegalArgumentException("Cannot encode value of " + value.getClass());
+        }
+    }
+
+    private static Object readValue(ByteBuffer input) {
+        byte tag = input.get();
+        return switch (tag) {
+            case NULL -> null;
+            case FALSE -> false;
+            case TRUE -> true;
+            case INTEGER -> {
+                long value = unZigZag(readVarint(input));
+                // Same as JSON, which reads integers as the smallest type that fits them
+                yield (int) value == value ? (Object) (int) value : (Object) value;
+            }
+            case BIG_INTEGER -> {
+                var bytes = new byte[readVarintAsInt(input)];
+                input.get(bytes);
+                yield new BigInteger(bytes);
+            }
+            case DOUBLE -> Double.longBitsToDouble(input.getLong());
+            case STRING -> readString(input);
+            case LIST -> {
+                int size = readVarintAsInt(input);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(input));
+                }
+                yield list;
+            }
+            case MAP -> {
+                int size = readVarintAsInt(input);
+                Map<String, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    map.put(readString(input), readValue(input));
+                }
+                yield map;
+            }
+            default -> throw new IllegalArgumentException("Unknown value tag " + tag);
+        };
+    }
+
+    private static ByteBuffer startDecoding(ByteBuffer encodedProfile) {
+        if (encodedProfile.get(encodedProfile.position()) == CHANGES) {
+            throw new IllegalArgumentException("Changes cannot be decoded without the profile");
+        }
+        return startDecodingRecord(encodedProfile);
+    }
+
+    private static ByteBuffer startDecodingRecord(ByteBuffer record) {
+        // A duplicate shares the bytes, so decoding copies nothing but the decoded values
+        ByteBuffer input = record.duplicate();
+        byte version = input.get();
+        if (version != VERSION
+                && version != VERSION_WITHOUT_PROFILE_VERSION
+                && version != CHANGES) {
+            throw new IllegalArgumentException("Unknown profile encoding version " + version);
+        }
+        return input;
+    }
+
+    private static long readProfileVersion(ByteBuffer encodedProfile, ByteBuffer input) {
+        if (encodedProfile.get(encodedProfile.position()) == VERSION_WITHOUT_PROFILE_VERSION) {
+            return UserProfile.INITIAL_VERSION;
+        }
+        return readVarint(input);
+    }
+
+    private static String readString(ByteBuffer input) {
+        return readString(input, readVarintAsInt(input));
+    }
+
+    private static String readString(ByteBuffer input, int length) {
+        String value;
+        if (input.hasArray()) {
+            value =
+                    new String(
+                            input.array(),
+                            input.arrayOffset() + input.position(),
+                            length,
+                            StandardCharsets.UTF_8);
+        } else {
+            var bytes = new byte[length];
+            input.get(input.position(), bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        skip(input, length);
+        return value;
+    }
+
+    private static boolean nextBytesEqual(ByteBuffer input, int length, byte[] bytes) {
+        if (length != bytes.length) {
+            return false;
+        }
+        int position = input.position();
+        for (int i = 0; i < length; i++) {
+            if (input.get(position + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void skip(ByteBuffer input, int length) {
+        input.position(input.position() + length);
+    }
+
+    private static int readVarintAsInt(ByteBuffer input) {
+        return Math.toIntExact(readVarint(input));
+    }
+
+    private static long readVarint(ByteBuffer input) {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = input.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private static long zigZag(long value) {
+        return value << 1 ^ value >> 63;
+    }
+
+    private static long unZigZag(long value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    private static int getVarintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    // Growable byte array, cheaper than a stream as nothing is synchronized
+    private static final class Output {
+        private byte[] bytes = new byte[128];
+        private int size;
+
+        void writeByte(byte value) {
+            ensureCapacity(1);
+            bytes[size++] = value;
+        }
+
+        void writeBytes(byte[] values) {
+            ensureCapacity(values.length);
+            System.arraycopy(values, 0, bytes, size, values.length);
+            size += values.length;
+        }
+
+        void writeLong(long value) {
+            ensureCapacity(Long.BYTES);
+            for (int shift = Long.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeVarint(long value) {
+            ensureCapacity(getVarintSize(value));
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(valueBytes.length);
+            writeBytes(valueBytes);
+        }
+
+        // Inserts the varint at the position, moving the bytes after it
+        void insertVarint(int position, long value) {
+            int varintSize = getVarintSize(value);
+            ensureCapacity(varintSize);
+            System.arraycopy(bytes, position, bytes, position + varintSize, size - position);
+            int end = size + varintSize;
+            size = position;
+            writeVarint(value);
+            size = end;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensureCapacity(int additionalBytes) {
+            if (size + additionalBytes > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additionalBytes));
+            }
+        }
+    }
+}
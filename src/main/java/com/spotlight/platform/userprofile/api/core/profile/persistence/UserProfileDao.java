@@ -2,11 +2,61 @@ package com.spotlight.platform.userprofile.api.core.profile.persistence;
 
 import com.spotlight.platform.userprofile.api.model.profile.UserProfile;
 import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyName;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 public interface UserProfileDao {
     Optional<UserProfile> get(UserId userId);
 
+    // Profiles of the users that exist, keyed by their id. Storages with per-request overhead
+    // should fetch all profiles at once.
+    default Map<UserId, UserProfile> getAll(Collection<UserId> userIds) {
+        Map<UserId, UserProfile> userProfiles = new HashMap<>();
+        for (UserId userId : userIds) {
+            get(userId).ifPresent(userProfile -> userProfiles.put(userId, userProfile));
+        }
+        return userProfiles;
+    }
+
     void put(UserProfile userProfile);
+
+    // Stores the profile only if the stored profile of the user still has the expected version,
+    // where a user without a profile has the initial version. Returns whether it was stored.
+    boolean putIfVersion(UserProfile userProfile, long expectedVersion);
+
+    // Same, for a profile that only added or changed the given properties of the profile of the
+    // expected version. Storages that write only the changes can then skip the other properties.
+    default boolean putIfVersion(
+            UserProfile userProfile,
+            long expectedVersion,
+            Collection<UserProfilePropertyName> changedPropertyNames) {
+        return putIfVersion(userProfile, expectedVersion);
+    }
+
+    // Atomically replaces the profile of the user with the result of the remapping function.
+    // Implementations may call the function more than once, so it must be free of side effects.
+    UserProfile compute(
+            UserId userId, Function<Optional<UserProfile>, UserProfile> remappingFunction);
+
+    // Same, for a remapping function that only adds or changes the given properties
+    default UserProfile compute(
+            UserId userId,
+            Function<Optional<UserProfile>, UserProfile> remappingFunction,
+            Collection<UserProfilePropertyName> changedPropertyNames) {
+        return compute(userId, remappingFunction);
+    }
+
+    // Every stored profile, read lazily without blocking concurrent writers. Profiles written
+    // while the stream is consumed may or may not be included.
+    Stream<UserProfile> streamAll();
+
+    // Profile versions only tell profiles apart within the same epoch. Storages that lose their
+    // profiles on restart count versions from the start again, so they start a new epoch too.
+    String getEpoch();
 }
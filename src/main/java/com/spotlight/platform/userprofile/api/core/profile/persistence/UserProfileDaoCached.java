@@ -0,0 +1,236 @@
+package com.spotlight.platform.userprofile.api.core.profile.persistence;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfile;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyName;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyValue;
+
+import io.dropwizard.lifecycle.Managed;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// Keeps recently and frequently read profiles in front of a storage that is slow to read, bounded
+// by their estimated heap size. Writes go to the storage first, without holding the cache entry
+// of the user, and then update or drop the cached profile. Dropping it waits for a read loading
+// the profile, so the read cannot put an older profile back into the cache afterwards.
+public class UserProfileDaoCached implements UserProfileDao, Managed {
+    public static final String METRICS_PREFIX = "profile-storage.cache";
+
+    private static final int PROFILE_BYTES = 96;
+    private static final int PROPERTY_BYTES = 64;
+    private static final int OBJECT_BYTES = 24;
+    private static final int REFERENCE_BYTES = 8;
+    private static final int SAMPLED_PROPERTY_COUNT = 16;
+
+    private final UserProfileDao userProfileDao;
+    private final Cache<UserId, UserProfile> cache;
+    private final Meter hits;
+    private final Meter misses;
+    private final Meter evictions;
+
+    public UserProfileDaoCached(
+            UserProfileDao userProfileDao, long maximumSizeInBytes, MetricRegistry metricRegistry) {
+        this.userProfileDao = userProfileDao;
+        this.hits = metricRegistry.meter(name(METRICS_PREFIX, "hits"));
+        this.misses = metricRegistry.meter(name(METRICS_PREFIX, "misses"));
+        this.evictions = metricRegistry.meter(name(METRICS_PREFIX, "evictions"));
+        this.cache =
+                Caffeine.newBuilder()
+                        // Maintenance runs on the threads using the cache instead of the common
+                        // pool, which is shared with the rest of the application
+                        .executor(Runnable::run)
+                        .maximumWeight(maximumSizeInBytes)
+                        .<UserId, UserProfile>weigher(
+                                (userId, userProfile) -> estimateSize(userProfile))
+                        .removalListener(
+                                (userId, userProfile, cause) -> {
+                                    if (cause.wasEvicted()) {
+                                        evictions.mark();
+                                    }
+                                })
+                        .build();
+        metricRegistry.register(
+                name(METRICS_PREFIX, "size"), (Gauge<Long>) cache::estimatedSize);
+        metricRegistry.register(
+                name(METRICS_PREFIX, "weight-bytes"),
+                (Gauge<Long>)
+                        () -> cache.policy().eviction().orElseThrow().weightedSize().orElse(0));
+    }
+
+    @Override
+    public Optional<UserProfile> get(UserId userId) {
+        UserProfile userProfile = cache.getIfPresent(userId);
+        if (userProfile != null) {
+            hits.mark();
+            return Optional.of(userProfile);
+        }
+        misses.mark();
+        // Missing users are not cached, they are created by their first update
+        return Optional.ofNullable(
+                cache.get(userId, id -> userProfileDao.get(id).orElse(null)));
+    }
+
+    // Only the profiles that are not cached are read from the storage, all at once. They are not
+    // added to the cache, as that could not be done atomically with reading them.
+    @Override
+    public Map<UserId, UserProfile> getAll(Collection<UserId> userIds) {
+        Map<UserId, UserProfile> userProfiles = new HashMap<>(cache.getAllPresent(userIds));
+        hits.mark(userProfiles.size());
+        List<UserId> missingUserIds = new ArrayList<>(userIds.size() - userProfiles.size());
+        for (UserId userId : userIds) {
+            if (!userProfiles.containsKey(userId)) {
+                missingUserIds.add(userId);
+            }
+        }
+        if (!missingUserIds.isEmpty()) {
+            misses.mark(missingUserIds.size());
+            userProfiles.putAll(userProfileDao.getAll(missingUserIds));
+        }
+        return userProfiles;
+    }
+
+    // The written profile carries no version the cached one could be compared with, so the cached
+    // one is dropped
+    @Override
+    public void put(UserProfile userProfile) {
+        userProfileDao.put(userProfile);
+        cache.invalidate(userProfile.userId());
+    }
+
+    // A stored profile only replaces an older cached one, as a writer of a later version may have
+    // updated the cache first. It is not cached if nothing is, as a later version may have been
+    // dropped in the meantime. If the profile is not stored, the cached one is dropped, as the
+    // stored one has changed.
+    @Override
+    public boolean putIfVersion(UserProfile userProfile, long expectedVersion) {
+        return updateCache(userProfile, userProfileDao.putIfVersion(userProfile, expectedVersion));
+    }
+
+    @Override
+    public boolean putIfVersion(
+            UserProfile userProfile,
+            long expectedVersion,
+            Collection<UserProfilePropertyName> changedPropertyNames) {
+        return updateCache(
+                userProfile,
+                userProfileDao.putIfVersion(userProfile, expectedVersion, changedPropertyNames));
+    }
+
+    // If the storage fails, the cached profile is left as it was, as is the stored one
+    @Override
+    public UserProfile compute(
+            UserId userId, Function<Optional<UserProfile>, UserProfile> remappingFunction) {
+        UserProfile computedProfile = userProfileDao.compute(userId, remappingFunction);
+        cache.invalidate(userId);
+        return computedProfile;
+    }
+
+    @Override
+    public UserProfile compute(
+            UserId userId,
+            Function<Optional<UserProfile>, UserProfile> remappingFunction,
+            Collection<UserProfilePropertyName> changedPropertyNames) {
+        UserProfile computedProfile =
+                userProfileDao.compute(userId, remappingFunction, changedPropertyNames);
+        cache.invalidate(userId);
+        return computedProfile;
+    }
+
+    @Override
+    public Stream<UserProfile> streamAll() {
+        return userProfileDao.streamAll();
+    }
+
+    @Override
+    public String getEpoch() {
+        return userProfileDao.getEpoch();
+    }
+
+    @Override
+    public void start() throws Exception {
+        if (userProfileDao instanceof Managed managedUserProfileDao) {
+            managedUserProfileDao.start();
+        }
+    }
+
+    @Override
+    public void stop() throws Exception {
+        if (userProfileDao instanceof Managed managedUserProfileDao) {
+            managedUserProfileDao.stop();
+        }
+    }
+
+    private boolean updateCache(UserProfile userProfile, boolean stored) {
+        if (!stored) {
+            cache.invalidate(userProfile.userId());
+            return false;
+        }
+        cache.asMap()
+                .computeIfPresent(
+                        userProfile.userId(),
+                        (userId, cachedProfile) ->
+                                cachedProfile.version() < userProfile.version()
+                                        ? userProfile
+                                        : cachedProfile);
+        return true;
+    }
+
+    // Rough heap size of a profile. Property names are interned and shared by all profiles, so
+    // only the entries referring to them count. Estimated from the first properties, so weighing
+    // a profile on every write does not cost more the more properties it has.
+    static int estimateSize(UserProfile userProfile) {
+        Collection<UserProfilePropertyValue> values = userProfile.userProfileProperties().values();
+        long sampledSize = 0;
+        int sampledCount = 0;
+        for (UserProfilePropertyValue value : values) {
+            if (sampledCount == SAMPLED_PROPERTY_COUNT) {
+                break;
+            }
+            sampledSize +=
+                    PROPERTY_BYTES + estimateValueSize(value == null ? null : value.getValue());
+            sampledCount++;
+        }
+        long size = PROFILE_BYTES;
+        if (sampledCount > 0) {
+            size += sampledSize * values.size() / sampledCount;
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    private static long estimateValueSize(Object value) {
+        if (value instanceof String string) {
+            return OBJECT_BYTES + string.length();
+        }
+        // Estimated from the first element, so weighing a long collected list stays cheap
+        if (value instanceof List<?> list) {
+            if (list.isEmpty()) {
+                return OBJECT_BYTES;
+            }
+            return OBJECT_BYTES
+                    + list.size() * (REFERENCE_BYTES + estimateValueSize(list.get(0)));
+        }
+        if (value instanceof Map<?, ?> map) {
+            long size = OBJECT_BYTES;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += OBJECT_BYTES;
+                size += estimateValueSize(entry.getKey()) + estimateValueSize(entry.getValue());
+            }
+            return size;
+        }
+        return value == null ? 0 : OBJECT_BYTES;
+    }
+}
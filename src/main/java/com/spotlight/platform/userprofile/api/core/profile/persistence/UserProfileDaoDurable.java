@@ -0,0 +1,263 @@
+package com.spotlight.platform.userprofile.api.core.profile.persistence;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfile;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyName;
+
+import io.dropwizard.lifecycle.Managed;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// Keeps every profile in memory and logs the properties every write changed to a write-ahead log.
+// The whole storage is snapshotted periodically, after which the log it covers is deleted; on
+// start, the newest snapshot is loaded and the rest of the log is replayed on top of it. A write
+// returns once it is durable.
+public class UserProfileDaoDurable implements UserProfileDao, Managed {
+    public static final String METRICS_PREFIX = "profile-storage";
+
+    static final String LOG_DIRECTORY_NAME = "wal";
+    static final String SNAPSHOT_DIRECTORY_NAME = "snapshots";
+    static final String PROPERTY_NAMES_FILE_NAME = "property-names.dict";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserProfileDaoDurable.class);
+
+    private final ConcurrentHashMap<UserId, UserProfile> storage = new ConcurrentHashMap<>();
+    private final Path dataDirectory;
+    private final long maxCommitDelayNanos;
+    private final long snapshotIntervalNanos;
+    private final SnapshotStore snapshotStore;
+    private final ScheduledExecutorService snapshotExecutor;
+    private final MetricRegistry metricRegistry;
+    private final Timer recoveryTimer;
+    private final Timer snapshotTimer;
+
+    private volatile PropertyNameDictionary propertyNameDictionary;
+    private volatile UserProfileCodec codec;
+    private volatile String epoch;
+    private volatile WriteAheadLog writeAheadLog;
+    // Guarded by this
+    private ScheduledFuture<?> scheduledSnapshots;
+    private long snapshotSequence;
+
+    public UserProfileDaoDurable(
+            Path dataDirectory,
+            long maxCommitDelayNanos,
+            long snapshotIntervalNanos,
+            int snapshotPartitionCount,
+            ScheduledExecutorService snapshotExecutor,
+            MetricRegistry metricRegistry) {
+        this.dataDirectory = dataDirectory;
+        this.maxCommitDelayNanos = maxCommitDelayNanos;
+        this.snapshotIntervalNanos = snapshotIntervalNanos;
+        this.snapshotStore =
+                new SnapshotStore(
+                        dataDirectory.resolve(SNAPSHOT_DIRECTORY_NAME), snapshotPartitionCount);
+        this.snapshotExecutor = snapshotExecutor;
+        this.metricRegistry = metricRegistry;
+        this.recoveryTimer = metricRegistry.timer(MetricRegistry.name(METRICS_PREFIX, "recovery"));
+        this.snapshotTimer = metricRegistry.timer(MetricRegistry.name(METRICS_PREFIX, "snapshot"));
+    }
+
+    // Recovers every profile before returning, so the storage is complete once it is started
+    @Override
+    public synchronized void start() throws IOException {
+        try (Timer.Context ignored = recoveryTimer.time()) {
+            Files.createDirectories(dataDirectory);
+            epoch = StorageEpoch.loadOrCreate(dataDirectory);
+            // Loaded first, as the snapshots and the log refer to property names by their ids
+            propertyNameDictionary =
+                    PropertyNameDictionary.open(dataDirectory.resolve(PROPERTY_NAMES_FILE_NAME));
+            codec = new UserProfileCodec(propertyNameDictionary);
+            long snapshotId = snapshotStore.loadLatest(this::replay).orElse(0);
+            var replayedLog = new boolean[1];
+            writeAheadLog =
+                    WriteAheadLog.open(
+                            dataDirectory.resolve(LOG_DIRECTORY_NAME),
+                            snapshotId,
+                            maxCommitDelayNanos,
+                            metricRegistry,
+                            record -> {
+                                replayedLog[0] = true;
+                                replay(record);
+                            });
+            // A replayed log is not covered by a snapshot yet, so the next snapshot must not be
+            // skipped even if nothing is written after the start
+            snapshotSequence = replayedLog[0] ? -1 : 0;
+        }
+        LOGGER.info("Recovered {} user profiles", storage.size());
+        scheduledSnapshots =
+                snapshotExecutor.scheduleWithFixedDelay(
+                        this::snapshotInBackground,
+                        snapshotIntervalNanos,
+                        snapshotIntervalNanos,
+                        TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public synchronized void stop() throws IOException {
+        scheduledSnapshots.cancel(false);
+        writeAheadLog.close();
+        propertyNameDictionary.close();
+    }
+
+    // Writers keep going while the snapshot is written, so it does not show the storage at a
+    // single point in time. Every profile logged up to the sealed segment is in it, though, and
+    // replaying the segments after that on top of it restores the exact state, as the changes in
+    // the log hold the new values of the properties rather than the updates that produced them.
+    public synchronized void snapshot() throws IOException {
+        long appendedSequence = writeAheadLog.getAppendedSequence();
+        if (appendedSequence == snapshotSequence) {
+            return;
+        }
+        try (Timer.Context ignored = snapshotTimer.time()) {
+            long segmentId = writeAheadLog.rotate();
+            snapshotStore.write(
+                    segmentId, storage.values().stream().map(codec::encode).iterator());
+            writeAheadLog.deleteSegmentsUpTo(segmentId);
+            snapshotStore.deleteOlderThan(segmentId);
+        }
+        snapshotSequence = appendedSequence;
+    }
+
+    @Override
+    public Optional<UserProfile> get(UserId userId) {
+        return Optional.ofNullable(storage.get(userId));
+    }
+
+    @Override
+    public void put(UserProfile userProfile) {
+        compute(userProfile.userId(), currentProfile -> userProfile);
+    }
+
+    // Without the names of the changed properties, every property of the profile is compared
+    // with the current one to find the changes, so a write of an updated profile should pass them
+    @Override
+    public boolean putIfVersion(UserProfile userProfile, long expectedVersion) {
+        return putIfVersionAndLog(userProfile, expectedVersion, codec::encodeChanges);
+    }
+
+    @Override
+    public boolean putIfVersion(
+            UserProfile userProfile,
+            long expectedVersion,
+            Collection<UserProfilePropertyName> changedPropertyNames) {
+        return putIfVersionAndLog(
+                userProfile,
+                expectedVersion,
+                (currentProfile, newProfile) ->
+                        codec.encodeChanges(currentProfile, newProfile, changedPropertyNames));
+    }
+
+    @Override
+    public UserProfile compute(
+            UserId userId, Function<Optional<UserProfile>, UserProfile> remappingFunction) {
+        return computeAndLog(userId, remappingFunction, codec::encodeChanges);
+    }
+
+    @Override
+    public UserProfile compute(
+            UserId userId,
+            Function<Optional<UserProfile>, UserProfile> remappingFunction,
+            Collection<UserProfilePropertyName> changedPropertyNames) {
+        return computeAndLog(
+                userId,
+                remappingFunction,
+                (currentProfile, newProfile) ->
+                        codec.encodeChanges(currentProfile, newProfile, changedPropertyNames));
+    }
+
+    // Nothing is logged if the version does not match
+    private boolean putIfVersionAndLog(
+            UserProfile userProfile,
+            long expectedVersion,
+            BiFunction<UserProfile, UserProfile, byte[]> changesEncoder) {
+        var sequence = new long[1];
+        storage.compute(
+                userProfile.userId(),
+                (id, currentProfile) -> {
+                    long currentVersion =
+                            currentProfile == null
+                                    ? UserProfile.INITIAL_VERSION
+                                    : currentProfile.version();
+                    if (currentVersion != expectedVersion) {
+                        return currentProfile;
+                    }
+                    sequence[0] =
+                            writeAheadLog.append(
+                                    changesEncoder.apply(currentProfile, userProfile));
+                    return userProfile;
+                });
+        if (sequence[0] == 0) {
+            return false;
+        }
+        writeAheadLog.awaitDurable(sequence[0]);
+        return true;
+    }
+
+    private UserProfile computeAndLog(
+            UserId userId,
+            Function<Optional<UserProfile>, UserProfile> remappingFunction,
+            BiFunction<UserProfile, UserProfile, byte[]> changesEncoder) {
+        var sequence = new long[1];
+        // Appending while the entry is locked keeps the log order of a user's profiles the same
+        // as the order they were stored in. Waiting for the commit happens after the entry is
+        // unlocked, so the writers of other users can join the same commit. Only the changes are
+        // encoded, which is why that happens while the entry is locked as well.
+        UserProfile computedProfile =
+                storage.compute(
+                        userId,
+                        (id, currentProfile) -> {
+                            UserProfile userProfile =
+                                    remappingFunction.apply(Optional.ofNullable(currentProfile));
+                            sequence[0] =
+                                    writeAheadLog.append(
+                                            changesEncoder.apply(currentProfile, userProfile));
+                            return userProfile;
+                        });
+        writeAheadLog.awaitDurable(sequence[0]);
+        return computedProfile;
+    }
+
+    @Override
+    public Stream<UserProfile> streamAll() {
+        return storage.values().stream();
+    }
+
+    @Override
+    public String getEpoch() {
+        return epoch;
+    }
+
+    private void snapshotInBackground() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            // The log still has every profile, so the next snapshot can simply try again
+            LOGGER.error("Failed to snapshot user profiles", e);
+        }
+    }
+
+    // Changes are merged onto the profile restored before them, which is in the snapshot or
+    // earlier in the log
+    private void replay(ByteBuffer record) {
+        UserId userId = codec.decodeUserId(record);
+        storage.put(userId, codec.decodeChanges(record, storage.get(userId)));
+    }
+}
@@ -3,12 +3,15 @@ package com.spotlight.platform.userprofile.api.core.profile.persistence;
 import com.spotlight.platform.userprofile.api.model.profile.UserProfile;
 import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
 
-import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 public class UserProfileDaoInMemory implements UserProfileDao {
-    private final Map<UserId, UserProfile> storage = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UserId, UserProfile> storage = new ConcurrentHashMap<>();
+    private final String epoch = StorageEpoch.create();
 
     @Override
     public Optional<UserProfile> get(UserId userId) {
@@ -19,4 +22,34 @@ public class UserProfileDaoInMemory implements UserProfileDao {
     public void put(UserProfile userProfile) {
         storage.put(userProfile.userId(), userProfile);
     }
+
+    @Override
+    public boolean putIfVersion(UserProfile userProfile, long expectedVersion) {
+        UserProfile currentProfile = storage.get(userProfile.userId());
+        if (currentProfile == null) {
+            return expectedVersion == UserProfile.INITIAL_VERSION
+                    && storage.putIfAbsent(userProfile.userId(), userProfile) == null;
+        }
+        return currentProfile.version() == expectedVersion
+                && storage.replace(userProfile.userId(), currentProfile, userProfile);
+    }
+
+    @Override
+    public UserProfile compute(
+            UserId userId, Function<Optional<UserProfile>, UserProfile> remappingFunction) {
+        return storage.compute(
+                userId,
+                (id, currentProfile) ->
+                        remappingFunction.apply(Optional.ofNullable(currentProfile)));
+    }
+
+    @Override
+    public Stream<UserProfile> streamAll() {
+        return storage.values().stream();
+    }
+
+    @Override
+    public String getEpoch() {
+        return epoch;
+    }
 }
@@ -0,0 +1,120 @@
+package com.spotlight.platform.userprofile.api.core.profile.persistence;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfile;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyName;
+
+import io.dropwizard.lifecycle.Managed;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// Times every operation of the wrapped storage, whichever storage is configured. Starting and
+// stopping is passed on, so wrapping a managed storage keeps it managed.
+public class UserProfileDaoInstrumented implements UserProfileDao, Managed {
+    public static final String METRICS_PREFIX = "profile-storage.dao";
+
+    private final UserProfileDao userProfileDao;
+    private final Timer getTimer;
+    private final Timer getAllTimer;
+    private final Timer putTimer;
+    private final Timer putIfVersionTimer;
+    private final Timer computeTimer;
+
+    public UserProfileDaoInstrumented(
+            UserProfileDao userProfileDao, MetricRegistry metricRegistry) {
+        this.userProfileDao = userProfileDao;
+        this.getTimer = metricRegistry.timer(name(METRICS_PREFIX, "get"));
+        this.getAllTimer = metricRegistry.timer(name(METRICS_PREFIX, "get-all"));
+        this.putTimer = metricRegistry.timer(name(METRICS_PREFIX, "put"));
+        this.putIfVersionTimer = metricRegistry.timer(name(METRICS_PREFIX, "put-if-version"));
+        this.computeTimer = metricRegistry.timer(name(METRICS_PREFIX, "compute"));
+    }
+
+    @Override
+    public Optional<UserProfile> get(UserId userId) {
+        try (Timer.Context ignored = getTimer.time()) {
+            return userProfileDao.get(userId);
+        }
+    }
+
+    @Override
+    public Map<UserId, UserProfile> getAll(Collection<UserId> userIds) {
+        try (Timer.Context ignored = getAllTimer.time()) {
+            return userProfileDao.getAll(userIds);
+        }
+    }
+
+    @Override
+    public void put(UserProfile userProfile) {
+        try (Timer.Context ignored = putTimer.time()) {
+            userProfileDao.put(userProfile);
+        }
+    }
+
+    @Override
+    public boolean putIfVersion(UserProfile userProfile, long expectedVersion) {
+        try (Timer.Context ignored = putIfVersionTimer.time()) {
+            return userProfileDao.putIfVersion(userProfile, expectedVersion);
+        }
+    }
+
+    @Override
+    public boolean putIfVersion(
+            UserProfile userProfile,
+            long expectedVersion,
+            Collection<UserProfilePropertyName> changedPropertyNames) {
+        try (Timer.Context ignored = putIfVersionTimer.time()) {
+            return userProfileDao.putIfVersion(userProfile, expectedVersion, changedPropertyNames);
+        }
+    }
+
+    @Override
+    public UserProfile compute(
+            UserId userId, Function<Optional<UserProfile>, UserProfile> remappingFunction) {
+        try (Timer.Context ignored = computeTimer.time()) {
+            return userProfileDao.compute(userId, remappingFunction);
+        }
+    }
+
+    @Override
+    public UserProfile compute(
+            UserId userId,
+            Function<Optional<UserProfile>, UserProfile> remappingFunction,
+            Collection<UserProfilePropertyName> changedPropertyNames) {
+        try (Timer.Context ignored = computeTimer.time()) {
+            return userProfileDao.compute(userId, remappingFunction, changedPropertyNames);
+        }
+    }
+
+    @Override
+    public Stream<UserProfile> streamAll() {
+        return userProfileDao.streamAll();
+    }
+
+    @Override
+    public String getEpoch() {
+        return userProfileDao.getEpoch();
+    }
+
+    @Override
+    public void start() throws Exception {
+        if (userProfileDao instanceof Managed managedUserProfileDao) {
+            managedUserProfileDao.start();
+        }
+    }
+
+    @Override
+    public void stop() throws Exception {
+        if (userProfileDao instanceof Managed managedUserProfileDao) {
+            managedUserProfileDao.stop();
+        }
+    }
+}
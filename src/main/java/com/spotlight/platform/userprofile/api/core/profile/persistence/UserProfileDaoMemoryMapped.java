@@ -0,0 +1,272 @@
+package com.spotlight.platform.userprofile.api.core.profile.persistence;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfile;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
+
+import io.dropwizard.lifecycle.Managed;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+// Keeps the encoded profiles outside the heap in memory-mapped files, so the heap does not grow
+// with the number of profiles, and decodes a profile straight from the file when it is read.
+// The files outlive the process, so the profiles survive restarts; they are synced on stop only,
+// so they do not survive a crash of the machine. Every shard has its own files and lock.
+public class UserProfileDaoMemoryMapped implements UserProfileDao, Managed {
+    public static final String METRICS_PREFIX = "profile-storage.mapped";
+
+    static final int DEFAULT_CHUNK_SIZE = 64 * 1024 * 1024;
+    static final String PROPERTY_NAMES_FILE_NAME = "property-names.dict";
+
+    private static final int HASH_MIXING_CONSTANT = 0x9E3779B9;
+    private static final String INDEX_FILE_FORMAT = "shard-%04d.index";
+    private static final String DATA_FILE_FORMAT = "shard-%04d.data";
+
+    private final Path dataDirectory;
+    private final long expectedShardSize;
+    private final int chunkSize;
+    private final Shard[] shards;
+
+    private volatile PropertyNameDictionary propertyNameDictionary;
+    private volatile UserProfileCodec codec;
+    private volatile String epoch;
+
+    public UserProfileDaoMemoryMapped(
+            Path dataDirectory,
+            int shardCount,
+            long expectedProfileCount,
+            MetricRegistry metricRegistry) {
+        this(dataDirectory, shardCount, expectedProfileCount, DEFAULT_CHUNK_SIZE, metricRegistry);
+    }
+
+    UserProfileDaoMemoryMapped(
+            Path dataDirectory,
+            int shardCount,
+            long expectedProfileCount,
+            int chunkSize,
+            MetricRegistry metricRegistry) {
+        this.dataDirectory = dataDirectory;
+        this.expectedShardSize = expectedProfileCount / shardCount + 1;
+        this.chunkSize = chunkSize;
+        this.shards = new Shard[shardCount];
+        for (int shardIndex = 0; shardIndex < shardCount; shardIndex++) {
+            shards[shardIndex] = new Shard();
+        }
+        metricRegistry.register(
+                name(METRICS_PREFIX, "size"), (Gauge<Long>) () -> sum(MappedHashTable::size));
+        metricRegistry.register(
+                name(METRICS_PREFIX, "data-bytes"),
+                (Gauge<Long>) () -> sum(MappedHashTable::getDataBytes));
+        // Space of records that were moved, which is only reused once the files are rewritten
+        metricRegistry.register(
+                name(METRICS_PREFIX, "garbage-bytes"),
+                (Gauge<Long>) () -> sum(MappedHashTable::getGarbageBytes));
+    }
+
+    @Override
+    public void start() throws IOException {
+        Files.createDirectories(dataDirectory);
+        // Profiles are assigned to shards by their hash, so they are only found again with the
+        // same number of shards
+        try (Stream<Path> files = Files.list(dataDirectory)) {
+            long indexFileCount =
+                    files.filter(file -> file.getFileName().toString().endsWith(".index"))
+                            .count();
+            if (indexFileCount != 0 && indexFileCount != shards.length) {
+                throw new IllegalStateException(
+                        "Storage in "
+                                + dataDirectory
+                                + " has "
+                                + indexFileCount
+                                + " shards instead of "
+                                + shards.length);
+            }
+        }
+        epoch = StorageEpoch.loadOrCreate(dataDirectory);
+        propertyNameDictionary =
+                PropertyNameDictionary.open(dataDirectory.resolve(PROPERTY_NAMES_FILE_NAME));
+        codec = new UserProfileCodec(propertyNameDictionary);
+        for (int shardIndex = 0; shardIndex < shards.length; shardIndex++) {
+            Shard shard = shards[shardIndex];
+            shard.lock.writeLock().lock();
+            try {
+                shard.table =
+                        MappedHashTable.open(
+                                getShardFile(INDEX_FILE_FORMAT, shardIndex),
+                                getShardFile(DATA_FILE_FORMAT, shardIndex),
+                                expectedShardSize,
+                                chunkSize);
+            } finally {
+                shard.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public void stop() throws IOException {
+        for (Shard shard : shards) {
+            shard.lock.writeLock().lock();
+            try {
+                if (shard.table != null) {
+                    shard.table.close();
+                    shard.table = null;
+                }
+            } finally {
+                shard.lock.writeLock().unlock();
+            }
+        }
+        if (propertyNameDictionary != null) {
+            propertyNameDictionary.close();
+            propertyNameDictionary = null;
+        }
+    }
+
+    @Override
+    public Optional<UserProfile> get(UserId userId) {
+        byte[] key = encodeKey(userId);
+        int hash = mixHash(userId);
+        Shard shard = getShard(hash);
+        shard.lock.readLock().lock();
+        try {
+            return Optional.ofNullable(shard.table.get(key, hash, codec::decode));
+        } finally {
+            shard.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(UserProfile userProfile) {
+        byte[] key = encodeKey(userProfile.userId());
+        int hash = mixHash(userProfile.userId());
+        byte[] encodedProfile = codec.encode(userProfile);
+        Shard shard = getShard(hash);
+        shard.lock.writeLock().lock();
+        try {
+            shard.table.put(key, hash, encodedProfile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    // Only the version of the stored profile is decoded to compare it
+    @Override
+    public boolean putIfVersion(UserProfile userProfile, long expectedVersion) {
+        byte[] key = encodeKey(userProfile.userId());
+        int hash = mixHash(userProfile.userId());
+        byte[] encodedProfile = codec.encode(userProfile);
+        Shard shard = getShard(hash);
+        shard.lock.writeLock().lock();
+        try {
+            Long storedVersion = shard.table.get(key, hash, codec::decodeProfileVersion);
+            long currentVersion =
+                    storedVersion == null ? UserProfile.INITIAL_VERSION : storedVersion;
+            if (currentVersion != expectedVersion) {
+                return false;
+            }
+            shard.table.put(key, hash, encodedProfile);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public UserProfile compute(
+            UserId userId, Function<Optional<UserProfile>, UserProfile> remappingFunction) {
+        byte[] key = encodeKey(userId);
+        int hash = mixHash(userId);
+        Shard shard = getShard(hash);
+        shard.lock.writeLock().lock();
+        try {
+            UserProfile computedProfile =
+                    remappingFunction.apply(
+                            Optional.ofNullable(shard.table.get(key, hash, codec::decode)));
+            shard.table.put(key, hash, codec.encode(computedProfile));
+            return computedProfile;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    // Copies the encoded profiles of one shard at a time, so writers of a shard wait only for
+    // the copy and only the profiles of a single shard are held on the heap.
+    @Override
+    public Stream<UserProfile> streamAll() {
+        return Arrays.stream(shards)
+                .flatMap(shard -> copyEncodedProfiles(shard).stream())
+                .map(encodedProfile -> codec.decode(ByteBuffer.wrap(encodedProfile)));
+    }
+
+    @Override
+    public String getEpoch() {
+        return epoch;
+    }
+
+    private List<byte[]> copyEncodedProfiles(Shard shard) {
+        shard.lock.readLock().lock();
+        try {
+            return shard.table.values();
+        } finally {
+            shard.lock.readLock().unlock();
+        }
+    }
+
+    private Shard getShard(int mixedHash) {
+        // The tables pick their slot from the low bits of the hash, so the shard is picked from
+        // the high bits to keep the slots of every shard evenly used.
+        long unsignedHash = Integer.toUnsignedLong(mixedHash);
+        return shards[(int) ((unsignedHash * shards.length) >>> Integer.SIZE)];
+    }
+
+    private long sum(ToLongFunction<MappedHashTable> getter) {
+        long sum = 0;
+        for (Shard shard : shards) {
+            shard.lock.readLock().lock();
+            try {
+                sum += shard.table == null ? 0 : getter.applyAsLong(shard.table);
+            } finally {
+                shard.lock.readLock().unlock();
+            }
+        }
+        return sum;
+    }
+
+    private Path getShardFile(String fileNameFormat, int shardIndex) {
+        return dataDirectory.resolve(String.format(fileNameFormat, shardIndex));
+    }
+
+    private static int mixHash(UserId userId) {
+        return userId.hashCode() * HASH_MIXING_CONSTANT;
+    }
+
+    private static byte[] encodeKey(UserId userId) {
+        return userId.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static class Shard {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        // Guarded by lock
+        private MappedHashTable table;
+    }
+}
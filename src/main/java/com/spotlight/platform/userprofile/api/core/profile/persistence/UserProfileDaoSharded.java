@@ -0,0 +1,130 @@
+package com.spotlight.platform.userprofile.api.core.profile.persistence;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfile;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+public class UserProfileDaoSharded implements UserProfileDao {
+    public static final String METRICS_PREFIX = "profile-storage.shard";
+
+    private static final int HASH_MIXING_CONSTANT = 0x9E3779B9;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final Shard[] shards;
+    private final String epoch = StorageEpoch.create();
+
+    public UserProfileDaoSharded(
+            int shardCount, long expectedProfileCount, MetricRegistry metricRegistry) {
+        int initialShardCapacity = getInitialShardCapacity(shardCount, expectedProfileCount);
+        shards = new Shard[shardCount];
+        for (int shardIndex = 0; shardIndex < shardCount; shardIndex++) {
+            shards[shardIndex] = new Shard(shardIndex, initialShardCapacity, metricRegistry);
+        }
+    }
+
+    @Override
+    public Optional<UserProfile> get(UserId userId) {
+        return Optional.ofNullable(getShard(userId).storage.get(userId));
+    }
+
+    @Override
+    public void put(UserProfile userProfile) {
+        Shard shard = getShard(userProfile.userId());
+        shard.storage.put(userProfile.userId(), userProfile);
+        shard.puts.mark();
+    }
+
+    @Override
+    public boolean putIfVersion(UserProfile userProfile, long expectedVersion) {
+        Shard shard = getShard(userProfile.userId());
+        UserProfile currentProfile = shard.storage.get(userProfile.userId());
+        boolean stored;
+        if (currentProfile == null) {
+            stored =
+                    expectedVersion == UserProfile.INITIAL_VERSION
+                            && shard.storage.putIfAbsent(userProfile.userId(), userProfile) == null;
+        } else {
+            stored =
+                    currentProfile.version() == expectedVersion
+                            && shard.storage.replace(
+                                    userProfile.userId(), currentProfile, userProfile);
+        }
+        // Not storing the profile means another writer stored the user first, the same as a lost
+        // compare-and-set of compute
+        if (stored) {
+            shard.puts.mark();
+        } else {
+            shard.contentionRetries.inc();
+        }
+        return stored;
+    }
+
+    @Override
+    public UserProfile compute(
+            UserId userId, Function<Optional<UserProfile>, UserProfile> remappingFunction) {
+        Shard shard = getShard(userId);
+        // Compare-and-set instead of ConcurrentHashMap.compute, so the bin is never locked while
+        // the remapping function runs and lost races show up in the contention metric.
+        while (true) {
+            UserProfile currentProfile = shard.storage.get(userId);
+            UserProfile computedProfile =
+                    remappingFunction.apply(Optional.ofNullable(currentProfile));
+            boolean swapped =
+                    currentProfile == null
+                            ? shard.storage.putIfAbsent(userId, computedProfile) == null
+                            : shard.storage.replace(userId, currentProfile, computedProfile);
+            if (swapped) {
+                shard.puts.mark();
+                return computedProfile;
+            }
+            shard.contentionRetries.inc();
+        }
+    }
+
+    @Override
+    public Stream<UserProfile> streamAll() {
+        return Arrays.stream(shards).flatMap(shard -> shard.storage.values().stream());
+    }
+
+    @Override
+    public String getEpoch() {
+        return epoch;
+    }
+
+    private Shard getShard(UserId userId) {
+        // ConcurrentHashMap picks its bin from the low bits of the hash, so the shard is picked
+        // from the high bits of the mixed hash to keep the bins of every shard evenly used.
+        long mixedHash = Integer.toUnsignedLong(userId.hashCode() * HASH_MIXING_CONSTANT);
+        return shards[(int) ((mixedHash * shards.length) >>> Integer.SIZE)];
+    }
+
+    private static int getInitialShardCapacity(int shardCount, long expectedProfileCount) {
+        long expectedShardSize = expectedProfileCount / shardCount + 1;
+        return (int) Math.min(Integer.MAX_VALUE, (long) (expectedShardSize / LOAD_FACTOR));
+    }
+
+    private static class Shard {
+        private final ConcurrentHashMap<UserId, UserProfile> storage;
+        private final Meter puts;
+        private final Counter contentionRetries;
+
+        private Shard(int shardIndex, int initialCapacity, MetricRegistry metricRegistry) {
+            storage = new ConcurrentHashMap<>(initialCapacity, LOAD_FACTOR);
+            String shardName = name(METRICS_PREFIX, String.valueOf(shardIndex));
+            metricRegistry.register(name(shardName, "size"), (Gauge<Integer>) storage::size);
+            puts = metricRegistry.meter(name(shardName, "puts"));
+            contentionRetries = metricRegistry.counter(name(shardName, "contention-retries"));
+        }
+    }
+}
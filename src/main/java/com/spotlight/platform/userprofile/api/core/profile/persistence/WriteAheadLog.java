@@ -0,0 +1,382 @@
+package com.spotlight.platform.userprofile.api.core.profile.persistence;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Append-only log of records made durable in groups: a single committer thread writes all
+// records appended since the previous commit and syncs them with one fsync. The log is split
+// into numbered segments, so the segments covered by a snapshot can be deleted.
+public class WriteAheadLog implements Closeable {
+    public static final String METRICS_PREFIX = "profile-storage.wal";
+
+    private static final String SEGMENT_FILE_FORMAT = "segment-%020d.wal";
+    private static final Pattern SEGMENT_FILE_PATTERN = Pattern.compile("segment-(\\d{20})\\.wal");
+
+    private final Path directory;
+    private final long maxCommitDelayNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition recordsAppended = lock.newCondition();
+    private final Condition recordsCommitted = lock.newCondition();
+    private final Condition recordsApplied = lock.newCondition();
+    private final Thread committer;
+    private final Timer commitTimer;
+    private final Histogram commitSizes;
+
+    // Guarded by lock
+    private FileChannel channel;
+    // The current segment last, preceded by the sealed ones with records not yet applied
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private List<ByteBuffer> pendingRecords = new ArrayList<>();
+    private long appendedSequence;
+    private long committedSequence;
+    private long firstPendingNanos;
+    private boolean committing;
+    private IOException failure;
+    private boolean closed;
+
+    private WriteAheadLog(
+            Path directory,
+            FileChannel channel,
+            long segmentId,
+            long maxCommitDelayNanos,
+            MetricRegistry metricRegistry) {
+        this.directory = directory;
+        this.channel = channel;
+        this.segments.add(new Segment(segmentId, 1));
+        this.maxCommitDelayNanos = maxCommitDelayNanos;
+        this.commitTimer = metricRegistry.timer(MetricRegistry.name(METRICS_PREFIX, "commit"));
+        this.commitSizes =
+                metricRegistry.histogram(MetricRegistry.name(METRICS_PREFIX, "commit-size"));
+        this.committer = new Thread(this::commitLoop, "wal-group-commit");
+        this.committer.setDaemon(true);
+    }
+
+    // Deletes the segments up to the given one, which are covered by a snapshot, and passes the
+    // payload of every intact record of the remaining segments to the consumer. Appending
+    // continues in a new segment, so segments are never written again once they are sealed.
+    public static WriteAheadLog open(
+            Path directory,
+            long coveredSegmentId,
+            long maxCommitDelayNanos,
+            MetricRegistry metricRegistry,
+            Consumer<ByteBuffer> recordConsumer)
+            throws IOException {
+        Files.createDirectories(directory);
+        long lastSegmentId = coveredSegmentId;
+        for (long segmentId : listSegmentIds(directory)) {
+            Path segmentFile = getSegmentFile(directory, segmentId);
+            if (segmentId <= coveredSegmentId) {
+                Files.delete(segmentFile);
+                continue;
+            }
+            try (FileChannel segmentChannel =
+                    FileChannel.open(
+                            segmentFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                segmentChannel.truncate(RecordFiles.read(segmentChannel, recordConsumer));
+            }
+            lastSegmentId = segmentId;
+        }
+        long segmentId = lastSegmentId + 1;
+        var writeAheadLog =
+                new WriteAheadLog(
+                        directory,
+                        createSegment(directory, segmentId),
+                        segmentId,
+                        maxCommitDelayNanos,
+                        metricRegistry);
+        writeAheadLog.committer.start();
+        return writeAheadLog;
+    }
+
+    // Returns the sequence number to wait for until the record is durable. Every appended
+    // record has to be waited for once it has been applied, which is what rotate relies on.
+    public long append(byte[] payload) {
+        ByteBuffer record = RecordFiles.encode(payload);
+        lock.lock();
+        try {
+            throwIfUnusable();
+            if (pendingRecords.isEmpty()) {
+                firstPendingNanos = System.nanoTime();
+            }
+            pendingRecords.add(record);
+            segments.getLast().unappliedRecords++;
+            recordsAppended.signal();
+            return ++appendedSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void awaitDurable(long sequence) {
+        lock.lock();
+        try {
+            // Closing commits the pending records, so only a failure ends the wait early
+            while (committedSequence < sequence) {
+                throwIfFailed();
+                recordsCommitted.awaitUninterruptibly();
+            }
+        } finally {
+            markApplied(sequence);
+            lock.unlock();
+        }
+    }
+
+    public long getAppendedSequence() {
+        lock.lock();
+        try {
+            return appendedSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Seals the current segment and continues in a new one. Returns the id of the sealed
+    // segment once every record in it and in the segments before it is durable and applied.
+    public long rotate() throws IOException {
+        lock.lock();
+        try {
+            throwIfUnusable();
+            // The committer writes to the current segment without holding the lock
+            while (committing) {
+                recordsCommitted.awaitUninterruptibly();
+            }
+            throwIfUnusable();
+            if (!pendingRecords.isEmpty()) {
+                IOException commitFailure = commit(channel, pendingRecords);
+                if (commitFailure != null) {
+                    failure = commitFailure;
+                    recordsCommitted.signalAll();
+                    throwIfFailed();
+                }
+                pendingRecords = new ArrayList<>();
+                committedSequence = appendedSequence;
+                recordsCommitted.signalAll();
+            }
+            long sealedSegmentId = segments.getLast().id;
+            FileChannel nextChannel = createSegment(directory, sealedSegmentId + 1);
+            channel.close();
+            channel = nextChannel;
+            segments.addLast(new Segment(sealedSegmentId + 1, appendedSequence + 1));
+            removeAppliedSegments();
+            while (segments.size() > 1) {
+                throwIfFailed();
+                recordsApplied.awaitUninterruptibly();
+            }
+            return sealedSegmentId;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Deletes the sealed segments up to the given one, which has to be returned by rotate
+    public void deleteSegmentsUpTo(long segmentId) throws IOException {
+        for (long existingSegmentId : listSegmentIds(directory)) {
+            if (existingSegmentId <= segmentId) {
+                Files.deleteIfExists(getSegmentFile(directory, existingSegmentId));
+            }
+        }
+        RecordFiles.syncDirectory(directory);
+    }
+
+    // Commits every record appended so far before closing
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            recordsAppended.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void throwIfUnusable() {
+        throwIfFailed();
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log is closed");
+        }
+    }
+
+    private void throwIfFailed() {
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log failed", failure);
+        }
+    }
+
+    private void markApplied(long sequence) {
+        Iterator<Segment> newestFirst = segments.descendingIterator();
+        while (newestFirst.hasNext()) {
+            Segment segment = newestFirst.next();
+            if (segment.firstSequence <= sequence) {
+                segment.unappliedRecords--;
+                break;
+            }
+        }
+        removeAppliedSegments();
+    }
+
+    private void removeAppliedSegments() {
+        boolean removed = false;
+        while (segments.size() > 1 && segments.getFirst().unappliedRecords == 0) {
+            segments.removeFirst();
+            removed = true;
+        }
+        if (removed) {
+            recordsApplied.signalAll();
+        }
+    }
+
+    private void commitLoop() {
+        while (true) {
+            FileChannel commitChannel;
+            List<ByteBuffer> records;
+            long sequence;
+            lock.lock();
+            try {
+                if (!awaitCommitDue()) {
+                    return;
+                }
+                commitChannel = channel;
+                records = pendingRecords;
+                sequence = appendedSequence;
+                pendingRecords = new ArrayList<>(records.size());
+                committing = true;
+            } finally {
+                lock.unlock();
+            }
+            IOException commitFailure = commit(commitChannel, records);
+            lock.lock();
+            try {
+                committing = false;
+                if (commitFailure == null) {
+                    committedSequence = sequence;
+                } else {
+                    failure = commitFailure;
+                }
+                recordsCommitted.signalAll();
+                if (failure != null) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Waits until there are records and the oldest of them has waited for the commit delay, so
+    // more writers can join the commit. False if the log is closed and nothing is left.
+    private boolean awaitCommitDue() {
+        while (true) {
+            if (pendingRecords.isEmpty()) {
+                if (closed) {
+                    return false;
+                }
+                recordsAppended.awaitUninterruptibly();
+                continue;
+            }
+            long remainingNanos = firstPendingNanos + maxCommitDelayNanos - System.nanoTime();
+            if (remainingNanos <= 0 || closed) {
+                return true;
+            }
+            try {
+                recordsAppended.awaitNanos(remainingNanos);
+            } catch (InterruptedException e) {
+                // Committing right away is as correct as committing later
+                return true;
+            }
+        }
+    }
+
+    private IOException commit(FileChannel commitChannel, List<ByteBuffer> records) {
+        long startNanos = System.nanoTime();
+        try {
+            ByteBuffer[] buffers = records.toArray(ByteBuffer[]::new);
+            long remainingBytes = 0;
+            for (ByteBuffer buffer : buffers) {
+                remainingBytes += buffer.remaining();
+            }
+            while (remainingBytes > 0) {
+                remainingBytes -= commitChannel.write(buffers);
+            }
+            commitChannel.force(false);
+        } catch (IOException e) {
+            return e;
+        }
+        commitTimer.update(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        commitSizes.update(records.size());
+        return null;
+    }
+
+    private static FileChannel createSegment(Path directory, long segmentId) throws IOException {
+        FileChannel segmentChannel =
+                FileChannel.open(
+                        getSegmentFile(directory, segmentId),
+                        StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.WRITE);
+        try {
+            RecordFiles.syncDirectory(directory);
+        } catch (IOException e) {
+            segmentChannel.close();
+            throw e;
+        }
+        return segmentChannel;
+    }
+
+    private static Path getSegmentFile(Path directory, long segmentId) {
+        return directory.resolve(String.format(SEGMENT_FILE_FORMAT, segmentId));
+    }
+
+    private static List<Long> listSegmentIds(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> SEGMENT_FILE_PATTERN.matcher(file.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Long.parseLong(matcher.group(1)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static final class Segment {
+        private final long id;
+        private final long firstSequence;
+        private int unappliedRecords;
+
+        private Segment(long id, long firstSequence) {
+            this.id = id;
+            this.firstSequence = firstSequence;
+        }
+    }
+}
@@ -2,24 +2,70 @@ package com.spotlight.platform.userprofile.api.model.common;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-import org.hibernate.validator.constraints.Length;
-
-import javax.validation.constraints.Pattern;
-
+// Validity is checked once when the string is created, by a single scan of its characters, so
+// validating it later only reports the result instead of matching a pattern.
+@AlphaNumericalWithMaxLength
 public class AlphaNumericalStringWithMaxLength extends WrappedString {
     private static final int MAX_LENGTH = 1024;
     private static final int MIN_LENGTH = 1;
-    private static final String PATTERN_ALPHA_NUMERIC_ONLY = "[A-Za-z0-9_-]*";
+    private static final boolean[] ALPHA_NUMERIC_CHARACTERS = createAlphaNumericCharacters();
+
+    static final int LENGTH_VIOLATION = 1;
+    static final int PATTERN_VIOLATION = 2;
+    // Same messages as the Length and Pattern constraints
+    static final String LENGTH_MESSAGE =
+            "length must be between " + MIN_LENGTH + " and " + MAX_LENGTH;
+    static final String PATTERN_MESSAGE = "must match \"[A-Za-z0-9_-]*\"";
+
+    private final int violations;
 
     protected AlphaNumericalStringWithMaxLength(String value) {
         super(value);
+        this.violations = findViolations(value);
     }
 
     @Override
-    @Length(min = MIN_LENGTH, max = MAX_LENGTH)
-    @Pattern(regexp = PATTERN_ALPHA_NUMERIC_ONLY)
     @JsonProperty
     protected String getValue() {
         return super.getValue();
     }
+
+    // Bit set of LENGTH_VIOLATION and PATTERN_VIOLATION, 0 if the string is valid
+    int getViolations() {
+        return violations;
+    }
+
+    protected boolean isValid() {
+        return violations == 0;
+    }
+
+    // Same rules as a length between 1 and 1024 and the pattern [A-Za-z0-9_-]*; null is valid
+    private static int findViolations(String value) {
+        if (value == null) {
+            return 0;
+        }
+        int length = value.length();
+        int violations = length < MIN_LENGTH || length > MAX_LENGTH ? LENGTH_VIOLATION : 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= ALPHA_NUMERIC_CHARACTERS.length || !ALPHA_NUMERIC_CHARACTERS[c]) {
+                return violations | PATTERN_VIOLATION;
+            }
+        }
+        return violations;
+    }
+
+    private static boolean[] createAlphaNumericCharacters() {
+        var alphaNumericCharacters = new boolean[128];
+        for (char c = '0'; c <= '9'; c++) {
+            alphaNumericCharacters[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            alphaNumericCharacters[c] = true;
+            alphaNumericCharacters[Character.toLowerCase(c)] = true;
+        }
+        alphaNumericCharacters['_'] = true;
+        alphaNumericCharacters['-'] = true;
+        return alphaNumericCharacters;
+    }
 }
@@ -0,0 +1,23 @@
+package com.spotlight.platform.userprofile.api.model.common;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import javax.validation.Constraint;
+import javax.validation.Payload;
+
+// Reports the violations found when an AlphaNumericalStringWithMaxLength was created
+@Documented
+@Constraint(validatedBy = AlphaNumericalWithMaxLengthValidator.class)
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AlphaNumericalWithMaxLength {
+    String message() default "must be alphanumerical with a length between 1 and 1024";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
@@ -0,0 +1,31 @@
+package com.spotlight.platform.userprofile.api.model.common;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+
+public class AlphaNumericalWithMaxLengthValidator
+        implements ConstraintValidator<
+                AlphaNumericalWithMaxLength, AlphaNumericalStringWithMaxLength> {
+
+    @Override
+    public boolean isValid(
+            AlphaNumericalStringWithMaxLength value, ConstraintValidatorContext context) {
+        int violations = value.getViolations();
+        if (violations == 0) {
+            return true;
+        }
+        // One violation per broken rule, as before with separate constraints per rule
+        context.disableDefaultConstraintViolation();
+        if ((violations & AlphaNumericalStringWithMaxLength.LENGTH_VIOLATION) != 0) {
+            context.buildConstraintViolationWithTemplate(
+                            AlphaNumericalStringWithMaxLength.LENGTH_MESSAGE)
+                    .addConstraintViolation();
+        }
+        if ((violations & AlphaNumericalStringWithMaxLength.PATTERN_VIOLATION) != 0) {
+            context.buildConstraintViolationWithTemplate(
+                            AlphaNumericalStringWithMaxLength.PATTERN_MESSAGE)
+                    .addConstraintViolation();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,180 @@
+package com.spotlight.platform.userprofile.api.model.common;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Immutable list with amortized O(1) appends. Full chunks of 32 elements are kept in a trie that
+// lists created from each other share and never write to. The elements after them are in a tail
+// buffer; only the longest of the lists sharing it may append in place, any other list copies
+// the tail first. Elements past the size of a list are never read by it, so it never sees later
+// appends. A list built and then thrown away, like one of an update that lost a race, thus costs
+// the next append at most the copy of a tail, never of the whole list.
+public final class AppendOnlyList<E> extends AbstractList<E> implements RandomAccess {
+    private static final int CHUNK_BITS = 5;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int MIN_TAIL_CAPACITY = 8;
+    private static final AppendOnlyList<?> EMPTY =
+            new AppendOnlyList<>(new Object[CHUNK_SIZE], CHUNK_BITS, new Tail(0, 0), 0);
+
+    // Leaves are chunks, every other node refers to up to CHUNK_SIZE children
+    private final Object[] root;
+    private final int shift;
+    private final Tail tail;
+    private final int size;
+
+    private AppendOnlyList(Object[] root, int shift, Tail tail, int size) {
+        this.root = root;
+        this.shift = shift;
+        this.tail = tail;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> AppendOnlyList<E> empty() {
+        return (AppendOnlyList<E>) EMPTY;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> AppendOnlyList<E> copyOf(Collection<? extends E> elements) {
+        if (elements instanceof AppendOnlyList) {
+            // Safe as the list is immutable
+            return (AppendOnlyList<E>) elements;
+        }
+        return AppendOnlyList.<E>empty().appendAll(elements);
+    }
+
+    public AppendOnlyList<E> appendAll(Collection<? extends E> elements) {
+        AppendOnlyList<E> list = this;
+        for (Object element : elements.toArray()) {
+            list = list.append(element);
+        }
+        return list;
+    }
+
+    private AppendOnlyList<E> append(Object element) {
+        int newSize = Math.addExact(size, 1);
+        int tailSize = size - getTailOffset();
+        if (tailSize == CHUNK_SIZE) {
+            return new AppendOnlyList<>(
+                    pushTail(), getPushedShift(), createTail(MIN_TAIL_CAPACITY, element), newSize);
+        }
+        if (tailSize < tail.elements.length
+                && tail.claimedSize.compareAndSet(tailSize, tailSize + 1)) {
+            tail.elements[tailSize] = element;
+            return new AppendOnlyList<>(root, shift, tail, newSize);
+        }
+        // Another list appended to the tail first or it is full, only the tail is copied
+        var copiedTail =
+                new Tail(
+                        Math.min(CHUNK_SIZE, Math.max(MIN_TAIL_CAPACITY, 2 * tailSize)),
+                        tailSize + 1);
+        System.arraycopy(tail.elements, 0, copiedTail.elements, 0, tailSize);
+        copiedTail.elements[tailSize] = element;
+        return new AppendOnlyList<>(root, shift, copiedTail, newSize);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Objects.checkIndex(index, size);
+        int tailOffset = getTailOffset();
+        if (index >= tailOffset) {
+            return (E) tail.elements[index - tailOffset];
+        }
+        return (E) getChunk(index)[index & CHUNK_MASK];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] array = new Object[size];
+        int tailOffset = getTailOffset();
+        for (int index = 0; index < tailOffset; index += CHUNK_SIZE) {
+            System.arraycopy(getChunk(index), 0, array, index, CHUNK_SIZE);
+        }
+        System.arraycopy(tail.elements, 0, array, tailOffset, size - tailOffset);
+        return array;
+    }
+
+    // Chunk of the trie holding the element at the index
+    Object[] getChunk(int index) {
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= CHUNK_BITS) {
+            node = (Object[]) node[(index >>> level) & CHUNK_MASK];
+        }
+        return node;
+    }
+
+    private int getTailOffset() {
+        return size == 0 ? 0 : ((size - 1) >>> CHUNK_BITS) << CHUNK_BITS;
+    }
+
+    // A full tail is never appended to in place again, so it becomes a chunk of the trie as is.
+    // Only the nodes on the path to it are copied.
+    private Object[] pushTail() {
+        if (isRootFull()) {
+            var newRoot = new Object[CHUNK_SIZE];
+            newRoot[0] = root;
+            newRoot[1] = createPath(shift, tail.elements);
+            return newRoot;
+        }
+        return pushTail(shift, root);
+    }
+
+    private Object[] pushTail(int level, Object[] parent) {
+        Object[] node = parent.clone();
+        int childIndex = ((size - 1) >>> level) & CHUNK_MASK;
+        if (level == CHUNK_BITS) {
+            node[childIndex] = tail.elements;
+        } else {
+            var child = (Object[]) parent[childIndex];
+            node[childIndex] =
+                    child == null
+                            ? createPath(level - CHUNK_BITS, tail.elements)
+                            : pushTail(level - CHUNK_BITS, child);
+        }
+        return node;
+    }
+
+    private int getPushedShift() {
+        return isRootFull() ? shift + CHUNK_BITS : shift;
+    }
+
+    private boolean isRootFull() {
+        return (size >>> CHUNK_BITS) > (1 << shift);
+    }
+
+    private static Object[] createPath(int level, Object[] chunk) {
+        if (level == 0) {
+            return chunk;
+        }
+        var node = new Object[CHUNK_SIZE];
+        node[0] = createPath(level - CHUNK_BITS, chunk);
+        return node;
+    }
+
+    private static Tail createTail(int capacity, Object element) {
+        var tail = new Tail(capacity, 1);
+        tail.elements[0] = element;
+        return tail;
+    }
+
+    private static class Tail {
+        private final Object[] elements;
+        // Size of the longest list using the tail, counted from the start of the tail
+        private final AtomicInteger claimedSize;
+
+        private Tail(int capacity, int claimedSize) {
+            this.elements = new Object[capacity];
+            this.claimedSize = new AtomicInteger(claimedSize);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.spotlight.platform.userprofile.api.model.common;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// Canonical instances of values, so equal values created from the same key share one instance.
+// The number of canonical instances is bounded, as keys may come from requests; once the bound
+// is reached, values of new keys are created but not kept. Values that are not internable, e.g.
+// invalid ones that are about to be rejected, are never kept either.
+public final class BoundedInterner<K, V> {
+    private final ConcurrentHashMap<K, V> canonicalValues = new ConcurrentHashMap<>();
+    private final Function<K, V> factory;
+    private final Predicate<V> internable;
+    private final int maxSize;
+
+    public BoundedInterner(Function<K, V> factory, int maxSize) {
+        this(factory, value -> true, maxSize);
+    }
+
+    public BoundedInterner(Function<K, V> factory, Predicate<V> internable, int maxSize) {
+        this.factory = factory;
+        this.internable = internable;
+        this.maxSize = maxSize;
+    }
+
+    public V intern(K key) {
+        V canonicalValue = canonicalValues.get(key);
+        if (canonicalValue != null) {
+            return canonicalValue;
+        }
+        V value = factory.apply(key);
+        // Racing threads may overshoot the bound by a few entries, which is harmless
+        if (canonicalValues.size() >= maxSize || !internable.test(value)) {
+            return value;
+        }
+        canonicalValue = canonicalValues.putIfAbsent(key, value);
+        return canonicalValue != null ? canonicalValue : value;
+    }
+
+    // Canonical value of the key if it is interned, otherwise a new value that is not kept, so
+    // looking up keys never fills the interner
+    public V lookup(K key) {
+        V canonicalValue = canonicalValues.get(key);
+        return canonicalValue != null ? canonicalValue : factory.apply(key);
+    }
+
+    public int size() {
+        return canonicalValues.size();
+    }
+}
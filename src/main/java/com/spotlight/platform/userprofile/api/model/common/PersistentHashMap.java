@@ -0,0 +1,311 @@
+package com.spotlight.platform.userprofile.api.model.common;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+// Immutable hash array mapped trie. Adding an entry copies only the nodes on the path to it,
+// at most seven small arrays, and shares everything else with the map it was created from.
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+    private static final PersistentHashMap<?, ?> EMPTY =
+            new PersistentHashMap<>(BitmapNode.EMPTY, 0);
+    private static final Object NOT_FOUND = new Object();
+    private static final int BITS_PER_LEVEL = 5;
+    private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+    private static final int MAX_DEPTH = 10;
+
+    private final Node root;
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof PersistentHashMap) {
+            // Safe as the map is immutable
+            return (PersistentHashMap<K, V>) map;
+        }
+        return PersistentHashMap.<K, V>empty().plusAll(map);
+    }
+
+    public PersistentHashMap<K, V> plus(K key, V value) {
+        Objects.requireNonNull(key);
+        var addedEntry = new boolean[1];
+        Node newRoot = root.put(0, hash(key), key, value, addedEntry);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentHashMap<>(newRoot, addedEntry[0] ? size + 1 : size);
+    }
+
+    public PersistentHashMap<K, V> plusAll(Map<? extends K, ? extends V> map) {
+        PersistentHashMap<K, V> result = this;
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            result = result.plus(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    @Override
+    public V get(Object key) {
+        return getOrDefault(key, null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(Object key, V defaultValue) {
+        if (key == null) {
+            return defaultValue;
+        }
+        Object value = root.find(0, hash(key), key);
+        return value == NOT_FOUND ? defaultValue : (V) value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key != null && root.find(0, hash(key), key) != NOT_FOUND;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static int hash(Object key) {
+        int hashCode = key.hashCode();
+        return hashCode ^ (hashCode >>> 16);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & LEVEL_MASK);
+    }
+
+    // Nodes keep keys and values in pairs; a null key marks a child node in place of the value.
+    private interface Node {
+        Node put(int shift, int hash, Object key, Object value, boolean[] addedEntry);
+
+        Object find(int shift, int hash, Object key);
+
+        Object[] keysAndValues();
+    }
+
+    private static final class BitmapNode implements Node {
+        private static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        private final int bitmap;
+        private final Object[] keysAndValues;
+
+        private BitmapNode(int bitmap, Object[] keysAndValues) {
+            this.bitmap = bitmap;
+            this.keysAndValues = keysAndValues;
+        }
+
+        @Override
+        public Node put(int shift, int hash, Object key, Object value, boolean[] addedEntry) {
+            int bit = bit(hash, shift);
+            int keyIndex = 2 * Integer.bitCount(bitmap & (bit - 1));
+            if ((bitmap & bit) == 0) {
+                addedEntry[0] = true;
+                var newKeysAndValues = new Object[keysAndValues.length + 2];
+                System.arraycopy(keysAndValues, 0, newKeysAndValues, 0, keyIndex);
+                newKeysAndValues[keyIndex] = key;
+                newKeysAndValues[keyIndex + 1] = value;
+                System.arraycopy(
+                        keysAndValues,
+                        keyIndex,
+                        newKeysAndValues,
+                        keyIndex + 2,
+                        keysAndValues.length - keyIndex);
+                return new BitmapNode(bitmap | bit, newKeysAndValues);
+            }
+            Object existingKey = keysAndValues[keyIndex];
+            Object existingValue = keysAndValues[keyIndex + 1];
+            if (existingKey == null) {
+                Node child = (Node) existingValue;
+                Node newChild = child.put(shift + BITS_PER_LEVEL, hash, key, value, addedEntry);
+                return newChild == child ? this : with(keyIndex, null, newChild);
+            }
+            if (existingKey.equals(key)) {
+                return existingValue == value ? this : with(keyIndex, existingKey, value);
+            }
+            addedEntry[0] = true;
+            Node child =
+                    createChild(
+                            shift + BITS_PER_LEVEL, existingKey, existingValue, hash, key, value);
+            return with(keyIndex, null, child);
+        }
+
+        @Override
+        public Object find(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return NOT_FOUND;
+            }
+            int keyIndex = 2 * Integer.bitCount(bitmap & (bit - 1));
+            Object existingKey = keysAndValues[keyIndex];
+            if (existingKey == null) {
+                return ((Node) keysAndValues[keyIndex + 1]).find(shift + BITS_PER_LEVEL, hash, key);
+            }
+            return existingKey.equals(key) ? keysAndValues[keyIndex + 1] : NOT_FOUND;
+        }
+
+        @Override
+        public Object[] keysAndValues() {
+            return keysAndValues;
+        }
+
+        private BitmapNode with(int keyIndex, Object key, Object value) {
+            var newKeysAndValues = keysAndValues.clone();
+            newKeysAndValues[keyIndex] = key;
+            newKeysAndValues[keyIndex + 1] = value;
+            return new BitmapNode(bitmap, newKeysAndValues);
+        }
+
+        private static Node createChild(
+                int shift,
+                Object existingKey,
+                Object existingValue,
+                int hash,
+                Object key,
+                Object value) {
+            int existingHash = hash(existingKey);
+            if (existingHash == hash) {
+                return new CollisionNode(
+                        hash, new Object[] {existingKey, existingValue, key, value});
+            }
+            var ignored = new boolean[1];
+            return EMPTY.put(shift, existingHash, existingKey, existingValue, ignored)
+                    .put(shift, hash, key, value, ignored);
+        }
+    }
+
+    // Keys with identical hashes, only reached once all hash bits have been used up
+    private static final class CollisionNode implements Node {
+        private final int hash;
+        private final Object[] keysAndValues;
+
+        private CollisionNode(int hash, Object[] keysAndValues) {
+            this.hash = hash;
+            this.keysAndValues = keysAndValues;
+        }
+
+        @Override
+        public Node put(int shift, int hash, Object key, Object value, boolean[] addedEntry) {
+            if (hash != this.hash) {
+                return new BitmapNode(bit(this.hash, shift), new Object[] {null, this})
+                        .put(shift, hash, key, value, addedEntry);
+            }
+            for (int keyIndex = 0; keyIndex < keysAndValues.length; keyIndex += 2) {
+                if (keysAndValues[keyIndex].equals(key)) {
+                    if (keysAndValues[keyIndex + 1] == value) {
+                        return this;
+                    }
+                    var newKeysAndValues = keysAndValues.clone();
+                    newKeysAndValues[keyIndex + 1] = value;
+                    return new CollisionNode(hash, newKeysAndValues);
+                }
+            }
+            addedEntry[0] = true;
+            var newKeysAndValues = new Object[keysAndValues.length + 2];
+            System.arraycopy(keysAndValues, 0, newKeysAndValues, 0, keysAndValues.length);
+            newKeysAndValues[keysAndValues.length] = key;
+            newKeysAndValues[keysAndValues.length + 1] = value;
+            return new CollisionNode(hash, newKeysAndValues);
+        }
+
+        @Override
+        public Object find(int shift, int hash, Object key) {
+            if (hash == this.hash) {
+                for (int keyIndex = 0; keyIndex < keysAndValues.length; keyIndex += 2) {
+                    if (keysAndValues[keyIndex].equals(key)) {
+                        return keysAndValues[keyIndex + 1];
+                    }
+                }
+            }
+            return NOT_FOUND;
+        }
+
+        @Override
+        public Object[] keysAndValues() {
+            return keysAndValues;
+        }
+    }
+
+    private static final class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+        private final Object[][] keysAndValuesStack = new Object[MAX_DEPTH][];
+        private final int[] positionStack = new int[MAX_DEPTH];
+        private int depth = 0;
+        private Entry<K, V> nextEntry;
+
+        private EntryIterator(Node root) {
+            keysAndValuesStack[0] = root.keysAndValues();
+            nextEntry = findNextEntry();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextEntry != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (nextEntry == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> entry = nextEntry;
+            nextEntry = findNextEntry();
+            return entry;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Entry<K, V> findNextEntry() {
+            while (depth >= 0) {
+                Object[] keysAndValues = keysAndValuesStack[depth];
+                int position = positionStack[depth];
+                if (position >= keysAndValues.length) {
+                    keysAndValuesStack[depth] = null;
+                    depth--;
+                    continue;
+                }
+                positionStack[depth] = position + 2;
+                Object key = keysAndValues[position];
+                if (key == null) {
+                    Node child = (Node) keysAndValues[position + 1];
+                    depth++;
+                    keysAndValuesStack[depth] = child.keysAndValues();
+                    positionStack[depth] = 0;
+                    continue;
+                }
+                return new SimpleImmutableEntry<>((K) key, (V) keysAndValues[position + 1]);
+            }
+            return null;
+        }
+    }
+}
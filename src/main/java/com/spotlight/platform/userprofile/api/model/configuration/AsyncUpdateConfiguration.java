@@ -0,0 +1,25 @@
+package com.spotlight.platform.userprofile.api.model.configuration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.validation.constraints.Min;
+
+public class AsyncUpdateConfiguration {
+    // Number of accepted commands that may wait to be applied before new ones are rejected
+    @Min(1)
+    @JsonProperty
+    private int queueCapacity = 100_000;
+
+    // Number of threads applying accepted commands
+    @Min(1)
+    @JsonProperty
+    private int workers = Runtime.getRuntime().availableProcessors();
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+}
@@ -0,0 +1,16 @@
+package com.spotlight.platform.userprofile.api.model.configuration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.validation.constraints.Min;
+
+public class BulkUpdateConfiguration {
+    // Number of users whose commands are applied at the same time
+    @Min(1)
+    @JsonProperty
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    public int getParallelism() {
+        return parallelism;
+    }
+}
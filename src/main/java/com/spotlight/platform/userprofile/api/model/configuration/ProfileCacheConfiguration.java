@@ -0,0 +1,23 @@
+package com.spotlight.platform.userprofile.api.model.configuration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.dropwizard.util.DataSize;
+
+import javax.validation.constraints.NotNull;
+
+public class ProfileCacheConfiguration {
+    // Worth enabling in front of storages that decode or fetch profiles on every read
+    @JsonProperty private boolean enabled = false;
+
+    // Bound of the estimated heap size of the cached profiles
+    @NotNull @JsonProperty private DataSize maximumSize = DataSize.megabytes(256);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public DataSize getMaximumSize() {
+        return maximumSize;
+    }
+}
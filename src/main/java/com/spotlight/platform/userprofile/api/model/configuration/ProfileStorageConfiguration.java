@@ -0,0 +1,71 @@
+package com.spotlight.platform.userprofile.api.model.configuration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.dropwizard.util.Duration;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+public class ProfileStorageConfiguration {
+    public enum StorageType {
+        IN_MEMORY,
+        SHARDED,
+        DURABLE,
+        MEMORY_MAPPED
+    }
+
+    @NotNull @JsonProperty private StorageType type = StorageType.IN_MEMORY;
+
+    // Only used by the sharded and the memory-mapped storage
+    @Min(1)
+    @JsonProperty
+    private int shardCount = 16;
+
+    // Used to pre-size the storage so that it does not need to resize while filling up
+    @Min(0)
+    @JsonProperty
+    private long expectedProfileCount = 0;
+
+    // Only used by the durable and the memory-mapped storage
+    @NotNull @JsonProperty private String dataDirectory = "data";
+
+    // How long the first write of a commit may wait for other writes to share its fsync
+    @NotNull @JsonProperty private Duration maxCommitDelay = Duration.milliseconds(1);
+
+    // How often the durable storage is snapshotted, which bounds the log replayed on start
+    @NotNull @JsonProperty private Duration snapshotInterval = Duration.minutes(10);
+
+    // Number of files a snapshot is split into, each loaded by its own thread on start
+    @Min(1)
+    @JsonProperty
+    private int snapshotPartitions = Runtime.getRuntime().availableProcessors();
+
+    public StorageType getType() {
+        return type;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public long getExpectedProfileCount() {
+        return expectedProfileCount;
+    }
+
+    public String getDataDirectory() {
+        return dataDirectory;
+    }
+
+    public Duration getMaxCommitDelay() {
+        return maxCommitDelay;
+    }
+
+    public Duration getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    public int getSnapshotPartitions() {
+        return snapshotPartitions;
+    }
+}
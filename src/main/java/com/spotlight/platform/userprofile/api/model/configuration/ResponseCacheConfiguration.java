@@ -0,0 +1,23 @@
+package com.spotlight.platform.userprofile.api.model.configuration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.dropwizard.util.DataSize;
+
+import javax.validation.constraints.NotNull;
+
+public class ResponseCacheConfiguration {
+    // Worth enabling when the same unchanged profiles are read over and over
+    @JsonProperty private boolean enabled = false;
+
+    // Bound of the JSON held for profile reads
+    @NotNull @JsonProperty private DataSize maximumSize = DataSize.megabytes(64);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public DataSize getMaximumSize() {
+        return maximumSize;
+    }
+}
@@ -1,7 +1,47 @@
 package com.spotlight.platform.userprofile.api.model.configuration;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import io.dropwizard.Configuration;
 
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+
 public class UserProfileApiConfiguration extends Configuration {
     public static final String APPLICATION_NAME = "User Profile API";
+
+    @Valid @NotNull @JsonProperty
+    private ProfileStorageConfiguration profileStorage = new ProfileStorageConfiguration();
+
+    @Valid @NotNull @JsonProperty
+    private ProfileCacheConfiguration profileCache = new ProfileCacheConfiguration();
+
+    @Valid @NotNull @JsonProperty
+    private ResponseCacheConfiguration responseCache = new ResponseCacheConfiguration();
+
+    @Valid @NotNull @JsonProperty
+    private BulkUpdateConfiguration bulkUpdate = new BulkUpdateConfiguration();
+
+    @Valid @NotNull @JsonProperty
+    private AsyncUpdateConfiguration asyncUpdate = new AsyncUpdateConfiguration();
+
+    public ProfileStorageConfiguration getProfileStorage() {
+        return profileStorage;
+    }
+
+    public ProfileCacheConfiguration getProfileCache() {
+        return profileCache;
+    }
+
+    public ResponseCacheConfiguration getResponseCache() {
+        return responseCache;
+    }
+
+    public BulkUpdateConfiguration getBulkUpdate() {
+        return bulkUpdate;
+    }
+
+    public AsyncUpdateConfiguration getAsyncUpdate() {
+        return asyncUpdate;
+    }
 }
@@ -1,5 +1,6 @@
 package com.spotlight.platform.userprofile.api.model.profile;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
@@ -7,10 +8,40 @@ import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfi
 import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyValue;
 
 import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public record UserProfile(
         @JsonProperty UserId userId,
         @JsonProperty @JsonFormat(shape = JsonFormat.Shape.STRING) Instant latestUpdateTime,
         @JsonProperty
-                Map<UserProfilePropertyName, UserProfilePropertyValue> userProfileProperties) {}
+                Map<UserProfilePropertyName, UserProfilePropertyValue> userProfileProperties,
+        @JsonProperty long version) {
+    // Version of a profile that has not been written yet; every write increments the version
+    public static final long INITIAL_VERSION = 0;
+
+    @JsonCreator
+    public UserProfile {}
+
+    public UserProfile(
+            UserId userId,
+            Instant latestUpdateTime,
+            Map<UserProfilePropertyName, UserProfilePropertyValue> userProfileProperties) {
+        this(userId, latestUpdateTime, userProfileProperties, INITIAL_VERSION);
+    }
+
+    // Copy with only the given properties, found by lookup so the cost does not depend on the
+    // number of properties of the profile
+    public UserProfile withOnlyProperties(Collection<UserProfilePropertyName> propertyNames) {
+        Map<UserProfilePropertyName, UserProfilePropertyValue> projectedProperties =
+                new LinkedHashMap<>();
+        for (UserProfilePropertyName propertyName : propertyNames) {
+            UserProfilePropertyValue value = userProfileProperties.get(propertyName);
+            if (value != null) {
+                projectedProperties.put(propertyName, value);
+            }
+        }
+        return new UserProfile(userId, latestUpdateTime, projectedProperties, version);
+    }
+}
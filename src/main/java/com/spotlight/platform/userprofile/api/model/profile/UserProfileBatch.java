@@ -0,0 +1,9 @@
+package com.spotlight.platform.userprofile.api.model.profile;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
+
+import java.util.List;
+
+public record UserProfileBatch(
+        @JsonProperty List<UserProfile> userProfiles, @JsonProperty List<UserId> missingUserIds) {}
@@ -0,0 +1,5 @@
+package com.spotlight.platform.userprofile.api.model.profile;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record UserProfileUpdateError(@JsonProperty long line, @JsonProperty String message) {}
@@ -0,0 +1,11 @@
+package com.spotlight.platform.userprofile.api.model.profile;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public record UserProfileUpdateSummary(
+        @JsonProperty long applied,
+        @JsonProperty long rejected,
+        // Only the first errors, the rejected count covers all of them
+        @JsonProperty List<UserProfileUpdateError> errors) {}
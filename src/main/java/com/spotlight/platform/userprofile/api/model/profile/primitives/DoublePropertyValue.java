@@ -0,0 +1,36 @@
+package com.spotlight.platform.userprofile.api.model.profile.primitives;
+
+final class DoublePropertyValue extends UserProfilePropertyValue {
+    private final double value;
+
+    DoublePropertyValue(double value) {
+        this.value = value;
+    }
+
+    @Override
+    public Object getValue() {
+        return value;
+    }
+
+    @Override
+    public UserProfilePropertyValue increment(UserProfilePropertyValue incrementValue) {
+        if (incrementValue instanceof DoublePropertyValue doubleIncrement) {
+            return new DoublePropertyValue(value + doubleIncrement.value);
+        }
+        if (incrementValue instanceof LongPropertyValue longIncrement) {
+            return new DoublePropertyValue(value + longIncrement.longValue());
+        }
+        throw unsupportedOperation("increment", incrementValue);
+    }
+
+    @Override
+    public int hashCode() {
+        return Double.hashCode(value);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof DoublePropertyValue other
+                && Double.compare(value, other.value) == 0;
+    }
+}
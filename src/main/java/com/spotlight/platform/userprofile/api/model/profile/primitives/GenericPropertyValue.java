@@ -0,0 +1,27 @@
+package com.spotlight.platform.userprofile.api.model.profile.primitives;
+
+import java.util.Objects;
+
+// Any JSON value without a specialized representation, e.g. booleans or objects
+final class GenericPropertyValue extends UserProfilePropertyValue {
+    private final Object value;
+
+    GenericPropertyValue(Object value) {
+        this.value = value;
+    }
+
+    @Override
+    public Object getValue() {
+        return value;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(value);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof GenericPropertyValue other && Objects.equals(value, other.value);
+    }
+}
@@ -0,0 +1,38 @@
+package com.spotlight.platform.userprofile.api.model.profile.primitives;
+
+import com.spotlight.platform.userprofile.api.model.common.AppendOnlyList;
+
+import java.util.List;
+
+final class ListPropertyValue extends UserProfilePropertyValue {
+    private final List<?> value;
+
+    ListPropertyValue(List<?> value) {
+        this.value = value;
+    }
+
+    @Override
+    public Object getValue() {
+        return value;
+    }
+
+    @Override
+    public UserProfilePropertyValue collect(UserProfilePropertyValue collectValue) {
+        if (!(collectValue instanceof ListPropertyValue listToCollect)) {
+            throw unsupportedOperation("collect", collectValue);
+        }
+        // Only the first collect into a list copies it, later ones append to the shared buffer
+        return new ListPropertyValue(
+                AppendOnlyList.<Object>copyOf(value).appendAll(listToCollect.value));
+    }
+
+    @Override
+    public int hashCode() {
+        return value.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof ListPropertyValue other && value.equals(other.value);
+    }
+}
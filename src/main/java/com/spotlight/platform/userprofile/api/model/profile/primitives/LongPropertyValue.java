@@ -0,0 +1,65 @@
+package com.spotlight.platform.userprofile.api.model.profile.primitives;
+
+import com.spotlight.platform.userprofile.api.core.exceptions.IncrementOverflowException;
+
+final class LongPropertyValue extends UserProfilePropertyValue {
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1023;
+    private static final LongPropertyValue[] CACHE = createCache();
+
+    private final long value;
+
+    private LongPropertyValue(long value) {
+        this.value = value;
+    }
+
+    static LongPropertyValue of(long value) {
+        if (value >= CACHE_LOW && value <= CACHE_HIGH) {
+            return CACHE[(int) value - CACHE_LOW];
+        }
+        return new LongPropertyValue(value);
+    }
+
+    @Override
+    public Object getValue() {
+        return value;
+    }
+
+    @Override
+    public UserProfilePropertyValue increment(UserProfilePropertyValue incrementValue) {
+        if (incrementValue instanceof LongPropertyValue longIncrement) {
+            // Fail loudly instead of silently wrapping around
+            try {
+                return of(Math.addExact(value, longIncrement.value));
+            } catch (ArithmeticException e) {
+                throw new IncrementOverflowException();
+            }
+        }
+        if (incrementValue instanceof DoublePropertyValue doubleIncrement) {
+            return doubleIncrement.increment(this);
+        }
+        throw unsupportedOperation("increment", incrementValue);
+    }
+
+    long longValue() {
+        return value;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(value);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof LongPropertyValue other && value == other.value;
+    }
+
+    private static LongPropertyValue[] createCache() {
+        var cache = new LongPropertyValue[CACHE_HIGH - CACHE_LOW + 1];
+        for (int i = 0; i < cache.length; i++) {
+            cache[i] = new LongPropertyValue(i + CACHE_LOW);
+        }
+        return cache;
+    }
+}
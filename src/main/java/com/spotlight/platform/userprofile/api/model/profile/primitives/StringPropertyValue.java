@@ -0,0 +1,24 @@
+package com.spotlight.platform.userprofile.api.model.profile.primitives;
+
+final class StringPropertyValue extends UserProfilePropertyValue {
+    private final String value;
+
+    StringPropertyValue(String value) {
+        this.value = value;
+    }
+
+    @Override
+    public Object getValue() {
+        return value;
+    }
+
+    @Override
+    public int hashCode() {
+        return value.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof StringPropertyValue other && value.equals(other.value);
+    }
+}
@@ -1,18 +1,39 @@
 package com.spotlight.platform.userprofile.api.model.profile.primitives;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.KeyDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.spotlight.platform.userprofile.api.model.common.AlphaNumericalStringWithMaxLength;
+import com.spotlight.platform.userprofile.api.model.common.BoundedInterner;
 
+// Instances are interned, as all profiles share the same few hundred names. Map keys are
+// deserialized through valueOf as well, so names read from JSON are interned too. Names are
+// created before requests are validated, so only valid names are interned; the invalid ones of
+// a rejected request must not take the places of real names.
+@JsonDeserialize(keyUsing = UserProfilePropertyName.NameKeyDeserializer.class)
 public class UserProfilePropertyName extends AlphaNumericalStringWithMaxLength
         implements Comparable<UserProfilePropertyName> {
+    private static final int MAX_INTERNED_NAMES = 1 << 14;
+    private static final BoundedInterner<String, UserProfilePropertyName> INTERNER =
+            new BoundedInterner<>(
+                    UserProfilePropertyName::new,
+                    UserProfilePropertyName::isValid,
+                    MAX_INTERNED_NAMES);
 
-    @JsonCreator
     protected UserProfilePropertyName(String value) {
         super(value);
     }
 
+    @JsonCreator
     public static UserProfilePropertyName valueOf(String value) {
-        return new UserProfilePropertyName(value);
+        return INTERNER.intern(value);
+    }
+
+    // For names that only look up properties, e.g. the ones requested by a client, so arbitrary
+    // names cannot push the names of stored properties out of the interner
+    public static UserProfilePropertyName lookup(String value) {
+        return INTERNER.lookup(value);
     }
 
     @Override
@@ -22,11 +43,19 @@ public class UserProfilePropertyName extends AlphaNumericalStringWithMaxLength
 
     @Override
     public boolean equals(Object obj) {
-        return super.equals(obj);
+        // Interned names are mostly compared with themselves
+        return obj == this || super.equals(obj);
     }
 
     @Override
     public int hashCode() {
         return super.hashCode();
     }
+
+    public static class NameKeyDeserializer extends KeyDeserializer {
+        @Override
+        public Object deserializeKey(String key, DeserializationContext context) {
+            return valueOf(key);
+        }
+    }
 }
@@ -3,52 +3,65 @@ package com.spotlight.platform.userprofile.api.model.profile.primitives;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
 
-import java.util.*;
+import java.util.List;
 
-public class UserProfilePropertyValue {
+// Values are specialized by their JSON type, so that counters are kept as primitive longs
+// instead of being boxed on every increment.
+public abstract class UserProfilePropertyValue {
 
-    private final Object value;
-
-    @JsonCreator
-    private UserProfilePropertyValue(Object value) {
-        this.value = value;
-    }
+    UserProfilePropertyValue() {}
 
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
     public static UserProfilePropertyValue valueOf(Object value) {
-        return new UserProfilePropertyValue(value);
+        if (value instanceof Integer
+                || value instanceof Long
+                || value instanceof Short
+                || value instanceof Byte) {
+            return valueOf(((Number) value).longValue());
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return valueOf(((Number) value).doubleValue());
+        }
+        if (value instanceof String stringValue) {
+            return new StringPropertyValue(stringValue);
+        }
+        if (value instanceof List<?> listValue) {
+            return new ListPropertyValue(listValue);
+        }
+        return new GenericPropertyValue(value);
     }
 
-    @JsonValue
-    protected Object getValue() {
-        return value;
+    public static UserProfilePropertyValue valueOf(long value) {
+        return LongPropertyValue.of(value);
     }
 
-    @Override
-    public int hashCode() {
-        return value.hashCode();
+    public static UserProfilePropertyValue valueOf(double value) {
+        return new DoublePropertyValue(value);
     }
 
-    @Override
-    public boolean equals(Object obj) {
-        if (obj == null || this.getClass() != obj.getClass()) {
-            return false;
-        }
-        return value.equals(((UserProfilePropertyValue) obj).getValue());
-    }
+    // The plain Java value, the same that is written as JSON
+    @JsonValue
+    public abstract Object getValue();
 
     public UserProfilePropertyValue increment(UserProfilePropertyValue incrementValue) {
-        // Only allows for type integer in increment; may be that we support doubles, etc.
-        // or replace the existing value with the new integer
-        return UserProfilePropertyValue.valueOf(
-                (Integer) incrementValue.getValue() + (Integer) value);
+        // Only numbers can be incremented; may be that we want to replace the existing value
+        // with the increment instead
+        throw unsupportedOperation("increment", incrementValue);
     }
 
     public UserProfilePropertyValue collect(UserProfilePropertyValue collectValue) {
-        // Only allows for type List; may be that we want to put a string in a list
+        // Only lists can be collected into; may be that we want to put a string in a list
         // or replace the existing value
-        ArrayList<Object> combinedList = new ArrayList<>();
-        combinedList.addAll((Collection<?>) value);
-        combinedList.addAll((Collection<?>) collectValue.getValue());
-        return UserProfilePropertyValue.valueOf(combinedList);
+        throw unsupportedOperation("collect", collectValue);
+    }
+
+    protected ClassCastException unsupportedOperation(
+            String operation, UserProfilePropertyValue argument) {
+        return new ClassCastException(
+                "Cannot %s %s with %s"
+                        .formatted(
+                                operation,
+                                getClass().getSimpleName(),
+                                argument.getClass().getSimpleName()));
     }
 }
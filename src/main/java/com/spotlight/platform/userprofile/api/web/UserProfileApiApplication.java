@@ -1,12 +1,17 @@
 package com.spotlight.platform.userprofile.api.web;
 
 import com.spotlight.platform.userprofile.api.core.json.JsonMapper;
+import com.spotlight.platform.userprofile.api.core.profile.UserProfileAsyncUpdateService;
+import com.spotlight.platform.userprofile.api.core.profile.persistence.UserProfileDao;
 import com.spotlight.platform.userprofile.api.model.configuration.UserProfileApiConfiguration;
 import com.spotlight.platform.userprofile.api.web.exceptionmappers.EntityNotFoundExceptionMapper;
+import com.spotlight.platform.userprofile.api.web.exceptionmappers.IncrementOverflowExceptionMapper;
+import com.spotlight.platform.userprofile.api.web.exceptionmappers.QueueFullExceptionMapper;
 import com.spotlight.platform.userprofile.api.web.healthchecks.PreventStartupWarningHealthCheck;
 import com.spotlight.platform.userprofile.api.web.modules.UserProfileApiModule;
 
 import io.dropwizard.Application;
+import io.dropwizard.lifecycle.Managed;
 import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
 
@@ -38,6 +43,7 @@ public class UserProfileApiApplication extends Application<UserProfileApiConfigu
     public void run(UserProfileApiConfiguration configuration, Environment environment) {
         registerHealthChecks(environment);
         registerExceptionMappers(environment);
+        registerManagedObjects(environment);
     }
 
     public static void main(String[] args) throws Exception {
@@ -54,6 +60,18 @@ public class UserProfileApiApplication extends Application<UserProfileApiConfigu
 
     private void registerExceptionMappers(Environment environment) {
         environment.jersey().register(getInstance(EntityNotFoundExceptionMapper.class));
+        environment.jersey().register(getInstance(QueueFullExceptionMapper.class));
+        environment.jersey().register(getInstance(IncrementOverflowExceptionMapper.class));
+    }
+
+    // Storage first, so it is started before and stopped after the services using it. Managed
+    // objects are started before the server accepts requests, so a storage recovering its
+    // profiles on start is complete by the time the first request arrives.
+    private void registerManagedObjects(Environment environment) {
+        if (getInstance(UserProfileDao.class) instanceof Managed managedUserProfileDao) {
+            environment.lifecycle().manage(managedUserProfileDao);
+        }
+        environment.lifecycle().manage(getInstance(UserProfileAsyncUpdateService.class));
     }
 
     private <T> T getInstance(Class<T> clazz) {
@@ -1,13 +1,26 @@
 package com.spotlight.platform.userprofile.api.web.exceptionmappers;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
 import com.spotlight.platform.userprofile.api.core.exceptions.EntityNotFoundException;
 
+import javax.inject.Inject;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.ExceptionMapper;
 
 public class EntityNotFoundExceptionMapper implements ExceptionMapper<EntityNotFoundException> {
+    public static final String NOT_FOUND_METER_NAME = "user-profile.not-found";
+
+    private final Meter notFound;
+
+    @Inject
+    public EntityNotFoundExceptionMapper(MetricRegistry metricRegistry) {
+        this.notFound = metricRegistry.meter(NOT_FOUND_METER_NAME);
+    }
+
     @Override
     public Response toResponse(EntityNotFoundException exception) {
+        notFound.mark();
         return Response.status(Response.Status.NOT_FOUND).build();
     }
 }
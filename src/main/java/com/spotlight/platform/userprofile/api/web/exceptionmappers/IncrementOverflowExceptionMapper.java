@@ -0,0 +1,15 @@
+package com.spotlight.platform.userprofile.api.web.exceptionmappers;
+
+import com.spotlight.platform.userprofile.api.core.exceptions.IncrementOverflowException;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+
+// The command asked for a value the property cannot hold, so retrying it cannot succeed
+public class IncrementOverflowExceptionMapper
+        implements ExceptionMapper<IncrementOverflowException> {
+    @Override
+    public Response toResponse(IncrementOverflowException exception) {
+        return Response.status(Response.Status.BAD_REQUEST).build();
+    }
+}
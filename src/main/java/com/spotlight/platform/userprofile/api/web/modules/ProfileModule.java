@@ -1,16 +1,159 @@
 package com.spotlight.platform.userprofile.api.web.modules;
 
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.spotlight.platform.userprofile.api.core.profile.UserProfileAsyncUpdateService;
+import com.spotlight.platform.userprofile.api.core.profile.UserProfileBulkService;
+import com.spotlight.platform.userprofile.api.core.profile.UserProfileResponseCache;
 import com.spotlight.platform.userprofile.api.core.profile.UserProfileService;
+import com.spotlight.platform.userprofile.api.core.profile.UserProfileStreamService;
+import com.spotlight.platform.userprofile.api.core.profile.UserProfileUpdateCoalescer;
 import com.spotlight.platform.userprofile.api.core.profile.persistence.UserProfileDao;
+import com.spotlight.platform.userprofile.api.core.profile.persistence.UserProfileDaoCached;
+import com.spotlight.platform.userprofile.api.core.profile.persistence.UserProfileDaoDurable;
 import com.spotlight.platform.userprofile.api.core.profile.persistence.UserProfileDaoInMemory;
+import com.spotlight.platform.userprofile.api.core.profile.persistence.UserProfileDaoInstrumented;
+import com.spotlight.platform.userprofile.api.core.profile.persistence.UserProfileDaoMemoryMapped;
+import com.spotlight.platform.userprofile.api.core.profile.persistence.UserProfileDaoSharded;
+import com.spotlight.platform.userprofile.api.model.configuration.AsyncUpdateConfiguration;
+import com.spotlight.platform.userprofile.api.model.configuration.ProfileCacheConfiguration;
+import com.spotlight.platform.userprofile.api.model.configuration.ProfileStorageConfiguration;
+import com.spotlight.platform.userprofile.api.model.configuration.ResponseCacheConfiguration;
+import com.spotlight.platform.userprofile.api.model.configuration.UserProfileApiConfiguration;
 
-import javax.inject.Singleton;
+import io.dropwizard.setup.Environment;
+
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
 
 public class ProfileModule extends AbstractModule {
     @Override
     protected void configure() {
-        bind(UserProfileDao.class).to(UserProfileDaoInMemory.class).in(Singleton.class);
         bind(UserProfileService.class).in(Singleton.class);
     }
+
+    @Provides
+    @Singleton
+    public UserProfileDao getUserProfileDao(
+            UserProfileApiConfiguration configuration,
+            Environment environment,
+            MetricRegistry metricRegistry) {
+        UserProfileDao userProfileDao =
+                createUserProfileDao(
+                        configuration.getProfileStorage(), environment, metricRegistry);
+        ProfileCacheConfiguration cacheConfiguration = configuration.getProfileCache();
+        if (cacheConfiguration.isEnabled()) {
+            userProfileDao =
+                    new UserProfileDaoCached(
+                            userProfileDao,
+                            cacheConfiguration.getMaximumSize().toBytes(),
+                            metricRegistry);
+        }
+        // Whichever storage is configured, its operations are timed as seen by the services
+        return new UserProfileDaoInstrumented(userProfileDao, metricRegistry);
+    }
+
+    private static UserProfileDao createUserProfileDao(
+            ProfileStorageConfiguration storageConfiguration,
+            Environment environment,
+            MetricRegistry metricRegistry) {
+        return switch (storageConfiguration.getType()) {
+            case IN_MEMORY -> new UserProfileDaoInMemory();
+            case SHARDED -> new UserProfileDaoSharded(
+                    storageConfiguration.getShardCount(),
+                    storageConfiguration.getExpectedProfileCount(),
+                    metricRegistry);
+            case DURABLE -> new UserProfileDaoDurable(
+                    Path.of(storageConfiguration.getDataDirectory()),
+                    storageConfiguration.getMaxCommitDelay().toNanoseconds(),
+                    storageConfiguration.getSnapshotInterval().toNanoseconds(),
+                    storageConfiguration.getSnapshotPartitions(),
+                    // A single thread, so snapshotting never competes with requests for more
+                    // than one core
+                    environment.lifecycle().scheduledExecutorService("profile-snapshot-%d").build(),
+                    metricRegistry);
+            case MEMORY_MAPPED -> new UserProfileDaoMemoryMapped(
+                    Path.of(storageConfiguration.getDataDirectory()),
+                    storageConfiguration.getShardCount(),
+                    storageConfiguration.getExpectedProfileCount(),
+                    metricRegistry);
+        };
+    }
+
+    @Provides
+    @Singleton
+    public UserProfileBulkService getUserProfileBulkService(
+            UserProfileApiConfiguration configuration,
+            UserProfileService userProfileService,
+            UserProfileUpdateCoalescer userProfileUpdateCoalescer,
+            Environment environment,
+            MetricRegistry metricRegistry) {
+        int parallelism = configuration.getBulkUpdate().getParallelism();
+        // Managed by Dropwizard, so it is shut down together with the application
+        ExecutorService executorService =
+                environment
+                        .lifecycle()
+                        .executorService("bulk-update-%d")
+                        .minThreads(parallelism)
+                        .maxThreads(parallelism)
+                        .build();
+        return new UserProfileBulkService(
+                userProfileService,
+                userProfileUpdateCoalescer,
+                executorService,
+                parallelism,
+                metricRegistry);
+    }
+
+    @Provides
+    @Singleton
+    public UserProfileAsyncUpdateService getUserProfileAsyncUpdateService(
+            UserProfileApiConfiguration configuration,
+            UserProfileService userProfileService,
+            Environment environment,
+            MetricRegistry metricRegistry) {
+        AsyncUpdateConfiguration asyncUpdateConfiguration = configuration.getAsyncUpdate();
+        int workers = asyncUpdateConfiguration.getWorkers();
+        // Every worker keeps its thread until the service is stopped
+        ExecutorService executorService =
+                environment
+                        .lifecycle()
+                        .executorService("async-update-%d")
+                        .minThreads(workers)
+                        .maxThreads(workers)
+                        .build();
+        return new UserProfileAsyncUpdateService(
+                userProfileService,
+                executorService,
+                asyncUpdateConfiguration.getQueueCapacity(),
+                workers,
+                metricRegistry);
+    }
+
+    @Provides
+    @Singleton
+    public UserProfileResponseCache getUserProfileResponseCache(
+            UserProfileApiConfiguration configuration,
+            ObjectMapper objectMapper,
+            MetricRegistry metricRegistry) {
+        ResponseCacheConfiguration cacheConfiguration = configuration.getResponseCache();
+        return new UserProfileResponseCache(
+                objectMapper,
+                cacheConfiguration.isEnabled() ? cacheConfiguration.getMaximumSize().toBytes() : 0,
+                metricRegistry);
+    }
+
+    @Provides
+    @Singleton
+    public UserProfileStreamService getUserProfileStreamService(
+            UserProfileService userProfileService,
+            ObjectMapper objectMapper,
+            Environment environment) {
+        // Same validator as Jersey uses for request bodies
+        return new UserProfileStreamService(
+                userProfileService, objectMapper, environment.getValidator());
+    }
 }
@@ -7,6 +7,7 @@ public class UserProfileApiModule implements Module {
     @Override
     public void configure(Binder binder) {
         binder.install(new JsonModule());
+        binder.install(new MetricsModule());
         binder.install(new ProfileModule());
     }
 }
@@ -1,55 +1,202 @@
 package com.spotlight.platform.userprofile.api.web.resources;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.spotlight.platform.userprofile.api.core.profile.UserProfileAsyncUpdateService;
+import com.spotlight.platform.userprofile.api.core.profile.UserProfileBulkService;
+import com.spotlight.platform.userprofile.api.core.profile.UserProfileResponseCache;
 import com.spotlight.platform.userprofile.api.core.profile.UserProfileService;
+import com.spotlight.platform.userprofile.api.core.profile.UserProfileStreamService;
 import com.spotlight.platform.userprofile.api.model.profile.UserProfile;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfileBatch;
 import com.spotlight.platform.userprofile.api.model.profile.UserProfileUpdate;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfileUpdateSummary;
 import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
 import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyName;
 import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyValue;
 import com.spotlight.platform.userprofile.api.model.profile.primitives.UserUpdateType;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import javax.inject.Inject;
 import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
 import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 @Path("/users")
 @Consumes(MediaType.APPLICATION_JSON)
 @Produces(MediaType.APPLICATION_JSON)
 public class UserResource {
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+    public static final int MAX_BATCH_GET_SIZE = 100;
 
     private final UserProfileService userProfileService;
+    private final UserProfileBulkService userProfileBulkService;
+    private final UserProfileAsyncUpdateService userProfileAsyncUpdateService;
+    private final UserProfileStreamService userProfileStreamService;
+    private final UserProfileResponseCache userProfileResponseCache;
+    private final ObjectWriter userProfileWriter;
 
     @Inject
-    public UserResource(UserProfileService userProfileService) {
+    public UserResource(
+            UserProfileService userProfileService,
+            UserProfileBulkService userProfileBulkService,
+            UserProfileAsyncUpdateService userProfileAsyncUpdateService,
+            UserProfileStreamService userProfileStreamService,
+            UserProfileResponseCache userProfileResponseCache,
+            ObjectMapper objectMapper) {
         this.userProfileService = userProfileService;
+        this.userProfileBulkService = userProfileBulkService;
+        this.userProfileAsyncUpdateService = userProfileAsyncUpdateService;
+        this.userProfileStreamService = userProfileStreamService;
+        this.userProfileResponseCache = userProfileResponseCache;
+        // Flushing after every profile of an export would send a packet per profile
+        this.userProfileWriter =
+                objectMapper
+                        .writerFor(UserProfile.class)
+                        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
+    // Only the comma separated properties are returned if given, e.g. ?properties=gold,gems
+    // Whole profiles are tagged with the storage epoch and their version; a client sending it back
+    // in If-None-Match gets 304 Not Modified without the profile being written as JSON again.
+    // Versions count from the start again whenever the epoch changes, e.g. on every restart with
+    // in memory storage, so a tag of an earlier epoch never matches.
     @Path("{userId}/profile")
     @GET
-    public UserProfile getUserProfile(@Valid @PathParam("userId") UserId userId) {
-        return userProfileService.get(userId);
+    public Response getUserProfile(
+            @Valid @PathParam("userId") UserId userId,
+            @QueryParam("properties") String properties,
+            @Context Request request)
+            throws JsonProcessingException {
+        UserProfile userProfile = userProfileService.get(userId);
+        if (properties == null) {
+            var entityTag =
+                    new EntityTag(
+                            userProfileService.getStorageEpoch() + "-" + userProfile.version());
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+            if (notModified != null) {
+                return notModified.build();
+            }
+            // Whole profiles are read again and again, so their JSON is cached
+            return Response.ok(userProfileResponseCache.getJson(userProfile))
+                    .tag(entityTag)
+                    .build();
+        }
+        return Response.ok(userProfile.withOnlyProperties(parsePropertyNames(properties))).build();
+    }
+
+    // POST, as the ids of a whole lobby may not fit into a URL. Unlike the export, the batch is
+    // not streamed: it never holds more than MAX_BATCH_GET_SIZE profiles, all read with a single
+    // storage call, and Jersey serializes it straight into the response.
+    @Path("profiles")
+    @POST
+    public UserProfileBatch getUserProfiles(
+            @Valid @NotNull @Size(max = MAX_BATCH_GET_SIZE) List<UserId> userIds) {
+        return userProfileService.getAll(userIds);
     }
 
+    // One profile per line, written while the profiles are read from storage
+    @Path("export")
+    @GET
+    @Produces(APPLICATION_NDJSON)
+    public StreamingOutput exportUserProfiles(@QueryParam("updatedSince") String updatedSince) {
+        Instant updatedSinceInstant = parseInstant(updatedSince);
+        return output -> writeUserProfiles(updatedSinceInstant, output);
+    }
+
+    // With async, the command is only accepted and applied in the background
     @Path("{userId}/update/{userUpdateType}")
     @POST
-    public void updateUserProfile(
+    public Response updateUserProfile(
             @Valid @PathParam("userId") UserId userId,
             @PathParam("userUpdateType") UserUpdateType userUpdateType,
+            @QueryParam("async") boolean async,
             Map<UserProfilePropertyName, UserProfilePropertyValue> userProfileProperties) {
         UserProfileUpdate userProfileUpdate =
                 new UserProfileUpdate(userId, userUpdateType, userProfileProperties);
+        if (async) {
+            userProfileAsyncUpdateService.enqueue(userProfileUpdate);
+            return Response.accepted().build();
+        }
         userProfileService.update(userProfileUpdate);
+        return Response.noContent().build();
     }
 
     // Might prefer to separate out bulk vs individual operations into different classes
     // "The underlying validation framework can't unwrap nested types :/"
     @Path("update")
     @POST
-    public void updateUserProfiles(@Valid List<UserProfileUpdate> userProfileUpdates) {
-        userProfileUpdates.forEach(userProfileService::update);
+    public Response updateUserProfiles(
+            @QueryParam("async") boolean async,
+            @Valid List<UserProfileUpdate> userProfileUpdates) {
+        if (async) {
+            userProfileAsyncUpdateService.enqueue(userProfileUpdates);
+            return Response.accepted().build();
+        }
+        userProfileBulkService.update(userProfileUpdates);
+        return Response.noContent().build();
+    }
+
+    // One command per line, applied while the body is still being received
+    @Path("update/stream")
+    @POST
+    @Consumes(APPLICATION_NDJSON)
+    public UserProfileUpdateSummary updateUserProfilesStream(InputStream userProfileUpdates)
+            throws IOException {
+        return userProfileStreamService.update(userProfileUpdates);
+    }
+
+    private void writeUserProfiles(Instant updatedSince, OutputStream output) throws IOException {
+        try (Stream<UserProfile> userProfiles = userProfileService.streamUpdatedSince(updatedSince);
+                JsonGenerator generator = userProfileWriter.getFactory().createGenerator(output)) {
+            generator.setRootValueSeparator(null);
+            Iterator<UserProfile> userProfileIterator = userProfiles.iterator();
+            while (userProfileIterator.hasNext()) {
+                userProfileWriter.writeValue(generator, userProfileIterator.next());
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    private static Set<UserProfilePropertyName> parsePropertyNames(String propertyNames) {
+        Set<UserProfilePropertyName> parsedPropertyNames = new LinkedHashSet<>();
+        for (String propertyName : propertyNames.split(",")) {
+            if (!propertyName.isBlank()) {
+                parsedPropertyNames.add(UserProfilePropertyName.lookup(propertyName.strip()));
+            }
+        }
+        return parsedPropertyNames;
+    }
+
+    private static Instant parseInstant(String instant) {
+        if (instant == null) {
+            return Instant.MIN;
+        }
+        try {
+            return Instant.parse(instant);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Expected an ISO-8601 instant but got " + instant);
+        }
     }
 }
@@ -0,0 +1,196 @@
+package com.spotlight.platform.userprofile.api.core.profile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import com.codahale.metrics.MetricRegistry;
+import com.spotlight.platform.userprofile.api.core.exceptions.QueueFullException;
+import com.spotlight.platform.userprofile.api.core.profile.persistence.UserProfileDaoInMemory;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfileUpdate;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyName;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyValue;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfileUpdateFixture;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserUpdateType;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+class UserProfileAsyncUpdateServiceTest {
+    private static final int QUEUE_CAPACITY = 10;
+
+    private final UserProfileService userProfileServiceMock = mock(UserProfileService.class);
+    private final ExecutorService executorService = Executors.newFixedThreadPool(2);
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private final UserProfileAsyncUpdateService userProfileAsyncUpdateService =
+            new UserProfileAsyncUpdateService(
+                    userProfileServiceMock, executorService, QUEUE_CAPACITY, 2, metricRegistry);
+
+    private final Queue<UserProfileUpdate> appliedUpdates = new ConcurrentLinkedQueue<>();
+    private final CountDownLatch blockApplying = new CountDownLatch(1);
+
+    @AfterEach
+    void afterEach() throws InterruptedException {
+        blockApplying.countDown();
+        userProfileAsyncUpdateService.stop();
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void enqueueManyUsers_appliesCommandsOfEachUserInOrder() throws InterruptedException {
+        recordAppliedUpdates();
+        userProfileAsyncUpdateService.start();
+        var userProfileUpdates =
+                IntStream.range(0, 10)
+                        .mapToObj(i -> createUserProfileUpdate("user-" + (i % 3), i))
+                        .toList();
+
+        userProfileAsyncUpdateService.enqueue(userProfileUpdates);
+        userProfileAsyncUpdateService.stop();
+
+        assertThat(appliedUpdates).containsExactlyInAnyOrderElementsOf(userProfileUpdates);
+        for (int user = 0; user < 3; user++) {
+            var userId = UserId.valueOf("user-" + user);
+            assertThat(appliedUpdates.stream().filter(update -> update.userId().equals(userId)))
+                    .containsExactlyElementsOf(
+                            userProfileUpdates.stream()
+                                    .filter(update -> update.userId().equals(userId))
+                                    .toList());
+        }
+        assertThat(metricRegistry.meter("user-profile.async-update.applied").getCount())
+                .isEqualTo(10);
+        assertThat(metricRegistry.timer("user-profile.async-update.enqueue-to-apply").getCount())
+                .isEqualTo(10);
+        assertThat(getQueueDepth()).isEqualTo(0);
+    }
+
+    @Test
+    void enqueueBeyondCapacity_rejectsWholeBatch() throws InterruptedException {
+        var applying = new CountDownLatch(1);
+        doAnswer(
+                        invocation -> {
+                            applying.countDown();
+                            blockApplying.await();
+                            return null;
+                        })
+                .when(userProfileServiceMock)
+                .update(any(UserProfileUpdate.class));
+        userProfileAsyncUpdateService.start();
+        userProfileAsyncUpdateService.enqueue(createUserProfileUpdate("user", 0));
+        applying.await();
+
+        var userProfileUpdates =
+                IntStream.range(0, QUEUE_CAPACITY)
+                        .mapToObj(i -> createUserProfileUpdate("user", i))
+                        .toList();
+        assertThatThrownBy(() -> userProfileAsyncUpdateService.enqueue(userProfileUpdates))
+                .isExactlyInstanceOf(QueueFullException.class);
+        assertThat(metricRegistry.meter("user-profile.async-update.rejected").getCount())
+                .isEqualTo(QUEUE_CAPACITY);
+        assertThat(getQueueDepth()).isEqualTo(1);
+    }
+
+    @Test
+    void enqueueWhenNotStarted_rejectsCommands() {
+        assertThatThrownBy(
+                        () ->
+                                userProfileAsyncUpdateService.enqueue(
+                                        UserProfileUpdateFixture.INCREMENT_USER_PROFILE_UPDATE))
+                .isExactlyInstanceOf(QueueFullException.class);
+        verifyNoInteractions(userProfileServiceMock);
+    }
+
+    @Test
+    void enqueueNoCommands_doesNothing() {
+        userProfileAsyncUpdateService.enqueue(List.of());
+
+        assertThat(metricRegistry.meter("user-profile.async-update.rejected").getCount()).isZero();
+    }
+
+    @Test
+    void applyFails_continuesWithNextCommands() throws InterruptedException {
+        var failingUpdate = createUserProfileUpdate("user", 0);
+        doAnswer(
+                        invocation -> {
+                            UserProfileUpdate userProfileUpdate = invocation.getArgument(0);
+                            if (userProfileUpdate == failingUpdate) {
+                                throw new ClassCastException("failed");
+                            }
+                            appliedUpdates.add(userProfileUpdate);
+                            return null;
+                        })
+                .when(userProfileServiceMock)
+                .update(any(UserProfileUpdate.class));
+        userProfileAsyncUpdateService.start();
+        var otherUpdate = createUserProfileUpdate("user", 1);
+
+        userProfileAsyncUpdateService.enqueue(List.of(failingUpdate, otherUpdate));
+        userProfileAsyncUpdateService.stop();
+
+        assertThat(appliedUpdates).containsExactly(otherUpdate);
+        assertThat(metricRegistry.meter("user-profile.async-update.failed").getCount())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void enqueueWhileOtherWritersUpdateSameUser_appliesEveryCommand() throws InterruptedException {
+        var serviceMetricRegistry = new MetricRegistry();
+        var userProfileService =
+                new UserProfileService(new UserProfileDaoInMemory(), serviceMetricRegistry);
+        var asyncUpdateService =
+                new UserProfileAsyncUpdateService(
+                        userProfileService, executorService, 1000, 2, metricRegistry);
+        var userProfileUpdate = createUserProfileUpdate("user", 1);
+        asyncUpdateService.start();
+
+        // Every other command is applied right away, racing the worker applying the others
+        IntStream.range(0, 2000)
+                .parallel()
+                .forEach(
+                        i -> {
+                            if (i % 2 == 0) {
+                                asyncUpdateService.enqueue(userProfileUpdate);
+                            } else {
+                                userProfileService.increment(userProfileUpdate);
+                            }
+                        });
+        asyncUpdateService.stop();
+
+        assertThat(userProfileService.get(UserId.valueOf("user")).userProfileProperties())
+                .containsEntry(
+                        UserProfilePropertyName.valueOf("property"),
+                        UserProfilePropertyValue.valueOf(2000));
+        assertThat(metricRegistry.meter("user-profile.async-update.applied").getCount())
+                .isEqualTo(1000);
+        assertThat(metricRegistry.meter("user-profile.async-update.failed").getCount()).isZero();
+    }
+
+    private Object getQueueDepth() {
+        return metricRegistry.getGauges().get("user-profile.async-update.queue-depth").getValue();
+    }
+
+    private void recordAppliedUpdates() {
+        doAnswer(invocation -> appliedUpdates.add(invocation.getArgument(0)))
+                .when(userProfileServiceMock)
+                .update(any(UserProfileUpdate.class));
+    }
+
+    private static UserProfileUpdate createUserProfileUpdate(String userId, int value) {
+        return new UserProfileUpdate(
+                UserId.valueOf(userId),
+                UserUpdateType.INCREMENT,
+                UserProfileUpdateFixture.getUserProfileProperty("property", value));
+    }
+}
@@ -0,0 +1,303 @@
+package com.spotlight.platform.userprofile.api.core.profile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
+import com.spotlight.platform.userprofile.api.core.profile.persistence.UserProfileDaoInMemory;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfileUpdate;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfileFixtures;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyName;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyValue;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfileUpdateFixture;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserUpdateType;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+class UserProfileBulkServiceTest {
+    private final UserProfileService userProfileServiceMock = mock(UserProfileService.class);
+    private final ExecutorService executorService = Executors.newFixedThreadPool(4);
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private final UserProfileBulkService userProfileBulkService =
+            createUserProfileBulkService(userProfileServiceMock);
+
+    private final Queue<UserProfileUpdate> appliedUpdates = new ConcurrentLinkedQueue<>();
+
+    @AfterEach
+    void afterEach() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void updateManyUsers_appliesCommandsOfEachUserInOrder() {
+        var userProfileDao = new UserProfileDaoInMemory();
+        var userProfileService = new UserProfileService(userProfileDao, metricRegistry);
+        var userProfileUpdates =
+                IntStream.range(0, 1000)
+                        .mapToObj(
+                                i ->
+                                        createUserProfileUpdate(
+                                                "user-" + (i % 10),
+                                                i % 3 == 0
+                                                        ? UserUpdateType.REPLACE
+                                                        : UserUpdateType.COLLECT,
+                                                List.of(i)))
+                        .toList();
+        var sequentialUserProfileDao = new UserProfileDaoInMemory();
+        userProfileUpdates.forEach(
+                new UserProfileService(sequentialUserProfileDao, metricRegistry)::update);
+
+        createUserProfileBulkService(userProfileService).update(userProfileUpdates);
+
+        for (int user = 0; user < 10; user++) {
+            var userId = UserId.valueOf("user-" + user);
+            assertThat(userProfileDao.get(userId).orElseThrow().userProfileProperties())
+                    .isEqualTo(
+                            sequentialUserProfileDao
+                                    .get(userId)
+                                    .orElseThrow()
+                                    .userProfileProperties());
+        }
+    }
+
+    @Test
+    void updateIncrements_addsThemOneAfterTheOther() {
+        var userProfileDao = new UserProfileDaoInMemory();
+        var userProfileService = new UserProfileService(userProfileDao, metricRegistry);
+        userProfileService.update(createUserProfileUpdate("user", UserUpdateType.REPLACE, 1e16));
+
+        createUserProfileBulkService(userProfileService)
+                .update(
+                        List.of(
+                                createUserProfileUpdate("user", UserUpdateType.INCREMENT, 1.0),
+                                createUserProfileUpdate("user", UserUpdateType.INCREMENT, 1.0)));
+
+        assertThat(
+                        userProfileDao
+                                .get(UserId.valueOf("user"))
+                                .orElseThrow()
+                                .userProfileProperties())
+                .containsEntry(
+                        UserProfilePropertyName.valueOf("property"),
+                        UserProfilePropertyValue.valueOf(1e16 + 1.0 + 1.0));
+    }
+
+    @Test
+    void updateIncrementsOverflowingInBetween_throwsException() {
+        var userProfileDao = new UserProfileDaoInMemory();
+        var userProfileService = new UserProfileService(userProfileDao, metricRegistry);
+        userProfileService.update(
+                createUserProfileUpdate("user", UserUpdateType.REPLACE, Long.MAX_VALUE));
+
+        assertThatThrownBy(
+                        () ->
+                                createUserProfileBulkService(userProfileService)
+                                        .update(
+                                                List.of(
+                                                        createUserProfileUpdate("user", 1),
+                                                        createUserProfileUpdate("user", -1))))
+                .isInstanceOf(ArithmeticException.class);
+        assertThat(
+                        userProfileDao
+                                .get(UserId.valueOf("user"))
+                                .orElseThrow()
+                                .userProfileProperties())
+                .containsEntry(
+                        UserProfilePropertyName.valueOf("property"),
+                        UserProfilePropertyValue.valueOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    void updateManyUsers_submitsAtMostOneTaskPerThread() throws InterruptedException {
+        recordAppliedUpdates();
+        var executorServiceMock = mock(ExecutorService.class);
+        doAnswer(invocation -> executorService.invokeAll(invocation.getArgument(0)))
+                .when(executorServiceMock)
+                .invokeAll(anyCollection());
+        var userProfileUpdates =
+                IntStream.range(0, 100)
+                        .mapToObj(i -> createUserProfileUpdate("user-" + i, i))
+                        .toList();
+
+        createUserProfileBulkService(userProfileServiceMock, executorServiceMock, 2)
+                .update(userProfileUpdates);
+
+        verify(executorServiceMock).invokeAll(argThat(tasks -> tasks.size() == 2));
+        assertThat(appliedUpdates).containsExactlyInAnyOrderElementsOf(userProfileUpdates);
+    }
+
+    @Test
+    void updateSingleUser_coalescesCommandsIntoSingleWrite() {
+        var userProfileUpdates =
+                List.of(
+                        UserProfileUpdateFixture.REPLACE_USER_PROFILE_UPDATE,
+                        UserProfileUpdateFixture.INCREMENT_USER_PROFILE_UPDATE,
+                        UserProfileUpdateFixture.COLLECT_USER_PROFILE_UPDATE);
+        when(userProfileServiceMock.updateProperties(any(UserId.class), anyMap()))
+                .thenReturn(true);
+
+        userProfileBulkService.update(userProfileUpdates);
+
+        verify(userProfileServiceMock)
+                .updateProperties(
+                        UserProfileFixtures.USER_ID,
+                        Map.of(
+                                UserProfilePropertyName.valueOf("property1"),
+                                new UserProfilePropertyUpdate(
+                                        UserUpdateType.REPLACE,
+                                        UserProfilePropertyValue.valueOf("newValue")),
+                                UserProfilePropertyName.valueOf("property2"),
+                                new UserProfilePropertyUpdate(
+                                        UserUpdateType.INCREMENT,
+                                        UserProfilePropertyValue.valueOf(2)),
+                                UserProfilePropertyName.valueOf("property3"),
+                                new UserProfilePropertyUpdate(
+                                        UserUpdateType.COLLECT,
+                                        UserProfilePropertyValue.valueOf(List.of("sword")))));
+        verify(userProfileServiceMock, never()).update(any(UserProfileUpdate.class));
+        assertThat(metricRegistry.meter("user-profile.bulk-update.writes").getCount())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void coalescedWriteNotApplicable_appliesCommandsOneByOne() {
+        recordAppliedUpdates();
+        when(userProfileServiceMock.updateProperties(any(UserId.class), anyMap()))
+                .thenReturn(false);
+        var userProfileUpdates =
+                List.of(
+                        UserProfileUpdateFixture.REPLACE_USER_PROFILE_UPDATE,
+                        UserProfileUpdateFixture.INCREMENT_USER_PROFILE_UPDATE);
+
+        userProfileBulkService.update(userProfileUpdates);
+
+        assertThat(appliedUpdates).containsExactlyElementsOf(userProfileUpdates);
+    }
+
+    @Test
+    void coalescedWriteFailsInStorage_rethrowsFailure() {
+        doThrow(new IllegalStateException("failed"))
+                .when(userProfileServiceMock)
+                .updateProperties(any(UserId.class), anyMap());
+
+        assertThatThrownBy(
+                        () ->
+                                userProfileBulkService.update(
+                                        List.of(
+                                                UserProfileUpdateFixture
+                                                        .REPLACE_USER_PROFILE_UPDATE,
+                                                UserProfileUpdateFixture
+                                                        .INCREMENT_USER_PROFILE_UPDATE)))
+                .isExactlyInstanceOf(IllegalStateException.class);
+        verify(userProfileServiceMock, never()).update(any(UserProfileUpdate.class));
+    }
+
+    @Test
+    void updateEmptyBatch_doesNothing() {
+        userProfileBulkService.update(List.of());
+
+        verifyNoInteractions(userProfileServiceMock);
+        assertThat(metricRegistry.getTimers().values())
+                .allSatisfy(timer -> assertThat(timer.getCount()).isZero());
+    }
+
+    @Test
+    void updateFails_rethrowsFailureAfterOtherUsersAreDone() {
+        var failingUpdate = createUserProfileUpdate("failing-user", 0);
+        doAnswer(
+                        invocation -> {
+                            UserProfileUpdate userProfileUpdate = invocation.getArgument(0);
+                            if (userProfileUpdate == failingUpdate) {
+                                throw new ClassCastException("failed");
+                            }
+                            appliedUpdates.add(userProfileUpdate);
+                            return null;
+                        })
+                .when(userProfileServiceMock)
+                .update(any(UserProfileUpdate.class));
+        var otherUpdate = createUserProfileUpdate("other-user", 1);
+
+        assertThatThrownBy(() -> userProfileBulkService.update(List.of(failingUpdate, otherUpdate)))
+                .isExactlyInstanceOf(ClassCastException.class)
+                .hasMessage("failed");
+        assertThat(appliedUpdates).containsExactly(otherUpdate);
+    }
+
+    @Test
+    void update_recordsBatchMetrics() {
+        userProfileBulkService.update(
+                List.of(
+                        createUserProfileUpdate("user-1", 1),
+                        createUserProfileUpdate("user-2", 2)));
+
+        assertThat(metricRegistry.timer("user-profile.bulk-update.batch-time").getCount())
+                .isEqualTo(1);
+        assertThat(
+                        metricRegistry
+                                .histogram("user-profile.bulk-update.batch-size")
+                                .getSnapshot()
+                                .getMax())
+                .isEqualTo(2);
+        assertThat(
+                        metricRegistry
+                                .histogram("user-profile.bulk-update.nanos-per-command")
+                                .getCount())
+                .isEqualTo(1);
+    }
+
+    private UserProfileBulkService createUserProfileBulkService(
+            UserProfileService userProfileService) {
+        return createUserProfileBulkService(userProfileService, executorService, 4);
+    }
+
+    private UserProfileBulkService createUserProfileBulkService(
+            UserProfileService userProfileService,
+            ExecutorService executorService,
+            int parallelism) {
+        return new UserProfileBulkService(
+                userProfileService,
+                new UserProfileUpdateCoalescer(),
+                executorService,
+                parallelism,
+                metricRegistry);
+    }
+
+    private void recordAppliedUpdates() {
+        doAnswer(invocation -> appliedUpdates.add(invocation.getArgument(0)))
+                .when(userProfileServiceMock)
+                .update(any(UserProfileUpdate.class));
+    }
+
+    private static UserProfileUpdate createUserProfileUpdate(String userId, int value) {
+        return createUserProfileUpdate(userId, UserUpdateType.INCREMENT, value);
+    }
+
+    private static UserProfileUpdate createUserProfileUpdate(
+            String userId, UserUpdateType userUpdateType, Object value) {
+        return new UserProfileUpdate(
+                UserId.valueOf(userId),
+                userUpdateType,
+                UserProfileUpdateFixture.getUserProfileProperty("property", value));
+    }
+}
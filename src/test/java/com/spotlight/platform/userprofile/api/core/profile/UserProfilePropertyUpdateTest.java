@@ -0,0 +1,73 @@
+package com.spotlight.platform.userprofile.api.core.profile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyValue;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserUpdateType;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class UserProfilePropertyUpdateTest {
+
+    @Test
+    void applyToMissingValue_startsFromInitialValue() {
+        assertThat(increment(2).applyTo(null)).isEqualTo(UserProfilePropertyValue.valueOf(2));
+        assertThat(collect("sword").applyTo(null))
+                .isEqualTo(UserProfilePropertyValue.valueOf(List.of("sword")));
+        assertThat(replace("value").applyTo(null))
+                .isEqualTo(UserProfilePropertyValue.valueOf("value"));
+    }
+
+    @Test
+    void incrementAndThenIncrement_cannotFold() {
+        assertThat(increment(2).andThen(increment(3))).isEmpty();
+        assertThat(increment(0.1).andThen(increment(0.2))).isEmpty();
+        assertThat(increment(1).andThen(increment(-1))).isEmpty();
+    }
+
+    @Test
+    void collectAndThenCollect_concatenatesValues() {
+        assertThat(collect("sword").andThen(collect("shield")))
+                .contains(collect("sword", "shield"));
+    }
+
+    @Test
+    void anyUpdateAndThenReplace_keepsReplace() {
+        assertThat(increment(2).andThen(replace("value"))).contains(replace("value"));
+        assertThat(collect("sword").andThen(replace("value"))).contains(replace("value"));
+    }
+
+    @Test
+    void replaceAndThenIncrement_replacesWithIncrementedValue() {
+        assertThat(replace(2).andThen(increment(3))).contains(replace(5));
+    }
+
+    @Test
+    void incrementAndThenCollect_cannotFold() {
+        assertThat(increment(2).andThen(collect("sword"))).isEmpty();
+        assertThat(collect("sword").andThen(increment(2))).isEmpty();
+    }
+
+    @Test
+    void foldingFails_cannotFold() {
+        assertThat(replace("value").andThen(increment(2))).isEmpty();
+        assertThat(increment(2).andThen(increment("not_an_integer"))).isEmpty();
+    }
+
+    private static UserProfilePropertyUpdate replace(Object value) {
+        return new UserProfilePropertyUpdate(
+                UserUpdateType.REPLACE, UserProfilePropertyValue.valueOf(value));
+    }
+
+    private static UserProfilePropertyUpdate increment(Object value) {
+        return new UserProfilePropertyUpdate(
+                UserUpdateType.INCREMENT, UserProfilePropertyValue.valueOf(value));
+    }
+
+    private static UserProfilePropertyUpdate collect(String... values) {
+        return new UserProfilePropertyUpdate(
+                UserUpdateType.COLLECT, UserProfilePropertyValue.valueOf(List.of(values)));
+    }
+}
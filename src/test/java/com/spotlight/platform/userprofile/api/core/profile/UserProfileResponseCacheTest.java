@@ -0,0 +1,143 @@
+package com.spotlight.platform.userprofile.api.core.profile;
+
+import static net.javacrumbs.jsonunit.assertj.JsonAssertions.assertThatJson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.spotlight.platform.userprofile.api.core.json.JsonMapper;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfile;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfileFixtures;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+class UserProfileResponseCacheTest {
+    private static final long MAXIMUM_SIZE_IN_BYTES = 1 << 20;
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private final UserProfileResponseCache responseCache =
+            new UserProfileResponseCache(
+                    JsonMapper.getInstance(), MAXIMUM_SIZE_IN_BYTES, metricRegistry);
+
+    @Test
+    void getJson_returnsJsonOfProfile() throws JsonProcessingException {
+        byte[] json = responseCache.getJson(UserProfileFixtures.USER_PROFILE);
+
+        assertThatJson(new String(json, StandardCharsets.UTF_8))
+                .isEqualTo(UserProfileFixtures.SERIALIZED_USER_PROFILE);
+    }
+
+    @Test
+    void getJsonOfSameProfileTwice_returnsCachedJson() throws JsonProcessingException {
+        byte[] json = responseCache.getJson(UserProfileFixtures.USER_PROFILE);
+
+        assertThat(responseCache.getJson(UserProfileFixtures.USER_PROFILE)).isSameAs(json);
+        assertThat(getMeterCount("hits")).isEqualTo(1);
+        assertThat(getMeterCount("misses")).isEqualTo(1);
+        assertThat((Long) getGaugeValue("bytes")).isGreaterThan(json.length);
+        assertThat(getGaugeValue("hit-ratio")).isInstanceOf(Double.class);
+    }
+
+    @Test
+    void getJsonOfChangedProfile_returnsJsonOfChangedProfile() throws JsonProcessingException {
+        responseCache.getJson(UserProfileFixtures.USER_PROFILE);
+        var changedUserProfile =
+                new UserProfile(
+                        UserProfileFixtures.USER_ID,
+                        UserProfileFixtures.LATEST_UPDATE_TIMESTAMP,
+                        Map.of(),
+                        UserProfileFixtures.USER_PROFILE.version() + 1);
+
+        byte[] json = responseCache.getJson(changedUserProfile);
+
+        assertThatJson(new String(json, StandardCharsets.UTF_8))
+                .isEqualTo(JsonMapper.getInstance().writeValueAsString(changedUserProfile));
+        assertThat(responseCache.getJson(changedUserProfile)).isSameAs(json);
+        assertThat(getMeterCount("misses")).isEqualTo(2);
+    }
+
+    @Test
+    void getJsonOfOtherProfileOfSameVersion_returnsCachedJson() throws JsonProcessingException {
+        byte[] json = responseCache.getJson(UserProfileFixtures.USER_PROFILE);
+        var decodedAgainUserProfile =
+                new UserProfile(
+                        UserProfileFixtures.USER_ID,
+                        UserProfileFixtures.USER_PROFILE.latestUpdateTime(),
+                        UserProfileFixtures.USER_PROFILE.userProfileProperties(),
+                        UserProfileFixtures.USER_PROFILE.version());
+
+        assertThat(responseCache.getJson(decodedAgainUserProfile)).isSameAs(json);
+    }
+
+    @Test
+    void getJsonOfOlderVersion_writesJsonAgain() throws JsonProcessingException {
+        var newerUserProfile =
+                new UserProfile(
+                        UserProfileFixtures.USER_ID,
+                        UserProfileFixtures.LATEST_UPDATE_TIMESTAMP,
+                        Map.of(),
+                        UserProfileFixtures.USER_PROFILE.version() + 1);
+        responseCache.getJson(newerUserProfile);
+
+        byte[] json = responseCache.getJson(UserProfileFixtures.USER_PROFILE);
+
+        assertThatJson(new String(json, StandardCharsets.UTF_8))
+                .isEqualTo(UserProfileFixtures.SERIALIZED_USER_PROFILE);
+    }
+
+    @Test
+    void getJsonBeyondMaximumSize_keepsCachedJsonWithinMaximumSize()
+            throws JsonProcessingException {
+        var smallMetricRegistry = new MetricRegistry();
+        long maximumSizeInBytes = 1000;
+        var smallResponseCache =
+                new UserProfileResponseCache(
+                        JsonMapper.getInstance(), maximumSizeInBytes, smallMetricRegistry);
+
+        for (int i = 0; i < 100; i++) {
+            smallResponseCache.getJson(
+                    new UserProfile(
+                            UserId.valueOf("user-" + i),
+                            UserProfileFixtures.LAST_UPDATE_TIMESTAMP,
+                            UserProfileFixtures.USER_PROFILE.userProfileProperties()));
+        }
+
+        assertThat((Long) getGaugeValue(smallMetricRegistry, "bytes"))
+                .isLessThanOrEqualTo(maximumSizeInBytes);
+    }
+
+    @Test
+    void getJsonWhenDisabled_writesJsonForEveryRead() throws JsonProcessingException {
+        var disabledResponseCache =
+                new UserProfileResponseCache(JsonMapper.getInstance(), 0, new MetricRegistry());
+
+        byte[] json = disabledResponseCache.getJson(UserProfileFixtures.USER_PROFILE);
+
+        assertThatJson(new String(json, StandardCharsets.UTF_8))
+                .isEqualTo(UserProfileFixtures.SERIALIZED_USER_PROFILE);
+        assertThat(disabledResponseCache.getJson(UserProfileFixtures.USER_PROFILE))
+                .isNotSameAs(json);
+    }
+
+    private long getMeterCount(String name) {
+        return metricRegistry
+                .meter(MetricRegistry.name(UserProfileResponseCache.METRICS_PREFIX, name))
+                .getCount();
+    }
+
+    private Object getGaugeValue(String name) {
+        return getGaugeValue(metricRegistry, name);
+    }
+
+    private static Object getGaugeValue(MetricRegistry metricRegistry, String name) {
+        return metricRegistry
+                .getGauges()
+                .get(MetricRegistry.name(UserProfileResponseCache.METRICS_PREFIX, name))
+                .getValue();
+    }
+}
@@ -3,8 +3,12 @@ package com.spotlight.platform.userprofile.api.core.profile;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
+import com.codahale.metrics.MetricRegistry;
 import com.spotlight.platform.userprofile.api.core.exceptions.EntityNotFoundException;
 import com.spotlight.platform.userprofile.api.core.profile.persistence.UserProfileDao;
 import com.spotlight.platform.userprofile.api.model.profile.UserProfile;
@@ -12,19 +16,25 @@ import com.spotlight.platform.userprofile.api.model.profile.UserProfileUpdate;
 import com.spotlight.platform.userprofile.api.model.profile.primitives.*;
 
 import org.junit.jupiter.api.*;
-import org.mockito.ArgumentCaptor;
 import org.mockito.MockedStatic;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 class UserProfileServiceTest {
     private final UserProfileDao userProfileDaoMock = mock(UserProfileDao.class);
+    private final MetricRegistry metricRegistry = new MetricRegistry();
     private final UserProfileService userProfileService =
-            new UserProfileService(userProfileDaoMock);
+            new UserProfileService(userProfileDaoMock, metricRegistry);
+    private final List<UserProfile> putUserProfiles = new ArrayList<>();
 
     @Nested
     @DisplayName("get")
@@ -39,6 +49,18 @@ class UserProfileServiceTest {
                     .isEqualTo(UserProfileFixtures.USER_PROFILE);
         }
 
+        @Test
+        void getForExistingUser_recordsPropertyCount() {
+            when(userProfileDaoMock.get(any(UserId.class)))
+                    .thenReturn(Optional.of(UserProfileFixtures.USER_PROFILE));
+
+            userProfileService.get(UserProfileFixtures.USER_ID);
+
+            assertThat(getHistogramValues("read-properties"))
+                    .containsExactly(
+                            (long) UserProfileFixtures.USER_PROFILE.userProfileProperties().size());
+        }
+
         @Test
         void getForNonExistingUser_throwsException() {
             when(userProfileDaoMock.get(any(UserId.class))).thenReturn(Optional.empty());
@@ -48,6 +70,58 @@ class UserProfileServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("getAll")
+    class GetAll {
+        @Test
+        void getAllForExistingAndMissingUsers_reportsMissingUsers() {
+            when(userProfileDaoMock.getAll(any()))
+                    .thenReturn(
+                            Map.of(UserProfileFixtures.USER_ID, UserProfileFixtures.USER_PROFILE));
+
+            var userProfileBatch =
+                    userProfileService.getAll(
+                            List.of(
+                                    UserProfileFixtures.NON_EXISTING_USER_ID,
+                                    UserProfileFixtures.USER_ID,
+                                    UserProfileFixtures.USER_ID));
+
+            assertThat(userProfileBatch.userProfiles())
+                    .containsExactly(UserProfileFixtures.USER_PROFILE);
+            assertThat(userProfileBatch.missingUserIds())
+                    .containsExactly(UserProfileFixtures.NON_EXISTING_USER_ID);
+            verify(userProfileDaoMock)
+                    .getAll(
+                            Set.of(
+                                    UserProfileFixtures.NON_EXISTING_USER_ID,
+                                    UserProfileFixtures.USER_ID));
+        }
+    }
+
+    @Nested
+    @DisplayName("streamUpdatedSince")
+    class StreamUpdatedSince {
+        @Test
+        void streamUpdatedSince_returnsProfilesUpdatedAtOrAfterInstant() {
+            var recentUserProfile =
+                    new UserProfile(
+                            UserProfileFixtures.NON_EXISTING_USER_ID,
+                            UserProfileFixtures.LATEST_UPDATE_TIMESTAMP,
+                            Map.of());
+            when(userProfileDaoMock.streamAll())
+                    .thenAnswer(
+                            invocation ->
+                                    Stream.of(UserProfileFixtures.USER_PROFILE, recentUserProfile));
+
+            assertThat(
+                            userProfileService.streamUpdatedSince(
+                                    UserProfileFixtures.LATEST_UPDATE_TIMESTAMP))
+                    .containsExactly(recentUserProfile);
+            assertThat(userProfileService.streamUpdatedSince(Instant.MIN))
+                    .containsExactly(UserProfileFixtures.USER_PROFILE, recentUserProfile);
+        }
+    }
+
     @Nested
     @DisplayName("replace")
     class Replace {
@@ -59,26 +133,32 @@ class UserProfileServiceTest {
 
         @Test
         void replaceExistingProperty_updatesValue() {
-            when(userProfileDaoMock.get(any(UserId.class)))
-                    .thenReturn(Optional.of(UserProfileFixtures.USER_PROFILE));
+            givenStoredUserProfile(Optional.of(UserProfileFixtures.USER_PROFILE));
 
             fixInstantNow(
                     () ->
                             userProfileService.replace(
                                     UserProfileUpdateFixture.REPLACE_USER_PROFILE_UPDATE));
 
-            ArgumentCaptor<UserProfile> myCaptor = ArgumentCaptor.forClass(UserProfile.class);
-            verify(userProfileDaoMock).put(myCaptor.capture());
+            comparePutToExpectedUserProfile(UPDATED_USER_PROFILE);
+        }
 
-            assertThat(myCaptor.getValue())
-                    .usingRecursiveComparison()
-                    .isEqualTo(UPDATED_USER_PROFILE);
+        @Test
+        void replace_recordsTimeAndPropertyCount() {
+            givenStoredUserProfile(Optional.of(UserProfileFixtures.USER_PROFILE));
+
+            userProfileService.replace(UserProfileUpdateFixture.REPLACE_USER_PROFILE_UPDATE);
+
+            assertThat(metricRegistry.timer("user-profile.update.replace").getCount())
+                    .isEqualTo(1);
+            assertThat(metricRegistry.timer("user-profile.update.increment").getCount()).isZero();
+            assertThat(getHistogramValues("written-properties"))
+                    .containsExactly((long) UPDATED_USER_PROFILE.userProfileProperties().size());
         }
 
         @Test
         void replaceNewProperty_addsValue() {
-            when(userProfileDaoMock.get(any(UserId.class)))
-                    .thenReturn(Optional.of(UserProfileFixtures.USER_PROFILE));
+            givenStoredUserProfile(Optional.of(UserProfileFixtures.USER_PROFILE));
 
             Map<UserProfilePropertyName, UserProfilePropertyValue> replaceProperty2 =
                     UserProfileUpdateFixture.getUserProfileProperty("property2", "property2Value");
@@ -92,23 +172,89 @@ class UserProfileServiceTest {
             allProperties.putAll(UserProfileFixtures.USER_PROFILE.userProfileProperties());
             allProperties.putAll(replaceProperty2);
 
-            compareMockPutToExpectedUserProfile(
+            comparePutToExpectedUserProfile(
                     new UserProfile(
                             UserProfileFixtures.USER_ID,
                             UserProfileFixtures.LATEST_UPDATE_TIMESTAMP,
                             allProperties));
         }
 
+        @Test
+        void replaceProperty_sharesUntouchedValues() {
+            givenStoredUserProfile(Optional.of(UserProfileFixtures.USER_PROFILE));
+            var untouchedName = UserProfilePropertyName.valueOf("property1");
+
+            fixInstantNow(
+                    () ->
+                            userProfileService.replace(
+                                    new UserProfileUpdate(
+                                            UserProfileFixtures.USER_ID,
+                                            UserUpdateType.REPLACE,
+                                            UserProfileUpdateFixture.getUserProfileProperty(
+                                                    "property2", "property2Value"))));
+
+            assertThat(putUserProfiles.get(0).userProfileProperties().get(untouchedName))
+                    .isSameAs(
+                            UserProfileFixtures.USER_PROFILE
+                                    .userProfileProperties()
+                                    .get(untouchedName));
+        }
+
         @Test
         void replaceForNonExistingUser_savesNewProfile() {
-            when(userProfileDaoMock.get(any(UserId.class))).thenReturn(Optional.empty());
+            givenStoredUserProfile(Optional.empty());
 
             fixInstantNow(
                     () ->
                             userProfileService.replace(
                                     UserProfileUpdateFixture.REPLACE_USER_PROFILE_UPDATE));
 
-            compareMockPutToExpectedUserProfile(UPDATED_USER_PROFILE);
+            comparePutToExpectedUserProfile(UPDATED_USER_PROFILE);
+        }
+
+        @Test
+        void replaceExistingProfile_incrementsVersion() {
+            givenStoredUserProfile(
+                    Optional.of(
+                            new UserProfile(
+                                    UserProfileFixtures.USER_ID,
+                                    UserProfileFixtures.LAST_UPDATE_TIMESTAMP,
+                                    Map.of(),
+                                    7)));
+
+            userProfileService.replace(UserProfileUpdateFixture.REPLACE_USER_PROFILE_UPDATE);
+
+            verify(userProfileDaoMock)
+                    .putIfVersion(any(UserProfile.class), eq(7L), anyCollection());
+            assertThat(putUserProfiles.get(0).version()).isEqualTo(8);
+        }
+
+        @Test
+        void replace_passesReplacedPropertyNamesToStorage() {
+            givenStoredUserProfile(Optional.of(UserProfileFixtures.USER_PROFILE));
+
+            userProfileService.replace(UserProfileUpdateFixture.REPLACE_USER_PROFILE_UPDATE);
+
+            verify(userProfileDaoMock)
+                    .putIfVersion(
+                            any(UserProfile.class),
+                            anyLong(),
+                            eq(UserProfileUpdateFixture.REPLACE_PROFILE_PROPERTY.keySet()));
+        }
+
+        @Test
+        void replaceForNonExistingUser_savesFirstVersion() {
+            givenStoredUserProfile(Optional.empty());
+
+            userProfileService.replace(UserProfileUpdateFixture.REPLACE_USER_PROFILE_UPDATE);
+
+            verify(userProfileDaoMock)
+                    .putIfVersion(
+                            any(UserProfile.class),
+                            eq(UserProfile.INITIAL_VERSION),
+                            anyCollection());
+            assertThat(putUserProfiles.get(0).version())
+                    .isEqualTo(UserProfile.INITIAL_VERSION + 1);
         }
     }
 
@@ -122,14 +268,14 @@ class UserProfileServiceTest {
                             UserProfileFixtures.USER_ID,
                             UserProfileFixtures.LAST_UPDATE_TIMESTAMP,
                             UserProfileUpdateFixture.getUserProfileProperty("property2", -10));
-            when(userProfileDaoMock.get(any(UserId.class))).thenReturn(Optional.of(userProfile));
+            givenStoredUserProfile(Optional.of(userProfile));
 
             fixInstantNow(
                     () ->
                             userProfileService.increment(
                                     UserProfileUpdateFixture.INCREMENT_USER_PROFILE_UPDATE));
 
-            compareMockPutToExpectedUserProfile(
+            comparePutToExpectedUserProfile(
                     new UserProfile(
                             UserProfileFixtures.USER_ID,
                             UserProfileFixtures.LATEST_UPDATE_TIMESTAMP,
@@ -138,8 +284,7 @@ class UserProfileServiceTest {
 
         @Test
         void incrementNewProperty_addsValue() {
-            when(userProfileDaoMock.get(any(UserId.class)))
-                    .thenReturn(Optional.of(UserProfileFixtures.USER_PROFILE));
+            givenStoredUserProfile(Optional.of(UserProfileFixtures.USER_PROFILE));
 
             fixInstantNow(
                     () ->
@@ -153,7 +298,7 @@ class UserProfileServiceTest {
             allProperties.putAll(UserProfileFixtures.USER_PROFILE.userProfileProperties());
             allProperties.putAll(UserProfileUpdateFixture.INCREMENT_PROFILE_PROPERTY);
 
-            compareMockPutToExpectedUserProfile(
+            comparePutToExpectedUserProfile(
                     new UserProfile(
                             UserProfileFixtures.USER_ID,
                             UserProfileFixtures.LATEST_UPDATE_TIMESTAMP,
@@ -164,8 +309,7 @@ class UserProfileServiceTest {
         // Or rather mock with thrown exception due to UserProfilePropertyValueTest?
         @Test
         void incrementCannotCastToInt_throwException() {
-            when(userProfileDaoMock.get(any(UserId.class)))
-                    .thenReturn(Optional.of(UserProfileFixtures.USER_PROFILE));
+            givenStoredUserProfile(Optional.of(UserProfileFixtures.USER_PROFILE));
 
             UserProfileUpdate UserProfileUpdate =
                     new UserProfileUpdate(
@@ -183,14 +327,14 @@ class UserProfileServiceTest {
 
         @Test
         void incrementForNonExistingUser_savesNewProfile() {
-            when(userProfileDaoMock.get(any(UserId.class))).thenReturn(Optional.empty());
+            givenStoredUserProfile(Optional.empty());
 
             fixInstantNow(
                     () ->
                             userProfileService.increment(
                                     UserProfileUpdateFixture.INCREMENT_USER_PROFILE_UPDATE));
 
-            compareMockPutToExpectedUserProfile(
+            comparePutToExpectedUserProfile(
                     new UserProfile(
                             UserProfileFixtures.USER_ID,
                             UserProfileFixtures.LATEST_UPDATE_TIMESTAMP,
@@ -210,25 +354,25 @@ class UserProfileServiceTest {
                             UserProfileUpdateFixture.getUserProfileProperty(
                                     "property3", List.of("shield")));
 
-            when(userProfileDaoMock.get(any(UserId.class))).thenReturn(Optional.of(userProfile));
+            givenStoredUserProfile(Optional.of(userProfile));
 
             fixInstantNow(
                     () ->
                             userProfileService.collect(
                                     UserProfileUpdateFixture.COLLECT_USER_PROFILE_UPDATE));
 
-            compareMockPutToExpectedUserProfile(
+            comparePutToExpectedUserProfile(
                     new UserProfile(
                             UserProfileFixtures.USER_ID,
                             UserProfileFixtures.LATEST_UPDATE_TIMESTAMP,
                             UserProfileUpdateFixture.getUserProfileProperty(
                                     "property3", List.of("shield", "sword"))));
+            assertThat(getHistogramValues("collect-list-length")).containsExactly(2L);
         }
 
         @Test
         void collectNewProperty_addsValue() {
-            when(userProfileDaoMock.get(any(UserId.class)))
-                    .thenReturn(Optional.of(UserProfileFixtures.USER_PROFILE));
+            givenStoredUserProfile(Optional.of(UserProfileFixtures.USER_PROFILE));
 
             fixInstantNow(
                     () ->
@@ -242,7 +386,7 @@ class UserProfileServiceTest {
             allProperties.putAll(UserProfileFixtures.USER_PROFILE.userProfileProperties());
             allProperties.putAll(UserProfileUpdateFixture.COLLECT_PROFILE_PROPERTY);
 
-            compareMockPutToExpectedUserProfile(
+            comparePutToExpectedUserProfile(
                     new UserProfile(
                             UserProfileFixtures.USER_ID,
                             UserProfileFixtures.LATEST_UPDATE_TIMESTAMP,
@@ -253,8 +397,7 @@ class UserProfileServiceTest {
         // Or rather mock with thrown exception due to UserProfilePropertyValueTest?
         @Test
         void collectCannotCastToList_throwException() {
-            when(userProfileDaoMock.get(any(UserId.class)))
-                    .thenReturn(Optional.of(UserProfileFixtures.USER_PROFILE));
+            givenStoredUserProfile(Optional.of(UserProfileFixtures.USER_PROFILE));
 
             UserProfileUpdate UserProfileUpdate =
                     new UserProfileUpdate(
@@ -271,14 +414,14 @@ class UserProfileServiceTest {
 
         @Test
         void collectForNonExistingUser_savesNewProfile() {
-            when(userProfileDaoMock.get(any(UserId.class))).thenReturn(Optional.empty());
+            givenStoredUserProfile(Optional.empty());
 
             fixInstantNow(
                     () ->
                             userProfileService.collect(
                                     UserProfileUpdateFixture.COLLECT_USER_PROFILE_UPDATE));
 
-            compareMockPutToExpectedUserProfile(
+            comparePutToExpectedUserProfile(
                     new UserProfile(
                             UserProfileFixtures.USER_ID,
                             UserProfileFixtures.LATEST_UPDATE_TIMESTAMP,
@@ -330,11 +473,210 @@ class UserProfileServiceTest {
         }
     }
 
-    private void compareMockPutToExpectedUserProfile(UserProfile expectedUserProfile) {
-        ArgumentCaptor<UserProfile> captor = ArgumentCaptor.forClass(UserProfile.class);
-        verify(userProfileDaoMock).put(captor.capture());
+    @Nested
+    @DisplayName("updateProperties")
+    class UpdateProperties {
+        @Test
+        void updatePropertiesOfDifferentTypes_appliesAllInOneWrite() {
+            UserProfile userProfile =
+                    new UserProfile(
+                            UserProfileFixtures.USER_ID,
+                            UserProfileFixtures.LAST_UPDATE_TIMESTAMP,
+                            Map.of(
+                                    UserProfilePropertyName.valueOf("property1"),
+                                    UserProfilePropertyValue.valueOf("oldValue"),
+                                    UserProfilePropertyName.valueOf("property2"),
+                                    UserProfilePropertyValue.valueOf(-10)));
+            givenStoredUserProfile(Optional.of(userProfile));
+
+            fixInstantNow(
+                    () ->
+                            userProfileService.updateProperties(
+                                    UserProfileFixtures.USER_ID,
+                                    Map.of(
+                                            UserProfilePropertyName.valueOf("property1"),
+                                            new UserProfilePropertyUpdate(
+                                                    UserUpdateType.REPLACE,
+                                                    UserProfilePropertyValue.valueOf("newValue")),
+                                            UserProfilePropertyName.valueOf("property2"),
+                                            new UserProfilePropertyUpdate(
+                                                    UserUpdateType.INCREMENT,
+                                                    UserProfilePropertyValue.valueOf(12)),
+                                            UserProfilePropertyName.valueOf("property3"),
+                                            new UserProfilePropertyUpdate(
+                                                    UserUpdateType.COLLECT,
+                                                    UserProfilePropertyValue.valueOf(
+                                                            List.of("sword"))))));
+
+            comparePutToExpectedUserProfile(
+                    new UserProfile(
+                            UserProfileFixtures.USER_ID,
+                            UserProfileFixtures.LATEST_UPDATE_TIMESTAMP,
+                            Map.of(
+                                    UserProfilePropertyName.valueOf("property1"),
+                                    UserProfilePropertyValue.valueOf("newValue"),
+                                    UserProfilePropertyName.valueOf("property2"),
+                                    UserProfilePropertyValue.valueOf(2),
+                                    UserProfilePropertyName.valueOf("property3"),
+                                    UserProfilePropertyValue.valueOf(List.of("sword")))));
+            assertThat(metricRegistry.timer("user-profile.update.properties").getCount())
+                    .isEqualTo(1);
+            assertThat(getHistogramValues("collect-list-length")).containsExactly(1L);
+        }
+
+        @Test
+        void updatePropertiesNotApplicable_returnsFalseWithoutWriting() {
+            givenStoredUserProfile(Optional.of(UserProfileFixtures.USER_PROFILE));
+
+            assertThat(
+                            userProfileService.updateProperties(
+                                    UserProfileFixtures.USER_ID,
+                                    Map.of(
+                                            UserProfilePropertyName.valueOf("property1"),
+                                            new UserProfilePropertyUpdate(
+                                                    UserUpdateType.REPLACE,
+                                                    UserProfilePropertyValue.valueOf("value")),
+                                            UserProfilePropertyName.valueOf("property2"),
+                                            new UserProfilePropertyUpdate(
+                                                    UserUpdateType.INCREMENT,
+                                                    UserProfilePropertyValue.valueOf("value")))))
+                    .isFalse();
+            verify(userProfileDaoMock, never())
+                    .putIfVersion(any(UserProfile.class), anyLong(), anyCollection());
+            verify(userProfileDaoMock, never()).compute(any(UserId.class), any(), anyCollection());
+        }
+
+        @Test
+        void updatePropertiesFailsInStorage_throwsException() {
+            givenStoredUserProfile(Optional.of(UserProfileFixtures.USER_PROFILE));
+            when(userProfileDaoMock.putIfVersion(
+                            any(UserProfile.class), anyLong(), anyCollection()))
+                    .thenThrow(new IllegalStateException("failed"));
+
+            assertThatThrownBy(
+                            () ->
+                                    userProfileService.updateProperties(
+                                            UserProfileFixtures.USER_ID,
+                                            Map.of(
+                                                    UserProfilePropertyName.valueOf("property1"),
+                                                    new UserProfilePropertyUpdate(
+                                                            UserUpdateType.REPLACE,
+                                                            UserProfilePropertyValue.valueOf(
+                                                                    "value")))))
+                    .isExactlyInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("concurrent updates")
+    class ConcurrentUpdates {
+        @Test
+        void updateConflictingWithOtherWriter_retriesOnTopOfProfileOfOtherWriter() {
+            var otherWritersUserProfile =
+                    new UserProfile(
+                            UserProfileFixtures.USER_ID,
+                            UserProfileFixtures.LAST_UPDATE_TIMESTAMP,
+                            UserProfileUpdateFixture.getUserProfileProperty(
+                                    "property2", "property2Value"),
+                            1);
+            when(userProfileDaoMock.get(any(UserId.class)))
+                    .thenReturn(Optional.empty(), Optional.of(otherWritersUserProfile));
+            when(userProfileDaoMock.putIfVersion(
+                            any(UserProfile.class), anyLong(), anyCollection()))
+                    .thenAnswer(
+                            invocation -> {
+                                putUserProfiles.add(invocation.getArgument(0));
+                                return putUserProfiles.size() > 1;
+                            });
+
+            userProfileService.replace(UserProfileUpdateFixture.REPLACE_USER_PROFILE_UPDATE);
+
+            verify(userProfileDaoMock)
+                    .putIfVersion(eq(putUserProfiles.get(1)), eq(1L), anyCollection());
+            assertThat(putUserProfiles.get(1).version()).isEqualTo(2);
+            assertThat(putUserProfiles.get(1).userProfileProperties())
+                    .containsAllEntriesOf(otherWritersUserProfile.userProfileProperties())
+                    .containsAllEntriesOf(UserProfileUpdateFixture.REPLACE_PROFILE_PROPERTY);
+            assertThat(getHistogramValues("update-retries")).containsExactly(1L);
+            assertThat(getMeterCount("update-conflicts")).isEqualTo(1);
+        }
+
+        @Test
+        void updateConflictingOnEveryRetry_appliesUpdateThroughStorage() {
+            var otherWritersUserProfile =
+                    new UserProfile(
+                            UserProfileFixtures.USER_ID,
+                            UserProfileFixtures.LAST_UPDATE_TIMESTAMP,
+                            UserProfileUpdateFixture.getUserProfileProperty(
+                                    "property2", "property2Value"),
+                            3);
+            when(userProfileDaoMock.get(any(UserId.class))).thenReturn(Optional.empty());
+            when(userProfileDaoMock.putIfVersion(
+                            any(UserProfile.class), anyLong(), anyCollection()))
+                    .thenReturn(false);
+            when(userProfileDaoMock.compute(any(UserId.class), any(), anyCollection()))
+                    .thenAnswer(
+                            invocation -> {
+                                Function<Optional<UserProfile>, UserProfile> remappingFunction =
+                                        invocation.getArgument(1);
+                                UserProfile computedUserProfile =
+                                        remappingFunction.apply(
+                                                Optional.of(otherWritersUserProfile));
+                                putUserProfiles.add(computedUserProfile);
+                                return computedUserProfile;
+                            });
+
+            userProfileService.replace(UserProfileUpdateFixture.REPLACE_USER_PROFILE_UPDATE);
+
+            verify(userProfileDaoMock, times(UserProfileService.MAX_UPDATE_RETRIES + 1))
+                    .putIfVersion(any(UserProfile.class), anyLong(), anyCollection());
+            verify(userProfileDaoMock)
+                    .compute(eq(UserProfileFixtures.USER_ID), any(), anyCollection());
+            assertThat(putUserProfiles.get(0).version()).isEqualTo(4);
+            assertThat(putUserProfiles.get(0).userProfileProperties())
+                    .containsAllEntriesOf(otherWritersUserProfile.userProfileProperties())
+                    .containsAllEntriesOf(UserProfileUpdateFixture.REPLACE_PROFILE_PROPERTY);
+            assertThat(getMeterCount("update-conflicts"))
+                    .isEqualTo(UserProfileService.MAX_UPDATE_RETRIES + 1);
+            assertThat(getMeterCount("update-retries-exhausted")).isEqualTo(1);
+            assertThat(getHistogramValues("update-retries"))
+                    .containsExactly((long) UserProfileService.MAX_UPDATE_RETRIES);
+        }
+    }
+
+    private void givenStoredUserProfile(Optional<UserProfile> storedUserProfile) {
+        when(userProfileDaoMock.get(any(UserId.class))).thenReturn(storedUserProfile);
+        when(userProfileDaoMock.putIfVersion(any(UserProfile.class), anyLong(), anyCollection()))
+                .thenAnswer(
+                        invocation -> {
+                            putUserProfiles.add(invocation.getArgument(0));
+                            return true;
+                        });
+    }
+
+    private void comparePutToExpectedUserProfile(UserProfile expectedUserProfile) {
+        verify(userProfileDaoMock).putIfVersion(any(UserProfile.class), anyLong(), anyCollection());
+        verify(userProfileDaoMock, never()).put(any(UserProfile.class));
+
+        // Versions are covered by their own tests
+        assertThat(putUserProfiles)
+                .singleElement()
+                .usingRecursiveComparison()
+                .ignoringFields("version")
+                .isEqualTo(expectedUserProfile);
+    }
+
+    private List<Long> getHistogramValues(String name) {
+        String histogramName = MetricRegistry.name(UserProfileService.METRICS_PREFIX, name);
+        return Arrays.stream(metricRegistry.histogram(histogramName).getSnapshot().getValues())
+                .boxed()
+                .toList();
+    }
 
-        assertThat(captor.getValue()).usingRecursiveComparison().isEqualTo(expectedUserProfile);
+    private long getMeterCount(String name) {
+        return metricRegistry
+                .meter(MetricRegistry.name(UserProfileService.METRICS_PREFIX, name))
+                .getCount();
     }
 
     private void fixInstantNow(Runnable expressionToRun) {
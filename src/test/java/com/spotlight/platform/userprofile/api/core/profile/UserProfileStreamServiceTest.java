@@ -0,0 +1,127 @@
+package com.spotlight.platform.userprofile.api.core.profile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.spotlight.platform.userprofile.api.core.json.JsonMapper;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfileUpdate;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfileUpdateError;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfileUpdateFixture;
+
+import io.dropwizard.jersey.validation.Validators;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class UserProfileStreamServiceTest {
+    private static final String VALID_COMMAND = createCommand("existing-user-id", "increment");
+
+    private final UserProfileService userProfileServiceMock = mock(UserProfileService.class);
+    private final UserProfileStreamService userProfileStreamService =
+            new UserProfileStreamService(
+                    userProfileServiceMock, JsonMapper.getInstance(), Validators.newValidator());
+
+    @Test
+    void updateValidCommands_appliesAllInOrder() throws IOException {
+        var summary =
+                userProfileStreamService.update(toStream(VALID_COMMAND + "\n" + VALID_COMMAND));
+
+        assertThat(summary.applied()).isEqualTo(2);
+        assertThat(summary.rejected()).isZero();
+        assertThat(summary.errors()).isEmpty();
+        verify(userProfileServiceMock, times(2))
+                .update(UserProfileUpdateFixture.INCREMENT_USER_PROFILE_UPDATE);
+    }
+
+    @Test
+    void updateInvalidCommands_skipsThemAndReportsLines() throws IOException {
+        var summary =
+                userProfileStreamService.update(
+                        toStream(
+                                String.join(
+                                        "\n",
+                                        createCommand("invalid-user-id-%", "replace"),
+                                        createCommand("existing-user-id", "invalid"),
+                                        "{\"userId\":\"existing-user-id\"}",
+                                        VALID_COMMAND)));
+
+        assertThat(summary.applied()).isEqualTo(1);
+        assertThat(summary.rejected()).isEqualTo(3);
+        assertThat(summary.errors())
+                .extracting(UserProfileUpdateError::line)
+                .containsExactly(1L, 2L, 3L);
+        assertThat(summary.errors().get(0).message()).contains("userId");
+    }
+
+    @Test
+    void updateFails_reportsFailureAndContinues() throws IOException {
+        doThrow(new ClassCastException("Cannot increment"))
+                .doNothing()
+                .when(userProfileServiceMock)
+                .update(any(UserProfileUpdate.class));
+
+        var summary =
+                userProfileStreamService.update(toStream(VALID_COMMAND + "\n" + VALID_COMMAND));
+
+        assertThat(summary.applied()).isEqualTo(1);
+        assertThat(summary.rejected()).isEqualTo(1);
+        assertThat(summary.errors())
+                .singleElement()
+                .satisfies(error -> assertThat(error.message()).isEqualTo("Cannot increment"));
+    }
+
+    @Test
+    void updateMalformedJson_stopsAtMalformedLine() throws IOException {
+        var summary =
+                userProfileStreamService.update(
+                        toStream(VALID_COMMAND + "\n{\"userId\":\n]\n" + VALID_COMMAND));
+
+        assertThat(summary.applied()).isEqualTo(1);
+        assertThat(summary.rejected()).isEqualTo(1);
+        assertThat(summary.errors())
+                .singleElement()
+                .satisfies(error -> assertThat(error.line()).isEqualTo(3));
+    }
+
+    @Test
+    void updateManyInvalidCommands_reportsOnlyFirstErrors() throws IOException {
+        var commands =
+                IntStream.range(0, UserProfileStreamService.MAX_REPORTED_ERRORS + 5)
+                        .mapToObj(i -> "{}")
+                        .collect(Collectors.joining("\n"));
+
+        var summary = userProfileStreamService.update(toStream(commands));
+
+        assertThat(summary.rejected())
+                .isEqualTo(UserProfileStreamService.MAX_REPORTED_ERRORS + 5);
+        assertThat(summary.errors()).hasSize(UserProfileStreamService.MAX_REPORTED_ERRORS);
+        verify(userProfileServiceMock, never()).update(any(UserProfileUpdate.class));
+    }
+
+    @Test
+    void updateEmptyStream_appliesNothing() throws IOException {
+        var summary = userProfileStreamService.update(toStream(""));
+
+        assertThat(summary.applied()).isZero();
+        assertThat(summary.rejected()).isZero();
+    }
+
+    private static String createCommand(String userId, String userUpdateType) {
+        return "{\"userId\":\"%s\",\"userUpdateType\":\"%s\",".formatted(userId, userUpdateType)
+                + "\"userProfileProperties\":{\"property2\":2}}";
+    }
+
+    private static ByteArrayInputStream toStream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
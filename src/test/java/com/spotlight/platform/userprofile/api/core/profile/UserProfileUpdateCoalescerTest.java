@@ -0,0 +1,138 @@
+package com.spotlight.platform.userprofile.api.core.profile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.spotlight.platform.userprofile.api.model.profile.UserProfileUpdate;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfileFixtures;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyName;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyValue;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfileUpdateFixture;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserUpdateType;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+class UserProfileUpdateCoalescerTest {
+    private static final UserProfilePropertyName PROPERTY_NAME =
+            UserProfilePropertyName.valueOf("property");
+
+    private final UserProfileUpdateCoalescer userProfileUpdateCoalescer =
+            new UserProfileUpdateCoalescer();
+
+    @Test
+    void coalesceReplacesAndIncrements_foldsIntoSingleWrite() {
+        var userProfileUpdates =
+                List.of(
+                        createUserProfileUpdate(UserUpdateType.REPLACE, 1),
+                        createUserProfileUpdate(UserUpdateType.INCREMENT, 2),
+                        UserProfileUpdateFixture.REPLACE_USER_PROFILE_UPDATE,
+                        UserProfileUpdateFixture.INCREMENT_USER_PROFILE_UPDATE);
+
+        assertThat(userProfileUpdateCoalescer.coalesce(userProfileUpdates))
+                .singleElement()
+                .satisfies(
+                        coalescedUpdate -> {
+                            assertThat(coalescedUpdate.userId())
+                                    .isEqualTo(UserProfileFixtures.USER_ID);
+                            assertThat(coalescedUpdate.userProfileUpdates())
+                                    .containsExactlyElementsOf(userProfileUpdates);
+                            assertThat(coalescedUpdate.propertyUpdates())
+                                    .containsOnly(
+                                            Map.entry(
+                                                    PROPERTY_NAME,
+                                                    createPropertyUpdate(
+                                                            UserUpdateType.REPLACE, 3)),
+                                            Map.entry(
+                                                    UserProfilePropertyName.valueOf("property1"),
+                                                    createPropertyUpdate(
+                                                            UserUpdateType.REPLACE, "newValue")),
+                                            Map.entry(
+                                                    UserProfilePropertyName.valueOf("property2"),
+                                                    createPropertyUpdate(
+                                                            UserUpdateType.INCREMENT, 2)));
+                        });
+    }
+
+    @Test
+    void coalesceIncrementAfterIncrement_startsNewWrite() {
+        var firstIncrementUpdate = createUserProfileUpdate(UserUpdateType.INCREMENT, 0.1);
+        var secondIncrementUpdate = createUserProfileUpdate(UserUpdateType.INCREMENT, 0.2);
+
+        assertThat(
+                        userProfileUpdateCoalescer.coalesce(
+                                List.of(firstIncrementUpdate, secondIncrementUpdate)))
+                .extracting(CoalescedUserProfileUpdate::userProfileUpdates)
+                .containsExactly(List.of(firstIncrementUpdate), List.of(secondIncrementUpdate));
+    }
+
+    @Test
+    void coalesceCollectAfterIncrement_startsNewWrite() {
+        var incrementUpdate = createUserProfileUpdate(UserUpdateType.INCREMENT, 1);
+        var collectUpdate = createUserProfileUpdate(UserUpdateType.COLLECT, List.of("sword"));
+
+        assertThat(userProfileUpdateCoalescer.coalesce(List.of(incrementUpdate, collectUpdate)))
+                .extracting(CoalescedUserProfileUpdate::userProfileUpdates)
+                .containsExactly(List.of(incrementUpdate), List.of(collectUpdate));
+    }
+
+    @Test
+    void coalescePartlyFoldableCommand_leavesPreviousWriteUnchanged() {
+        var incrementUpdate = createUserProfileUpdate(UserUpdateType.INCREMENT, 1);
+        var collectUpdate =
+                new UserProfileUpdate(
+                        UserProfileFixtures.USER_ID,
+                        UserUpdateType.COLLECT,
+                        Map.of(
+                                UserProfilePropertyName.valueOf("otherProperty"),
+                                UserProfilePropertyValue.valueOf(List.of("shield")),
+                                PROPERTY_NAME,
+                                UserProfilePropertyValue.valueOf(List.of("sword"))));
+
+        assertThat(userProfileUpdateCoalescer.coalesce(List.of(incrementUpdate, collectUpdate)))
+                .extracting(CoalescedUserProfileUpdate::propertyUpdates)
+                .first()
+                .isEqualTo(
+                        Map.of(PROPERTY_NAME, createPropertyUpdate(UserUpdateType.INCREMENT, 1)));
+    }
+
+    @Test
+    void coalesceNoUpdates_returnsNoWrites() {
+        assertThat(userProfileUpdateCoalescer.coalesce(List.of())).isEmpty();
+    }
+
+    @Test
+    void coalesceUpdatesOfDifferentUsers_throwsException() {
+        var otherUserUpdate =
+                new UserProfileUpdate(
+                        UserId.valueOf("other-user"),
+                        UserUpdateType.INCREMENT,
+                        UserProfileUpdateFixture.INCREMENT_PROFILE_PROPERTY);
+
+        assertThatThrownBy(
+                        () ->
+                                userProfileUpdateCoalescer.coalesce(
+                                        List.of(
+                                                UserProfileUpdateFixture
+                                                        .INCREMENT_USER_PROFILE_UPDATE,
+                                                otherUserUpdate)))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static UserProfileUpdate createUserProfileUpdate(
+            UserUpdateType userUpdateType, Object value) {
+        return new UserProfileUpdate(
+                UserProfileFixtures.USER_ID,
+                userUpdateType,
+                Map.of(PROPERTY_NAME, UserProfilePropertyValue.valueOf(value)));
+    }
+
+    private static UserProfilePropertyUpdate createPropertyUpdate(
+            UserUpdateType userUpdateType, Object value) {
+        return new UserProfilePropertyUpdate(
+                userUpdateType, UserProfilePropertyValue.valueOf(value));
+    }
+}
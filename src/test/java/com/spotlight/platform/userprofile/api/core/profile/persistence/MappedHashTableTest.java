@@ -0,0 +1,155 @@
+package com.spotlight.platform.userprofile.api.core.profile.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.IntStream;
+
+class MappedHashTableTest {
+    private static final int CHUNK_SIZE = 1024;
+
+    @TempDir Path directory;
+
+    private MappedHashTable table;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        table = open();
+    }
+
+    @AfterEach
+    void afterEach() throws IOException {
+        table.close();
+    }
+
+    @Test
+    void getMissingKey_returnsNull() {
+        assertThat(table.get(bytes("missing"), hash("missing"))).isNull();
+    }
+
+    @Test
+    void putAndGet_returnsValue() throws IOException {
+        put("key", "value");
+
+        assertThat(get("key")).isEqualTo("value");
+        assertThat(table.size()).isEqualTo(1);
+    }
+
+    @Test
+    void getWithReader_readsValueWithoutCopy() throws IOException {
+        put("key", "value");
+
+        assertThat(table.get(bytes("key"), hash("key"), ByteBuffer::remaining)).isEqualTo(5);
+        assertThat(table.get(bytes("missing"), hash("missing"), ByteBuffer::remaining)).isNull();
+    }
+
+    @Test
+    void putSmallerValue_updatesInPlace() throws IOException {
+        put("key", "long value");
+        long dataBytes = table.getDataBytes();
+
+        put("key", "short");
+
+        assertThat(get("key")).isEqualTo("short");
+        assertThat(table.getDataBytes()).isEqualTo(dataBytes);
+        assertThat(table.getGarbageBytes()).isZero();
+    }
+
+    @Test
+    void putLargerValue_movesRecord() throws IOException {
+        put("key", "short");
+
+        put("key", "a value longer than the spare capacity of the record");
+
+        assertThat(get("key")).isEqualTo("a value longer than the spare capacity of the record");
+        assertThat(table.size()).isEqualTo(1);
+        assertThat(table.getGarbageBytes()).isPositive();
+    }
+
+    @Test
+    void putManyKeys_resizesIndexAndSpansChunks() throws IOException {
+        IntStream.range(0, 1000).forEach(i -> putUnchecked("key-" + i, "value-" + i));
+
+        assertThat(table.size()).isEqualTo(1000);
+        assertThat(table.getDataBytes()).isGreaterThan(CHUNK_SIZE);
+        IntStream.range(0, 1000)
+                .forEach(i -> assertThat(get("key-" + i)).isEqualTo("value-" + i));
+        assertThat(table.values()).hasSize(1000);
+    }
+
+    @Test
+    void putKeysWithSameHash_keepsBoth() throws IOException {
+        table.put(bytes("first"), 42, bytes("first value"));
+        table.put(bytes("second"), 42, bytes("second value"));
+
+        assertThat(table.get(bytes("first"), 42)).isEqualTo(bytes("first value"));
+        assertThat(table.get(bytes("second"), 42)).isEqualTo(bytes("second value"));
+    }
+
+    @Test
+    void closeAndReopen_keepsEveryValue() throws IOException {
+        IntStream.range(0, 100).forEach(i -> putUnchecked("key-" + i, "value-" + i));
+
+        table.close();
+        table = open();
+
+        assertThat(table.size()).isEqualTo(100);
+        IntStream.range(0, 100)
+                .forEach(i -> assertThat(get("key-" + i)).isEqualTo("value-" + i));
+    }
+
+    @Test
+    void putValueLargerThanChunk_throwsException() {
+        assertThatThrownBy(() -> table.put(bytes("key"), hash("key"), new byte[CHUNK_SIZE]))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void openUnknownIndexFile_throwsException() throws IOException {
+        Path indexFile = directory.resolve("unknown.index");
+        Path dataFile = directory.resolve("unknown.data");
+        Files.write(indexFile, new byte[64]);
+
+        assertThatThrownBy(() -> MappedHashTable.open(indexFile, dataFile, 0, CHUNK_SIZE))
+                .isExactlyInstanceOf(IOException.class);
+    }
+
+    private MappedHashTable open() throws IOException {
+        return MappedHashTable.open(
+                directory.resolve("test.index"), directory.resolve("test.data"), 0, CHUNK_SIZE);
+    }
+
+    private void put(String key, String value) throws IOException {
+        table.put(bytes(key), hash(key), bytes(value));
+    }
+
+    private void putUnchecked(String key, String value) {
+        try {
+            put(key, value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String get(String key) {
+        return new String(table.get(bytes(key), hash(key)), StandardCharsets.UTF_8);
+    }
+
+    private static int hash(String key) {
+        return key.hashCode();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
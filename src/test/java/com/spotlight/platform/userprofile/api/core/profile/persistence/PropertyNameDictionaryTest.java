@@ -0,0 +1,116 @@
+package com.spotlight.platform.userprofile.api.core.profile.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+
+class PropertyNameDictionaryTest {
+    private static final UserProfilePropertyName FIRST_NAME =
+            UserProfilePropertyName.valueOf("first");
+    private static final UserProfilePropertyName SECOND_NAME =
+            UserProfilePropertyName.valueOf("second");
+
+    @TempDir Path directory;
+
+    private PropertyNameDictionary dictionary;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        dictionary = open(PropertyNameDictionary.DEFAULT_MAX_SIZE);
+    }
+
+    @AfterEach
+    void afterEach() throws IOException {
+        dictionary.close();
+    }
+
+    @Test
+    void getIdOfUnknownName_returnsNoId() {
+        assertThat(dictionary.getId(FIRST_NAME)).isEqualTo(PropertyNameDictionary.NO_ID);
+    }
+
+    @Test
+    void getOrAssignId_assignsConsecutiveIdsOncePerName() {
+        assertThat(dictionary.getOrAssignId(FIRST_NAME)).isZero();
+        assertThat(dictionary.getOrAssignId(SECOND_NAME)).isEqualTo(1);
+        assertThat(dictionary.getOrAssignId(FIRST_NAME)).isZero();
+
+        assertThat(dictionary.getId(SECOND_NAME)).isEqualTo(1);
+        assertThat(dictionary.getName(1)).isEqualTo(SECOND_NAME);
+        assertThat(dictionary.size()).isEqualTo(2);
+    }
+
+    @Test
+    void getOrAssignIdOfManyNames_keepsEveryName() {
+        IntStream.range(0, 1000)
+                .forEach(i -> dictionary.getOrAssignId(UserProfilePropertyName.valueOf("p" + i)));
+
+        IntStream.range(0, 1000)
+                .forEach(
+                        i ->
+                                assertThat(dictionary.getName(i))
+                                        .isEqualTo(UserProfilePropertyName.valueOf("p" + i)));
+    }
+
+    @Test
+    void getOrAssignIdWhenFull_returnsNoId() throws IOException {
+        dictionary.close();
+        dictionary = open(1);
+
+        assertThat(dictionary.getOrAssignId(FIRST_NAME)).isZero();
+        assertThat(dictionary.getOrAssignId(SECOND_NAME)).isEqualTo(PropertyNameDictionary.NO_ID);
+    }
+
+    @Test
+    void getNameOfUnknownId_throwsException() {
+        assertThatThrownBy(() -> dictionary.getName(0))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void reopen_keepsAssignedIds() throws IOException {
+        dictionary.getOrAssignId(FIRST_NAME);
+        dictionary.getOrAssignId(SECOND_NAME);
+
+        dictionary.close();
+        dictionary = open(PropertyNameDictionary.DEFAULT_MAX_SIZE);
+
+        assertThat(dictionary.getId(FIRST_NAME)).isZero();
+        assertThat(dictionary.getId(SECOND_NAME)).isEqualTo(1);
+    }
+
+    @Test
+    void reopenWithTornName_dropsTornName() throws IOException {
+        dictionary.getOrAssignId(FIRST_NAME);
+        dictionary.close();
+        Files.write(getFile(), new byte[] {0, 0, 0, 9, 1}, StandardOpenOption.APPEND);
+
+        dictionary = open(PropertyNameDictionary.DEFAULT_MAX_SIZE);
+
+        assertThat(dictionary.size()).isEqualTo(1);
+        assertThat(dictionary.getOrAssignId(SECOND_NAME)).isEqualTo(1);
+        dictionary.close();
+        dictionary = open(PropertyNameDictionary.DEFAULT_MAX_SIZE);
+        assertThat(dictionary.getName(1)).isEqualTo(SECOND_NAME);
+    }
+
+    private PropertyNameDictionary open(int maxSize) throws IOException {
+        return PropertyNameDictionary.open(getFile(), maxSize);
+    }
+
+    private Path getFile() {
+        return directory.resolve("property-names.dict");
+    }
+}
@@ -0,0 +1,111 @@
+package com.spotlight.platform.userprofile.api.core.profile.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+class SnapshotStoreTest {
+    @TempDir Path directory;
+
+    private SnapshotStore snapshotStore;
+
+    @BeforeEach
+    void beforeEach() {
+        snapshotStore = new SnapshotStore(directory, 4);
+    }
+
+    @Test
+    void loadLatestWithoutSnapshot_loadsNothing() throws IOException {
+        Queue<String> loadedRecords = new ConcurrentLinkedQueue<>();
+
+        assertThat(snapshotStore.loadLatest(record -> loadedRecords.add(decode(record))))
+                .isEmpty();
+        assertThat(loadedRecords).isEmpty();
+    }
+
+    @Test
+    void writeAndLoadLatest_loadsEveryRecordOfNewestSnapshot() throws IOException {
+        List<String> records = IntStream.range(0, 10).mapToObj(i -> "record-" + i).toList();
+        write(1, List.of("outdated"));
+        write(2, records);
+        Queue<String> loadedRecords = new ConcurrentLinkedQueue<>();
+
+        assertThat(snapshotStore.loadLatest(record -> loadedRecords.add(decode(record))))
+                .hasValue(2);
+        assertThat(loadedRecords).containsExactlyInAnyOrderElementsOf(records);
+        assertThat(listFiles(directory.resolve("snapshot-00000000000000000002"))).hasSize(4);
+    }
+
+    @Test
+    void loadLatestWithIncompleteSnapshot_loadsLatestCompleteSnapshot() throws IOException {
+        write(1, List.of("complete"));
+        Files.createDirectories(directory.resolve("snapshot-00000000000000000002.tmp"));
+        Queue<String> loadedRecords = new ConcurrentLinkedQueue<>();
+
+        assertThat(snapshotStore.loadLatest(record -> loadedRecords.add(decode(record))))
+                .hasValue(1);
+        assertThat(loadedRecords).containsExactly("complete");
+    }
+
+    @Test
+    void loadLatestWithCorruptedPartition_throwsException() throws IOException {
+        write(1, List.of("corrupted"));
+        Path partitionFile =
+                directory.resolve("snapshot-00000000000000000001").resolve("partition-0000");
+        try (var channel = FileChannel.open(partitionFile, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(encode("X")), channel.size() - 1);
+        }
+
+        assertThatThrownBy(() -> snapshotStore.loadLatest(record -> {}))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("partition-0000");
+    }
+
+    @Test
+    void deleteOlderThan_deletesOlderAndIncompleteSnapshots() throws IOException {
+        write(1, List.of("old"));
+        Files.createDirectories(directory.resolve("snapshot-00000000000000000002.tmp"));
+        write(3, List.of("new"));
+
+        snapshotStore.deleteOlderThan(3);
+
+        assertThat(listFiles(directory))
+                .containsExactly(directory.resolve("snapshot-00000000000000000003"));
+    }
+
+    private void write(long snapshotId, Collection<String> records) throws IOException {
+        snapshotStore.write(
+                snapshotId, records.stream().map(SnapshotStoreTest::encode).iterator());
+    }
+
+    private static List<Path> listFiles(Path path) throws IOException {
+        try (Stream<Path> files = Files.list(path)) {
+            return files.toList();
+        }
+    }
+
+    private static byte[] encode(String record) {
+        return record.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String decode(ByteBuffer record) {
+        return StandardCharsets.UTF_8.decode(record).toString();
+    }
+}
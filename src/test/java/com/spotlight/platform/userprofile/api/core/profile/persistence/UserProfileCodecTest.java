@@ -0,0 +1,276 @@
+package com.spotlight.platform.userprofile.api.core.profile.persistence;
+
+import static com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfileFixtures.SERIALIZED_USER_PROFILE;
+import static com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfileFixtures.SERIALIZED_USER_PROFILE_WITH_ALL_VALUE_TYPES;
+
+import static net.javacrumbs.jsonunit.assertj.JsonAssertions.assertThatJson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.spotlight.platform.userprofile.api.core.json.JsonMapper;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfile;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfileFixtures;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyName;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyValue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class UserProfileCodecTest {
+    private static final UserProfilePropertyName NAME = UserProfilePropertyName.valueOf("name");
+
+    @TempDir Path directory;
+
+    private PropertyNameDictionary dictionary;
+    private UserProfileCodec codec;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        openCodec(PropertyNameDictionary.DEFAULT_MAX_SIZE);
+    }
+
+    @AfterEach
+    void afterEach() throws IOException {
+        dictionary.close();
+    }
+
+    @Test
+    void encodeAndDecodeFixture_returnsEqualProfile() throws JsonProcessingException {
+        UserProfile userProfile = readJson(SERIALIZED_USER_PROFILE);
+
+        assertThat(roundTrip(userProfile)).isEqualTo(userProfile);
+    }
+
+    @Test
+    void encodeAndDecodeAllValueTypes_returnsProfileWithSameJson()
+            throws JsonProcessingException {
+        UserProfile userProfile = readJson(SERIALIZED_USER_PROFILE_WITH_ALL_VALUE_TYPES);
+
+        UserProfile decodedProfile = roundTrip(userProfile);
+
+        assertThat(decodedProfile).isEqualTo(userProfile);
+        assertThatJson(JsonMapper.getInstance().writeValueAsString(decodedProfile))
+                .isEqualTo(SERIALIZED_USER_PROFILE_WITH_ALL_VALUE_TYPES);
+    }
+
+    @Test
+    void encodeAndDecodeTimeWithNanos_keepsTime() {
+        var userProfile =
+                new UserProfile(
+                        UserProfileFixtures.USER_ID,
+                        Instant.parse("1960-01-01T00:00:00.123456789Z"),
+                        Map.of());
+
+        assertThat(roundTrip(userProfile)).isEqualTo(userProfile);
+    }
+
+    @Test
+    void encodeAndDecodeWithoutTime_keepsMissingTime() {
+        var userProfile = new UserProfile(UserProfileFixtures.USER_ID, null, Map.of());
+
+        assertThat(roundTrip(userProfile)).isEqualTo(userProfile);
+    }
+
+    @Test
+    void encodeAndDecode_keepsProfileVersion() {
+        var userProfile =
+                new UserProfile(
+                        UserProfileFixtures.USER_ID,
+                        UserProfileFixtures.LAST_UPDATE_TIMESTAMP,
+                        Map.of(),
+                        1L << 40);
+
+        assertThat(roundTrip(userProfile).version()).isEqualTo(1L << 40);
+    }
+
+    @Test
+    void decodeVersionWithoutProfileVersion_returnsInitialProfileVersion()
+            throws JsonProcessingException {
+        UserProfile userProfile = readJson(SERIALIZED_USER_PROFILE_WITH_ALL_VALUE_TYPES);
+        byte[] encodedProfile = codec.encode(userProfile);
+        // Drops the single byte of the initial profile version following the user id
+        int profileVersionIndex = 2 + encodedProfile[1];
+        assertThat(encodedProfile[profileVersionIndex]).isZero();
+        var oldEncodedProfile = new byte[encodedProfile.length - 1];
+        System.arraycopy(encodedProfile, 0, oldEncodedProfile, 0, profileVersionIndex);
+        System.arraycopy(
+                encodedProfile,
+                profileVersionIndex + 1,
+                oldEncodedProfile,
+                profileVersionIndex,
+                oldEncodedProfile.length - profileVersionIndex);
+        oldEncodedProfile[0] = 1;
+
+        assertThat(codec.decode(ByteBuffer.wrap(oldEncodedProfile))).isEqualTo(userProfile);
+        assertThat(codec.decodeProperty(ByteBuffer.wrap(oldEncodedProfile), NAME))
+                .contains(UserProfilePropertyValue.valueOf("property1Value"));
+    }
+
+    @Test
+    void encodeWithFullDictionary_writesNamesInline() throws IOException {
+        dictionary.close();
+        openCodec(1);
+        UserProfile userProfile = readJson(SERIALIZED_USER_PROFILE_WITH_ALL_VALUE_TYPES);
+
+        byte[] encodedProfile = codec.encode(userProfile);
+
+        assertThat(dictionary.size()).isEqualTo(1);
+        assertThat(codec.decode(ByteBuffer.wrap(encodedProfile))).isEqualTo(userProfile);
+        assertThat(codec.decodeProperty(ByteBuffer.wrap(encodedProfile), NAME))
+                .contains(UserProfilePropertyValue.valueOf("property1Value"));
+    }
+
+    @Test
+    void decodePropertyFromDirectBuffer_returnsOnlyThatValue() throws JsonProcessingException {
+        byte[] encodedProfile =
+                codec.encode(readJson(SERIALIZED_USER_PROFILE_WITH_ALL_VALUE_TYPES));
+        ByteBuffer buffer = ByteBuffer.allocateDirect(encodedProfile.length).put(encodedProfile);
+        buffer.flip();
+
+        assertThat(codec.decodeProperty(buffer, NAME))
+                .contains(UserProfilePropertyValue.valueOf("property1Value"));
+        assertThat(codec.decodeProperty(buffer, UserProfilePropertyName.valueOf("counter")))
+                .contains(UserProfilePropertyValue.valueOf(42));
+        assertThat(codec.decodeProperty(buffer, UserProfilePropertyName.valueOf("unknown")))
+                .isEmpty();
+        assertThat(buffer.position()).isZero();
+    }
+
+    @Test
+    void encode_isFractionOfJsonSize() throws JsonProcessingException {
+        for (String serializedProfile :
+                List.of(SERIALIZED_USER_PROFILE, SERIALIZED_USER_PROFILE_WITH_ALL_VALUE_TYPES)) {
+            UserProfile userProfile = readJson(serializedProfile);
+            byte[] json = JsonMapper.getInstance().writeValueAsBytes(userProfile);
+
+            assertThat(codec.encode(userProfile)).hasSizeLessThan(json.length / 2);
+        }
+    }
+
+    @Test
+    void encodeChangesAndDecodeOntoPreviousProfile_returnsEqualProfile()
+            throws JsonProcessingException {
+        UserProfile previousProfile = readJson(SERIALIZED_USER_PROFILE_WITH_ALL_VALUE_TYPES);
+        var properties = new LinkedHashMap<>(previousProfile.userProfileProperties());
+        properties.put(NAME, UserProfilePropertyValue.valueOf("changedValue"));
+        var userProfile =
+                new UserProfile(
+                        previousProfile.userId(),
+                        Instant.parse("2030-01-01T00:00:00Z"),
+                        properties,
+                        previousProfile.version() + 1);
+
+        byte[] changes = codec.encodeChanges(previousProfile, userProfile);
+
+        assertThat(changes).hasSizeLessThan(codec.encode(userProfile).length / 2);
+        assertThat(codec.decodeUserId(ByteBuffer.wrap(changes))).isEqualTo(userProfile.userId());
+        assertThat(codec.decodeChanges(ByteBuffer.wrap(changes), previousProfile))
+                .isEqualTo(userProfile);
+        assertThatThrownBy(() -> codec.decode(ByteBuffer.wrap(changes)))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void encodeChangesWithoutPreviousProfile_encodesWholeProfile() {
+        byte[] changes = codec.encodeChanges(null, UserProfileFixtures.USER_PROFILE);
+
+        assertThat(codec.decode(ByteBuffer.wrap(changes)))
+                .isEqualTo(UserProfileFixtures.USER_PROFILE);
+    }
+
+    @Test
+    void encodeChangesOfGivenProperties_encodesOnlyThoseProperties()
+            throws JsonProcessingException {
+        UserProfile previousProfile = readJson(SERIALIZED_USER_PROFILE_WITH_ALL_VALUE_TYPES);
+        var properties = new LinkedHashMap<>(previousProfile.userProfileProperties());
+        properties.put(NAME, UserProfilePropertyValue.valueOf("changedValue"));
+        var userProfile =
+                new UserProfile(
+                        previousProfile.userId(),
+                        Instant.parse("2030-01-01T00:00:00Z"),
+                        properties,
+                        previousProfile.version() + 1);
+
+        byte[] changes = codec.encodeChanges(previousProfile, userProfile, List.of(NAME));
+
+        assertThat(changes).isEqualTo(codec.encodeChanges(previousProfile, userProfile));
+        assertThat(codec.encodeChanges(null, userProfile, List.of(NAME)))
+                .isEqualTo(codec.encode(userProfile));
+    }
+
+    @Test
+    void encodeChangesWithRemovedProperty_encodesWholeProfile() throws JsonProcessingException {
+        UserProfile previousProfile = readJson(SERIALIZED_USER_PROFILE_WITH_ALL_VALUE_TYPES);
+        var properties = new LinkedHashMap<>(previousProfile.userProfileProperties());
+        properties.remove(NAME);
+        var userProfile =
+                new UserProfile(
+                        previousProfile.userId(),
+                        previousProfile.latestUpdateTime(),
+                        properties,
+                        previousProfile.version() + 1);
+
+        byte[] changes = codec.encodeChanges(previousProfile, userProfile);
+
+        assertThat(codec.decode(ByteBuffer.wrap(changes))).isEqualTo(userProfile);
+        assertThat(codec.decodeChanges(ByteBuffer.wrap(changes), previousProfile))
+                .isEqualTo(userProfile);
+    }
+
+    @Test
+    void decodeChangesOfProfile_replacesPreviousProfile() throws JsonProcessingException {
+        UserProfile previousProfile = readJson(SERIALIZED_USER_PROFILE_WITH_ALL_VALUE_TYPES);
+        byte[] encodedProfile = codec.encode(UserProfileFixtures.USER_PROFILE);
+
+        assertThat(codec.decodeChanges(ByteBuffer.wrap(encodedProfile), previousProfile))
+                .isEqualTo(UserProfileFixtures.USER_PROFILE);
+    }
+
+    @Test
+    void decodeUnknownVersion_throwsException() {
+        byte[] encodedProfile = codec.encode(UserProfileFixtures.USER_PROFILE);
+        encodedProfile[0] = UserProfileCodec.VERSION + 1;
+
+        assertThatThrownBy(() -> codec.decode(ByteBuffer.wrap(encodedProfile)))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void encodeUnsupportedValue_throwsException() {
+        var userProfile =
+                new UserProfile(
+                        UserProfileFixtures.USER_ID,
+                        null,
+                        Map.of(NAME, UserProfilePropertyValue.valueOf(new Object())));
+
+        assertThatThrownBy(() -> codec.encode(userProfile))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void openCodec(int maxDictionarySize) throws IOException {
+        dictionary =
+                PropertyNameDictionary.open(
+                        directory.resolve("property-names.dict"), maxDictionarySize);
+        codec = new UserProfileCodec(dictionary);
+    }
+
+    private UserProfile roundTrip(UserProfile userProfile) {
+        return codec.decode(ByteBuffer.wrap(codec.encode(userProfile)));
+    }
+
+    private static UserProfile readJson(String json) throws JsonProcessingException {
+        return JsonMapper.getInstance().readValue(json, UserProfile.class);
+    }
+}
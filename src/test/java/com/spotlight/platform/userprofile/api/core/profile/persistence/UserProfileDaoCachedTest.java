@@ -0,0 +1,366 @@
+package com.spotlight.platform.userprofile.api.core.profile.persistence;
+
+import static com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfileFixtures.NON_EXISTING_USER_ID;
+import static com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfileFixtures.USER_ID;
+import static com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfileFixtures.USER_PROFILE;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import com.codahale.metrics.MetricRegistry;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfile;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfileFixtures;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyName;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyValue;
+
+import io.dropwizard.lifecycle.Managed;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+class UserProfileDaoCachedTest {
+    private static final long MAXIMUM_SIZE_IN_BYTES = 1 << 20;
+    private static final UserId OTHER_USER_ID = UserId.valueOf("other-user-id");
+    private static final Set<UserProfilePropertyName> CHANGED_PROPERTY_NAMES =
+            Set.of(UserProfilePropertyName.valueOf("property1"));
+    private static final UserProfile OTHER_USER_PROFILE =
+            new UserProfile(
+                    OTHER_USER_ID,
+                    UserProfileFixtures.LAST_UPDATE_TIMESTAMP,
+                    USER_PROFILE.userProfileProperties());
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private final UserProfileDao storage = spy(new UserProfileDaoInMemory());
+    private final UserProfileDao dao =
+            new UserProfileDaoCached(storage, MAXIMUM_SIZE_IN_BYTES, metricRegistry);
+
+    @Test
+    void getStoredProfileTwice_readsStorageOnce() {
+        storage.put(USER_PROFILE);
+
+        assertThat(dao.get(USER_ID)).containsSame(USER_PROFILE);
+        assertThat(dao.get(USER_ID)).containsSame(USER_PROFILE);
+
+        verify(storage, times(1)).get(USER_ID);
+        assertThat(getMeterCount("hits")).isEqualTo(1);
+        assertThat(getMeterCount("misses")).isEqualTo(1);
+        assertThat(getGaugeValue("size")).isEqualTo(1L);
+    }
+
+    @Test
+    void getEpoch_isEpochOfStorage() {
+        assertThat(dao.getEpoch()).isEqualTo(storage.getEpoch());
+    }
+
+    @Test
+    void getNonExistingUser_isNotCached() {
+        assertThat(dao.get(NON_EXISTING_USER_ID)).isEmpty();
+        assertThat(dao.get(NON_EXISTING_USER_ID)).isEmpty();
+
+        verify(storage, times(2)).get(NON_EXISTING_USER_ID);
+        assertThat(getGaugeValue("size")).isEqualTo(0L);
+    }
+
+    @Test
+    void put_writesThroughAndDropsCachedProfile() {
+        storage.put(withVersion(5));
+        dao.get(USER_ID);
+
+        dao.put(USER_PROFILE);
+
+        assertThat(dao.get(USER_ID)).containsSame(USER_PROFILE);
+        assertThat(dao.get(USER_ID)).containsSame(USER_PROFILE);
+        verify(storage, times(2)).get(USER_ID);
+        assertThat(storage.get(USER_ID)).containsSame(USER_PROFILE);
+    }
+
+    @Test
+    void compute_writesThroughAndDropsCachedProfile() {
+        dao.put(OTHER_USER_PROFILE);
+        dao.get(OTHER_USER_ID);
+
+        var computedUserProfile =
+                dao.compute(
+                        OTHER_USER_ID,
+                        currentUserProfile -> {
+                            assertThat(currentUserProfile).containsSame(OTHER_USER_PROFILE);
+                            return new UserProfile(
+                                    OTHER_USER_ID,
+                                    UserProfileFixtures.LATEST_UPDATE_TIMESTAMP,
+                                    Map.of());
+                        });
+
+        assertThat(storage.get(OTHER_USER_ID)).containsSame(computedUserProfile);
+        assertThat(dao.get(OTHER_USER_ID)).containsSame(computedUserProfile);
+        verify(storage, never()).put(computedUserProfile);
+        assertThat(getMeterCount("misses")).isEqualTo(2);
+    }
+
+    @Test
+    void computeOfChangedProperties_writesThroughAndDropsCachedProfile() {
+        dao.put(USER_PROFILE);
+        dao.get(USER_ID);
+        var userProfile = withVersion(USER_PROFILE.version() + 1);
+
+        assertThat(dao.compute(USER_ID, currentUserProfile -> userProfile, CHANGED_PROPERTY_NAMES))
+                .isSameAs(userProfile);
+
+        verify(storage).compute(any(UserId.class), any(), eq(CHANGED_PROPERTY_NAMES));
+        assertThat(dao.get(USER_ID)).containsSame(userProfile);
+        assertThat(getMeterCount("misses")).isEqualTo(2);
+    }
+
+    @Test
+    void computeFailing_keepsCachedProfile() {
+        dao.put(USER_PROFILE);
+        dao.get(USER_ID);
+
+        assertThatThrownBy(
+                        () ->
+                                dao.compute(
+                                        USER_ID,
+                                        currentUserProfile -> {
+                                            throw new IllegalStateException();
+                                        }))
+                .isExactlyInstanceOf(IllegalStateException.class);
+
+        assertThat(dao.get(USER_ID)).containsSame(USER_PROFILE);
+        assertThat(storage.get(USER_ID)).containsSame(USER_PROFILE);
+        assertThat(getMeterCount("hits")).isEqualTo(1);
+    }
+
+    @Test
+    void putIfVersionOnStoredVersion_writesThroughAndReplacesCachedProfile() {
+        dao.put(USER_PROFILE);
+        dao.get(USER_ID);
+        var userProfile = withVersion(USER_PROFILE.version() + 1);
+
+        assertThat(dao.putIfVersion(userProfile, USER_PROFILE.version())).isTrue();
+
+        assertThat(storage.get(USER_ID)).containsSame(userProfile);
+        assertThat(dao.get(USER_ID)).containsSame(userProfile);
+        assertThat(getMeterCount("misses")).isEqualTo(1);
+    }
+
+    @Test
+    void putIfVersionOfChangedProperties_writesThroughAndReplacesCachedProfile() {
+        dao.put(USER_PROFILE);
+        dao.get(USER_ID);
+        var userProfile = withVersion(USER_PROFILE.version() + 1);
+
+        assertThat(dao.putIfVersion(userProfile, USER_PROFILE.version(), CHANGED_PROPERTY_NAMES))
+                .isTrue();
+
+        verify(storage)
+                .putIfVersion(userProfile, USER_PROFILE.version(), CHANGED_PROPERTY_NAMES);
+        assertThat(dao.get(USER_ID)).containsSame(userProfile);
+        assertThat(getMeterCount("misses")).isEqualTo(1);
+    }
+
+    @Test
+    void putIfVersionOfUncachedProfile_writesThroughWithoutCaching() {
+        var userProfile = withVersion(USER_PROFILE.version() + 1);
+
+        assertThat(dao.putIfVersion(userProfile, USER_PROFILE.version())).isTrue();
+
+        assertThat(storage.get(USER_ID)).containsSame(userProfile);
+        assertThat(getGaugeValue("size")).isEqualTo(0L);
+    }
+
+    @Test
+    void putIfVersionBehindCachedProfile_keepsCachedProfile() {
+        // The storage accepts a version the cache has already seen a later version of, as happens
+        // when the writer of the later version updated the cache first
+        UserProfileDao acceptingStorage = mock(UserProfileDao.class);
+        var acceptingDao =
+                new UserProfileDaoCached(
+                        acceptingStorage, MAXIMUM_SIZE_IN_BYTES, new MetricRegistry());
+        UserProfile laterUserProfile = withVersion(6);
+        when(acceptingStorage.get(USER_ID)).thenReturn(Optional.of(laterUserProfile));
+        when(acceptingStorage.putIfVersion(any(UserProfile.class), anyLong())).thenReturn(true);
+        acceptingDao.get(USER_ID);
+
+        assertThat(acceptingDao.putIfVersion(withVersion(5), 4)).isTrue();
+
+        assertThat(acceptingDao.get(USER_ID)).containsSame(laterUserProfile);
+    }
+
+    @Test
+    void putIfVersionOnOtherVersion_dropsCachedProfile() {
+        dao.put(USER_PROFILE);
+        dao.get(USER_ID);
+        var storedUserProfile = withVersion(USER_PROFILE.version() + 1);
+        storage.put(storedUserProfile);
+
+        assertThat(dao.putIfVersion(withVersion(5), USER_PROFILE.version())).isFalse();
+
+        assertThat(dao.get(USER_ID)).containsSame(storedUserProfile);
+        assertThat(getMeterCount("misses")).isEqualTo(2);
+    }
+
+    @Test
+    void getAll_readsOnlyUncachedProfilesFromStorage() {
+        dao.put(USER_PROFILE);
+        dao.get(USER_ID);
+        storage.put(OTHER_USER_PROFILE);
+
+        assertThat(dao.getAll(List.of(USER_ID, OTHER_USER_ID, NON_EXISTING_USER_ID)))
+                .containsOnly(
+                        Map.entry(USER_ID, USER_PROFILE),
+                        Map.entry(OTHER_USER_ID, OTHER_USER_PROFILE));
+
+        verify(storage).getAll(List.of(OTHER_USER_ID, NON_EXISTING_USER_ID));
+        assertThat(getMeterCount("hits")).isEqualTo(1);
+        assertThat(getMeterCount("misses")).isEqualTo(3);
+    }
+
+    @Test
+    void getAllCachedProfiles_doesNotReadStorage() {
+        dao.put(USER_PROFILE);
+        dao.get(USER_ID);
+
+        assertThat(dao.getAll(List.of(USER_ID))).containsOnly(Map.entry(USER_ID, USER_PROFILE));
+
+        verify(storage, never()).getAll(any());
+    }
+
+    @Test
+    void getBeyondMaximumSize_evictsProfiles() {
+        var smallDaoMetricRegistry = new MetricRegistry();
+        long maximumSizeInBytes = 10L * UserProfileDaoCached.estimateSize(USER_PROFILE);
+        var smallDao =
+                new UserProfileDaoCached(storage, maximumSizeInBytes, smallDaoMetricRegistry);
+
+        IntStream.range(0, 100)
+                .mapToObj(
+                        i ->
+                                new UserProfile(
+                                        UserId.valueOf("user-" + i),
+                                        UserProfileFixtures.LAST_UPDATE_TIMESTAMP,
+                                        USER_PROFILE.userProfileProperties()))
+                .forEach(
+                        userProfile -> {
+                            smallDao.put(userProfile);
+                            smallDao.get(userProfile.userId());
+                        });
+
+        assertThat(getMeterCount(smallDaoMetricRegistry, "evictions")).isPositive();
+        assertThat((Long) getGaugeValue(smallDaoMetricRegistry, "weight-bytes"))
+                .isLessThanOrEqualTo(maximumSizeInBytes);
+        assertThat(storage.streamAll()).hasSize(100);
+    }
+
+    @Test
+    void estimateSize_growsWithCollectedList() {
+        assertThat(estimateSizeWithList(Collections.nCopies(1000, "item")))
+                .isGreaterThan(estimateSizeWithList(List.of("item")))
+                .isGreaterThan(estimateSizeWithList(List.of()));
+        assertThat(
+                        UserProfileDaoCached.estimateSize(
+                                new UserProfile(
+                                        USER_ID,
+                                        null,
+                                        Collections.singletonMap(
+                                                UserProfilePropertyName.valueOf("inventory"),
+                                                null))))
+                .isPositive();
+    }
+
+    @Test
+    void estimateSizeOfManyProperties_scalesSampledProperties() {
+        int sizeWithoutProperties = estimateSizeWithProperties(0);
+
+        assertThat(estimateSizeWithProperties(1000) - sizeWithoutProperties)
+                .isEqualTo(100 * (estimateSizeWithProperties(10) - sizeWithoutProperties));
+    }
+
+    @Test
+    void startAndStop_delegateToManagedStorage() throws Exception {
+        UserProfileDao managedStorage =
+                mock(UserProfileDao.class, withSettings().extraInterfaces(Managed.class));
+        var managedDao =
+                new UserProfileDaoCached(
+                        managedStorage, MAXIMUM_SIZE_IN_BYTES, new MetricRegistry());
+
+        managedDao.start();
+        managedDao.stop();
+
+        verify((Managed) managedStorage).start();
+        verify((Managed) managedStorage).stop();
+    }
+
+    @Test
+    void startAndStopOfUnmanagedStorage_doNothing() throws Exception {
+        ((Managed) dao).start();
+        ((Managed) dao).stop();
+
+        verify(storage, never()).get(any());
+    }
+
+    private static UserProfile withVersion(long version) {
+        return new UserProfile(
+                USER_ID,
+                USER_PROFILE.latestUpdateTime(),
+                USER_PROFILE.userProfileProperties(),
+                version);
+    }
+
+    private static int estimateSizeWithProperties(int propertyCount) {
+        var properties = new LinkedHashMap<UserProfilePropertyName, UserProfilePropertyValue>();
+        for (int i = 0; i < propertyCount; i++) {
+            properties.put(
+                    UserProfilePropertyName.valueOf("property" + i),
+                    UserProfilePropertyValue.valueOf("value"));
+        }
+        return UserProfileDaoCached.estimateSize(new UserProfile(USER_ID, null, properties));
+    }
+
+    private static int estimateSizeWithList(List<?> list) {
+        return UserProfileDaoCached.estimateSize(
+                new UserProfile(
+                        USER_ID,
+                        null,
+                        Map.of(
+                                UserProfilePropertyName.valueOf("inventory"),
+                                UserProfilePropertyValue.valueOf(list))));
+    }
+
+    private long getMeterCount(String name) {
+        return getMeterCount(metricRegistry, name);
+    }
+
+    private Object getGaugeValue(String name) {
+        return getGaugeValue(metricRegistry, name);
+    }
+
+    private static long getMeterCount(MetricRegistry metricRegistry, String name) {
+        return metricRegistry
+                .meter(MetricRegistry.name(UserProfileDaoCached.METRICS_PREFIX, name))
+                .getCount();
+    }
+
+    private static Object getGaugeValue(MetricRegistry metricRegistry, String name) {
+        return metricRegistry
+                .getGauges()
+                .get(MetricRegistry.name(UserProfileDaoCached.METRICS_PREFIX, name))
+                .getValue();
+    }
+}
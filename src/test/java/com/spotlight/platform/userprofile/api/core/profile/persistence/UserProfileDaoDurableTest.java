@@ -0,0 +1,387 @@
+package com.spotlight.platform.userprofile.api.core.profile.persistence;
+
+import static com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfileFixtures.USER_PROFILE;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.codahale.metrics.MetricRegistry;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfile;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfileFixtures;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyName;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyValue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+class UserProfileDaoDurableTest {
+    private static final UserProfilePropertyName COUNTER =
+            UserProfilePropertyName.valueOf("counter");
+
+    @TempDir Path dataDirectory;
+
+    private final ScheduledExecutorService snapshotExecutor =
+            Executors.newSingleThreadScheduledExecutor();
+    private MetricRegistry metricRegistry;
+    private UserProfileDaoDurable dao;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        dao = startDao();
+    }
+
+    @AfterEach
+    void afterEach() throws IOException {
+        dao.stop();
+        snapshotExecutor.shutdownNow();
+    }
+
+    @Test
+    void getNonExistingUser_OptionalEmptyReturned() {
+        assertThat(dao.get(UserProfileFixtures.NON_EXISTING_USER_ID)).isEmpty();
+    }
+
+    @Test
+    void putAndRestart_ProfileIsRecovered() throws IOException {
+        dao.put(USER_PROFILE);
+
+        restartDao();
+
+        assertThat(dao.get(UserProfileFixtures.USER_ID)).contains(USER_PROFILE);
+    }
+
+    @Test
+    void restart_EpochIsKept() throws IOException {
+        String epoch = dao.getEpoch();
+
+        restartDao();
+
+        assertThat(dao.getEpoch()).isNotBlank().isEqualTo(epoch);
+    }
+
+    @Test
+    void computeAndRestart_LatestProfileIsRecovered() throws IOException {
+        var propertyName = UserProfilePropertyName.valueOf("counter");
+        IntStream.range(0, 100)
+                .parallel()
+                .forEach(
+                        i ->
+                                dao.compute(
+                                        UserProfileFixtures.USER_ID,
+                                        currentUserProfile ->
+                                                incrementCounter(
+                                                        currentUserProfile.orElse(USER_PROFILE),
+                                                        propertyName)));
+
+        restartDao();
+
+        assertThat(dao.get(UserProfileFixtures.USER_ID))
+                .hasValueSatisfying(
+                        userProfile ->
+                                assertThat(userProfile.userProfileProperties())
+                                        .containsEntry(
+                                                propertyName,
+                                                UserProfilePropertyValue.valueOf(100)));
+    }
+
+    @Test
+    void putIfVersionAndRestart_OnlyProfileOfStoredVersionIsRecovered() throws IOException {
+        dao.put(USER_PROFILE);
+        var userProfile =
+                new UserProfile(
+                        UserProfileFixtures.USER_ID,
+                        UserProfileFixtures.LATEST_UPDATE_TIMESTAMP,
+                        Map.of(COUNTER, UserProfilePropertyValue.valueOf(1)),
+                        USER_PROFILE.version() + 1);
+
+        assertThat(dao.putIfVersion(userProfile, USER_PROFILE.version())).isTrue();
+        assertThat(dao.putIfVersion(USER_PROFILE, USER_PROFILE.version())).isFalse();
+        restartDao();
+
+        assertThat(dao.get(UserProfileFixtures.USER_ID)).contains(userProfile);
+    }
+
+    @Test
+    void updateOfLargeProfileAndRestart_OnlyChangesAreLoggedAndProfileIsRecovered()
+            throws IOException {
+        var properties = getLargeProfileProperties();
+        var userProfile =
+                new UserProfile(
+                        UserProfileFixtures.USER_ID,
+                        UserProfileFixtures.LATEST_UPDATE_TIMESTAMP,
+                        properties,
+                        1);
+        dao.put(userProfile);
+        long logSizeAfterPut = getLogSize();
+        properties.put(COUNTER, UserProfilePropertyValue.valueOf(1));
+        var updatedUserProfile =
+                new UserProfile(
+                        UserProfileFixtures.USER_ID,
+                        UserProfileFixtures.LATEST_UPDATE_TIMESTAMP,
+                        properties,
+                        2);
+
+        assertThat(dao.putIfVersion(updatedUserProfile, 1)).isTrue();
+        assertThat(getLogSize() - logSizeAfterPut).isLessThan(logSizeAfterPut / 10);
+        restartDao();
+
+        assertThat(dao.get(UserProfileFixtures.USER_ID)).contains(updatedUserProfile);
+    }
+
+    @Test
+    void updateOfGivenPropertiesAndRestart_OnlyThoseAreLoggedAndProfileIsRecovered()
+            throws IOException {
+        dao.put(
+                new UserProfile(
+                        UserProfileFixtures.USER_ID,
+                        UserProfileFixtures.LATEST_UPDATE_TIMESTAMP,
+                        getLargeProfileProperties(),
+                        1));
+        long logSizeAfterPut = getLogSize();
+        // Equal to the stored values but other instances, which comparing the profiles would log
+        var properties = getLargeProfileProperties();
+        properties.put(COUNTER, UserProfilePropertyValue.valueOf(1));
+        var updatedUserProfile =
+                new UserProfile(
+                        UserProfileFixtures.USER_ID,
+                        UserProfileFixtures.LATEST_UPDATE_TIMESTAMP,
+                        Map.copyOf(properties),
+                        2);
+        properties.put(COUNTER, UserProfilePropertyValue.valueOf(2));
+        var computedUserProfile =
+                new UserProfile(
+                        UserProfileFixtures.USER_ID,
+                        UserProfileFixtures.LATEST_UPDATE_TIMESTAMP,
+                        properties,
+                        3);
+
+        assertThat(dao.putIfVersion(updatedUserProfile, 1, List.of(COUNTER))).isTrue();
+        dao.compute(
+                UserProfileFixtures.USER_ID,
+                currentUserProfile -> computedUserProfile,
+                List.of(COUNTER));
+        assertThat(getLogSize() - logSizeAfterPut).isLessThan(logSizeAfterPut / 10);
+        restartDao();
+
+        assertThat(dao.get(UserProfileFixtures.USER_ID)).contains(computedUserProfile);
+    }
+
+    @Test
+    void putDifferentValueTypesAndRestart_ValuesKeepTheirTypes() throws IOException {
+        var userProfile =
+                new UserProfile(
+                        UserProfileFixtures.USER_ID,
+                        UserProfileFixtures.LATEST_UPDATE_TIMESTAMP,
+                        Map.of(
+                                UserProfilePropertyName.valueOf("long"),
+                                UserProfilePropertyValue.valueOf(1),
+                                UserProfilePropertyName.valueOf("double"),
+                                UserProfilePropertyValue.valueOf(1.0),
+                                UserProfilePropertyName.valueOf("list"),
+                                UserProfilePropertyValue.valueOf(List.of("sword", 2))));
+        dao.put(userProfile);
+
+        restartDao();
+
+        assertThat(dao.get(UserProfileFixtures.USER_ID)).contains(userProfile);
+    }
+
+    @Test
+    void streamAll_ReturnsEveryStoredProfile() {
+        dao.put(USER_PROFILE);
+
+        try (var userProfiles = dao.streamAll()) {
+            assertThat(userProfiles).containsExactly(USER_PROFILE);
+        }
+    }
+
+    @Test
+    void snapshotAndRestart_ProfilesAreRecoveredFromSnapshot() throws IOException {
+        List<UserProfile> userProfiles =
+                IntStream.range(0, 100).mapToObj(i -> counterProfile("user-" + i, i)).toList();
+        userProfiles.forEach(dao::put);
+
+        dao.snapshot();
+        restartDao();
+
+        assertThat(dao.streamAll()).containsExactlyInAnyOrderElementsOf(userProfiles);
+        // The first segment is covered by the snapshot
+        assertThat(listFiles(UserProfileDaoDurable.LOG_DIRECTORY_NAME))
+                .extracting(file -> file.getFileName().toString())
+                .doesNotContain("segment-00000000000000000001.wal");
+        assertThat(listFiles(UserProfileDaoDurable.SNAPSHOT_DIRECTORY_NAME)).hasSize(1);
+    }
+
+    @Test
+    void writeAfterSnapshotAndRestart_LatestProfileIsRecovered() throws IOException {
+        dao.put(counterProfile("user", 1));
+        dao.snapshot();
+        dao.put(counterProfile("user", 2));
+
+        restartDao();
+
+        assertThat(dao.get(UserId.valueOf("user"))).contains(counterProfile("user", 2));
+    }
+
+    @Test
+    void snapshotsWhileWritingAndRestart_NoWriteIsLost() throws Exception {
+        var writers =
+                CompletableFuture.runAsync(
+                        () ->
+                                IntStream.range(0, 2000)
+                                        .parallel()
+                                        .forEach(i -> incrementCounter("user-" + i % 10)));
+        while (!writers.isDone()) {
+            dao.snapshot();
+        }
+        writers.get();
+
+        restartDao();
+
+        assertThat(dao.streamAll())
+                .hasSize(10)
+                .allSatisfy(
+                        userProfile ->
+                                assertThat(userProfile.userProfileProperties())
+                                        .containsEntry(
+                                                COUNTER, UserProfilePropertyValue.valueOf(200)));
+    }
+
+    @Test
+    void snapshotWithoutWrites_NoSnapshotIsTaken() throws IOException {
+        dao.put(USER_PROFILE);
+        dao.snapshot();
+        dao.snapshot();
+
+        assertThat(metricRegistry.timer("profile-storage.snapshot").getCount()).isEqualTo(1);
+
+        restartDao();
+        dao.snapshot();
+
+        assertThat(metricRegistry.timer("profile-storage.snapshot").getCount()).isZero();
+    }
+
+    @Test
+    void snapshotAfterRestartWithReplayedLog_SnapshotIsTaken() throws IOException {
+        dao.put(USER_PROFILE);
+        restartDao();
+
+        dao.snapshot();
+
+        assertThat(metricRegistry.timer("profile-storage.snapshot").getCount()).isEqualTo(1);
+        assertThat(listFiles(UserProfileDaoDurable.LOG_DIRECTORY_NAME))
+                .extracting(file -> file.getFileName().toString())
+                .doesNotContain("segment-00000000000000000001.wal");
+        restartDao();
+        assertThat(dao.get(UserProfileFixtures.USER_ID)).contains(USER_PROFILE);
+    }
+
+    @Test
+    void start_RecoveryTimeIsReported() {
+        assertThat(metricRegistry.timer("profile-storage.recovery").getCount()).isEqualTo(1);
+    }
+
+    @Test
+    void scheduledSnapshot_IsTakenInBackground() throws Exception {
+        dao.stop();
+        dao = startDao(TimeUnit.MILLISECONDS.toNanos(10));
+        dao.put(USER_PROFILE);
+
+        while (metricRegistry.timer("profile-storage.snapshot").getCount() == 0) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        restartDao();
+
+        assertThat(dao.get(UserProfileFixtures.USER_ID)).contains(USER_PROFILE);
+    }
+
+    private List<Path> listFiles(String directoryName) throws IOException {
+        try (Stream<Path> files = Files.list(dataDirectory.resolve(directoryName))) {
+            return files.toList();
+        }
+    }
+
+    private static Map<UserProfilePropertyName, UserProfilePropertyValue>
+            getLargeProfileProperties() {
+        var properties = new LinkedHashMap<UserProfilePropertyName, UserProfilePropertyValue>();
+        for (int i = 0; i < 100; i++) {
+            properties.put(
+                    UserProfilePropertyName.valueOf("property" + i),
+                    UserProfilePropertyValue.valueOf("value" + i));
+        }
+        return properties;
+    }
+
+    private long getLogSize() throws IOException {
+        long logSize = 0;
+        for (Path file : listFiles(UserProfileDaoDurable.LOG_DIRECTORY_NAME)) {
+            logSize += Files.size(file);
+        }
+        return logSize;
+    }
+
+    private void restartDao() throws IOException {
+        dao.stop();
+        dao = startDao();
+    }
+
+    private UserProfileDaoDurable startDao() throws IOException {
+        return startDao(TimeUnit.HOURS.toNanos(1));
+    }
+
+    private UserProfileDaoDurable startDao(long snapshotIntervalNanos) throws IOException {
+        metricRegistry = new MetricRegistry();
+        var userProfileDao =
+                new UserProfileDaoDurable(
+                        dataDirectory,
+                        0,
+                        snapshotIntervalNanos,
+                        4,
+                        snapshotExecutor,
+                        metricRegistry);
+        userProfileDao.start();
+        return userProfileDao;
+    }
+
+    private void incrementCounter(String userId) {
+        dao.compute(
+                UserId.valueOf(userId),
+                currentUserProfile ->
+                        incrementCounter(
+                                currentUserProfile.orElse(counterProfile(userId, 0)), COUNTER));
+    }
+
+    private static UserProfile counterProfile(String userId, long counter) {
+        return new UserProfile(
+                UserId.valueOf(userId),
+                UserProfileFixtures.LATEST_UPDATE_TIMESTAMP,
+                Map.of(COUNTER, UserProfilePropertyValue.valueOf(counter)));
+    }
+
+    private static UserProfile incrementCounter(
+            UserProfile userProfile, UserProfilePropertyName propertyName) {
+        var currentValue =
+                userProfile
+                        .userProfileProperties()
+                        .getOrDefault(propertyName, UserProfilePropertyValue.valueOf(0));
+        return new UserProfile(
+                userProfile.userId(),
+                userProfile.latestUpdateTime(),
+                Map.of(propertyName, currentValue.increment(UserProfilePropertyValue.valueOf(1))));
+    }
+}
@@ -4,10 +4,17 @@ import static com.spotlight.platform.userprofile.api.model.profile.primitives.Us
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.spotlight.platform.userprofile.api.model.profile.UserProfile;
 import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfileFixtures;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyName;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyValue;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
 class UserProfileDaoInMemoryTest {
 
     private final UserProfileDao dao = new UserProfileDaoInMemory();
@@ -17,6 +24,13 @@ class UserProfileDaoInMemoryTest {
         assertThat(dao.get(UserProfileFixtures.NON_EXISTING_USER_ID)).isEmpty();
     }
 
+    @Test
+    void getEpoch_DiffersBetweenStorages() {
+        assertThat(dao.getEpoch())
+                .isNotBlank()
+                .isNotEqualTo(new UserProfileDaoInMemory().getEpoch());
+    }
+
     @Test
     void putAndGetUser_ReturnsCorrectValues() {
         dao.put(UserProfileFixtures.USER_PROFILE);
@@ -28,4 +42,151 @@ class UserProfileDaoInMemoryTest {
                                         .usingRecursiveComparison()
                                         .isEqualTo(USER_PROFILE));
     }
+
+    @Test
+    void computeNonExistingUser_StoresComputedValue() {
+        var computedUserProfile =
+                dao.compute(
+                        UserProfileFixtures.USER_ID,
+                        currentUserProfile -> {
+                            assertThat(currentUserProfile).isEmpty();
+                            return USER_PROFILE;
+                        });
+
+        assertThat(computedUserProfile).isSameAs(USER_PROFILE);
+        assertThat(dao.get(UserProfileFixtures.USER_ID)).containsSame(USER_PROFILE);
+    }
+
+    @Test
+    void computeExistingUser_ReceivesCurrentValue() {
+        dao.put(USER_PROFILE);
+
+        dao.compute(
+                UserProfileFixtures.USER_ID,
+                currentUserProfile -> {
+                    assertThat(currentUserProfile).containsSame(USER_PROFILE);
+                    return currentUserProfile.get();
+                });
+    }
+
+    @Test
+    void getAllUsers_ReturnsOnlyExistingUsers() {
+        dao.put(USER_PROFILE);
+
+        assertThat(
+                        dao.getAll(
+                                List.of(
+                                        UserProfileFixtures.USER_ID,
+                                        UserProfileFixtures.NON_EXISTING_USER_ID)))
+                .containsExactly(Map.entry(UserProfileFixtures.USER_ID, USER_PROFILE));
+    }
+
+    @Test
+    void streamAll_ReturnsEveryStoredProfile() {
+        var otherUserProfile =
+                new UserProfile(
+                        UserProfileFixtures.NON_EXISTING_USER_ID,
+                        UserProfileFixtures.LATEST_UPDATE_TIMESTAMP,
+                        Map.of());
+        dao.put(USER_PROFILE);
+        dao.put(otherUserProfile);
+
+        try (var userProfiles = dao.streamAll()) {
+            assertThat(userProfiles).containsExactlyInAnyOrder(USER_PROFILE, otherUserProfile);
+        }
+    }
+
+    @Test
+    void computeConcurrentlyForSameUser_NoUpdatesAreLost() {
+        var propertyName = UserProfilePropertyName.valueOf("counter");
+
+        IntStream.range(0, 1000)
+                .parallel()
+                .forEach(
+                        i ->
+                                dao.compute(
+                                        UserProfileFixtures.USER_ID,
+                                        currentUserProfile ->
+                                                incrementCounter(
+                                                        currentUserProfile.orElse(USER_PROFILE),
+                                                        propertyName)));
+
+        assertThat(dao.get(UserProfileFixtures.USER_ID))
+                .hasValueSatisfying(
+                        userProfile ->
+                                assertThat(userProfile.userProfileProperties())
+                                        .containsEntry(
+                                                propertyName,
+                                                UserProfilePropertyValue.valueOf(1000)));
+    }
+
+    @Test
+    void putIfVersionOfNonExistingUser_StoresOnlyOnInitialVersion() {
+        UserProfile userProfile = createProfile(Map.of(), 1);
+
+        assertThat(dao.putIfVersion(userProfile, 1)).isFalse();
+        assertThat(dao.get(UserProfileFixtures.USER_ID)).isEmpty();
+        assertThat(dao.putIfVersion(userProfile, UserProfile.INITIAL_VERSION)).isTrue();
+        assertThat(dao.get(UserProfileFixtures.USER_ID)).containsSame(userProfile);
+    }
+
+    @Test
+    void putIfVersionOfExistingUser_StoresOnlyOnStoredVersion() {
+        dao.put(USER_PROFILE);
+        UserProfile userProfile = createProfile(Map.of(), USER_PROFILE.version() + 1);
+
+        assertThat(dao.putIfVersion(userProfile, USER_PROFILE.version())).isTrue();
+        assertThat(dao.putIfVersion(createProfile(Map.of(), 5), USER_PROFILE.version()))
+                .isFalse();
+        assertThat(dao.get(UserProfileFixtures.USER_ID)).containsSame(userProfile);
+    }
+
+    @Test
+    void putIfVersionConcurrentlyForSameUser_NoUpdatesAreLost() {
+        var propertyName = UserProfilePropertyName.valueOf("counter");
+
+        IntStream.range(0, 1000)
+                .parallel()
+                .forEach(
+                        i -> {
+                            UserProfile currentUserProfile;
+                            do {
+                                currentUserProfile =
+                                        dao.get(UserProfileFixtures.USER_ID).orElse(USER_PROFILE);
+                            } while (!dao.putIfVersion(
+                                    incrementCounter(currentUserProfile, propertyName),
+                                    currentUserProfile.version()));
+                        });
+
+        assertThat(dao.get(UserProfileFixtures.USER_ID))
+                .hasValueSatisfying(
+                        userProfile -> {
+                            assertThat(userProfile.userProfileProperties())
+                                    .containsEntry(
+                                            propertyName, UserProfilePropertyValue.valueOf(1000));
+                            assertThat(userProfile.version()).isEqualTo(1000);
+                        });
+    }
+
+    private static UserProfile createProfile(
+            Map<UserProfilePropertyName, UserProfilePropertyValue> properties, long version) {
+        return new UserProfile(
+                UserProfileFixtures.USER_ID,
+                UserProfileFixtures.LATEST_UPDATE_TIMESTAMP,
+                properties,
+                version);
+    }
+
+    private static UserProfile incrementCounter(
+            UserProfile userProfile, UserProfilePropertyName propertyName) {
+        var currentValue =
+                userProfile
+                        .userProfileProperties()
+                        .getOrDefault(propertyName, UserProfilePropertyValue.valueOf(0));
+        return new UserProfile(
+                userProfile.userId(),
+                userProfile.latestUpdateTime(),
+                Map.of(propertyName, currentValue.increment(UserProfilePropertyValue.valueOf(1))),
+                userProfile.version() + 1);
+    }
 }
@@ -0,0 +1,143 @@
+package com.spotlight.platform.userprofile.api.core.profile.persistence;
+
+import static com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfileFixtures.USER_ID;
+import static com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfileFixtures.USER_PROFILE;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import com.codahale.metrics.MetricRegistry;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfile;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyName;
+
+import io.dropwizard.lifecycle.Managed;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+class UserProfileDaoInstrumentedTest {
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private final UserProfileDao userProfileDaoMock =
+            mock(UserProfileDao.class, withSettings().extraInterfaces(Managed.class));
+    private final UserProfileDao dao =
+            new UserProfileDaoInstrumented(userProfileDaoMock, metricRegistry);
+    private final Set<UserProfilePropertyName> changedPropertyNames =
+            Set.of(UserProfilePropertyName.valueOf("property1"));
+
+    @Test
+    void get_delegatesAndRecordsTime() {
+        when(userProfileDaoMock.get(USER_ID)).thenReturn(Optional.of(USER_PROFILE));
+
+        assertThat(dao.get(USER_ID)).containsSame(USER_PROFILE);
+        assertThat(getTimerCount("get")).isEqualTo(1);
+    }
+
+    @Test
+    void getAll_delegatesAndRecordsTime() {
+        when(userProfileDaoMock.getAll(List.of(USER_ID))).thenReturn(Map.of(USER_ID, USER_PROFILE));
+
+        assertThat(dao.getAll(List.of(USER_ID))).containsExactly(Map.entry(USER_ID, USER_PROFILE));
+        assertThat(getTimerCount("get-all")).isEqualTo(1);
+        assertThat(getTimerCount("get")).isZero();
+    }
+
+    @Test
+    void getEpoch_delegates() {
+        when(userProfileDaoMock.getEpoch()).thenReturn("epoch");
+
+        assertThat(dao.getEpoch()).isEqualTo("epoch");
+    }
+
+    @Test
+    void put_delegatesAndRecordsTime() {
+        dao.put(USER_PROFILE);
+
+        verify(userProfileDaoMock).put(USER_PROFILE);
+        assertThat(getTimerCount("put")).isEqualTo(1);
+    }
+
+    @Test
+    void putIfVersion_delegatesAndRecordsTime() {
+        when(userProfileDaoMock.putIfVersion(USER_PROFILE, 3)).thenReturn(true);
+
+        assertThat(dao.putIfVersion(USER_PROFILE, 3)).isTrue();
+        assertThat(getTimerCount("put-if-version")).isEqualTo(1);
+        assertThat(getTimerCount("put")).isZero();
+    }
+
+    @Test
+    void putIfVersionOfChangedProperties_delegatesAndRecordsTime() {
+        when(userProfileDaoMock.putIfVersion(USER_PROFILE, 3, changedPropertyNames))
+                .thenReturn(true);
+
+        assertThat(dao.putIfVersion(USER_PROFILE, 3, changedPropertyNames)).isTrue();
+        assertThat(getTimerCount("put-if-version")).isEqualTo(1);
+    }
+
+    @Test
+    void compute_delegatesAndRecordsTime() {
+        Function<Optional<UserProfile>, UserProfile> remappingFunction =
+                userProfile -> USER_PROFILE;
+        when(userProfileDaoMock.compute(any(UserId.class), any())).thenReturn(USER_PROFILE);
+
+        assertThat(dao.compute(USER_ID, remappingFunction)).isSameAs(USER_PROFILE);
+        verify(userProfileDaoMock).compute(USER_ID, remappingFunction);
+        assertThat(getTimerCount("compute")).isEqualTo(1);
+    }
+
+    @Test
+    void computeOfChangedProperties_delegatesAndRecordsTime() {
+        Function<Optional<UserProfile>, UserProfile> remappingFunction =
+                userProfile -> USER_PROFILE;
+        when(userProfileDaoMock.compute(USER_ID, remappingFunction, changedPropertyNames))
+                .thenReturn(USER_PROFILE);
+
+        assertThat(dao.compute(USER_ID, remappingFunction, changedPropertyNames))
+                .isSameAs(USER_PROFILE);
+        assertThat(getTimerCount("compute")).isEqualTo(1);
+    }
+
+    @Test
+    void streamAll_delegates() {
+        when(userProfileDaoMock.streamAll()).thenReturn(Stream.of(USER_PROFILE));
+
+        assertThat(dao.streamAll()).containsExactly(USER_PROFILE);
+    }
+
+    @Test
+    void startAndStop_delegateToManagedDao() throws Exception {
+        var managedDao = (Managed) dao;
+
+        managedDao.start();
+        managedDao.stop();
+
+        verify((Managed) userProfileDaoMock).start();
+        verify((Managed) userProfileDaoMock).stop();
+    }
+
+    @Test
+    void startAndStopOfUnmanagedDao_doNothing() throws Exception {
+        var managedDao =
+                new UserProfileDaoInstrumented(new UserProfileDaoInMemory(), metricRegistry);
+
+        managedDao.start();
+        managedDao.stop();
+    }
+
+    private long getTimerCount(String name) {
+        return metricRegistry
+                .timer(MetricRegistry.name(UserProfileDaoInstrumented.METRICS_PREFIX, name))
+                .getCount();
+    }
+}
@@ -0,0 +1,196 @@
+package com.spotlight.platform.userprofile.api.core.profile.persistence;
+
+import static com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfileFixtures.USER_PROFILE;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.codahale.metrics.MetricRegistry;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfile;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfileFixtures;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyName;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyValue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+class UserProfileDaoMemoryMappedTest {
+    private static final int SHARD_COUNT = 4;
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final UserProfilePropertyName COUNTER =
+            UserProfilePropertyName.valueOf("counter");
+
+    @TempDir Path dataDirectory;
+
+    private MetricRegistry metricRegistry;
+    private UserProfileDaoMemoryMapped dao;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        dao = startDao(SHARD_COUNT);
+    }
+
+    @AfterEach
+    void afterEach() throws IOException {
+        dao.stop();
+    }
+
+    @Test
+    void getNonExistingUser_OptionalEmptyReturned() {
+        assertThat(dao.get(UserProfileFixtures.NON_EXISTING_USER_ID)).isEmpty();
+    }
+
+    @Test
+    void putAndGetUser_ReturnsEqualProfile() {
+        dao.put(USER_PROFILE);
+
+        assertThat(dao.get(UserProfileFixtures.USER_ID)).contains(USER_PROFILE);
+    }
+
+    @Test
+    void computeNonExistingUser_StoresComputedValue() {
+        var computedUserProfile =
+                dao.compute(
+                        UserProfileFixtures.USER_ID,
+                        currentUserProfile -> {
+                            assertThat(currentUserProfile).isEmpty();
+                            return USER_PROFILE;
+                        });
+
+        assertThat(computedUserProfile).isSameAs(USER_PROFILE);
+        assertThat(dao.get(UserProfileFixtures.USER_ID)).contains(USER_PROFILE);
+    }
+
+    @Test
+    void computeExistingUser_ReceivesCurrentValue() {
+        dao.put(USER_PROFILE);
+
+        dao.compute(
+                UserProfileFixtures.USER_ID,
+                currentUserProfile -> {
+                    assertThat(currentUserProfile).contains(USER_PROFILE);
+                    return currentUserProfile.get();
+                });
+    }
+
+    @Test
+    void putIfVersion_StoresOnlyOnStoredVersion() {
+        var userProfile =
+                new UserProfile(
+                        UserProfileFixtures.USER_ID,
+                        UserProfileFixtures.LATEST_UPDATE_TIMESTAMP,
+                        Map.of(COUNTER, UserProfilePropertyValue.valueOf(1)),
+                        UserProfile.INITIAL_VERSION + 1);
+
+        assertThat(dao.putIfVersion(userProfile, userProfile.version())).isFalse();
+        assertThat(dao.get(UserProfileFixtures.USER_ID)).isEmpty();
+        assertThat(dao.putIfVersion(userProfile, UserProfile.INITIAL_VERSION)).isTrue();
+        assertThat(dao.putIfVersion(USER_PROFILE, UserProfile.INITIAL_VERSION)).isFalse();
+        assertThat(dao.get(UserProfileFixtures.USER_ID)).contains(userProfile);
+    }
+
+    @Test
+    void computeConcurrently_NoUpdateIsLost() {
+        IntStream.range(0, 1000).parallel().forEach(i -> incrementCounter("user-" + i % 10));
+
+        assertThat(dao.streamAll())
+                .hasSize(10)
+                .allSatisfy(
+                        userProfile ->
+                                assertThat(userProfile.userProfileProperties())
+                                        .containsEntry(
+                                                COUNTER, UserProfilePropertyValue.valueOf(100)));
+    }
+
+    @Test
+    void putAndRestart_ProfilesAreKept() throws IOException {
+        List<UserProfile> userProfiles =
+                IntStream.range(0, 1000).mapToObj(i -> counterProfile("user-" + i, i)).toList();
+        userProfiles.forEach(dao::put);
+
+        dao.stop();
+        dao = startDao(SHARD_COUNT);
+
+        assertThat(dao.streamAll()).containsExactlyInAnyOrderElementsOf(userProfiles);
+        assertThat(getGaugeValue("size")).isEqualTo(1000);
+    }
+
+    @Test
+    void restart_EpochIsKept() throws IOException {
+        String epoch = dao.getEpoch();
+
+        dao.stop();
+        dao = startDao(SHARD_COUNT);
+
+        assertThat(dao.getEpoch()).isNotBlank().isEqualTo(epoch);
+    }
+
+    @Test
+    void restartWithOtherShardCount_ThrowsException() throws IOException {
+        dao.stop();
+
+        assertThatThrownBy(() -> startDao(SHARD_COUNT + 1))
+                .isExactlyInstanceOf(IllegalStateException.class);
+        dao = startDao(SHARD_COUNT);
+    }
+
+    @Test
+    void putGrowingProfile_StorageMetricsAreReported() {
+        dao.put(counterProfile("user", 1));
+        dao.put(
+                new UserProfile(
+                        UserId.valueOf("user"),
+                        UserProfileFixtures.LATEST_UPDATE_TIMESTAMP,
+                        Map.of(
+                                COUNTER,
+                                UserProfilePropertyValue.valueOf(
+                                        IntStream.range(0, 100).boxed().toList()))));
+
+        assertThat(getGaugeValue("data-bytes")).isPositive();
+        assertThat(getGaugeValue("garbage-bytes")).isPositive();
+    }
+
+    private long getGaugeValue(String name) {
+        return (Long) metricRegistry.getGauges().get("profile-storage.mapped." + name).getValue();
+    }
+
+    private UserProfileDaoMemoryMapped startDao(int shardCount) throws IOException {
+        metricRegistry = new MetricRegistry();
+        var userProfileDao =
+                new UserProfileDaoMemoryMapped(
+                        dataDirectory, shardCount, 0, CHUNK_SIZE, metricRegistry);
+        userProfileDao.start();
+        return userProfileDao;
+    }
+
+    private void incrementCounter(String userId) {
+        dao.compute(
+                UserId.valueOf(userId),
+                currentUserProfile -> {
+                    UserProfile userProfile = currentUserProfile.orElse(counterProfile(userId, 0));
+                    var counter = userProfile.userProfileProperties().get(COUNTER);
+                    return new UserProfile(
+                            userProfile.userId(),
+                            userProfile.latestUpdateTime(),
+                            Map.of(
+                                    COUNTER,
+                                    counter.increment(UserProfilePropertyValue.valueOf(1))));
+                });
+    }
+
+    private static UserProfile counterProfile(String userId, long counter) {
+        return new UserProfile(
+                UserId.valueOf(userId),
+                UserProfileFixtures.LATEST_UPDATE_TIMESTAMP,
+                Map.of(COUNTER, UserProfilePropertyValue.valueOf(counter)));
+    }
+}
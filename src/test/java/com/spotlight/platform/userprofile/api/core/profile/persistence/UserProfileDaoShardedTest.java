@@ -0,0 +1,192 @@
+package com.spotlight.platform.userprofile.api.core.profile.persistence;
+
+import static com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfileFixtures.USER_PROFILE;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.spotlight.platform.userprofile.api.model.profile.UserProfile;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserId;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfileFixtures;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+class UserProfileDaoShardedTest {
+    private static final int SHARD_COUNT = 8;
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private final UserProfileDao dao = new UserProfileDaoSharded(SHARD_COUNT, 1000, metricRegistry);
+
+    @Test
+    void getNonExistingUser_OptionalEmptyReturned() {
+        assertThat(dao.get(UserProfileFixtures.NON_EXISTING_USER_ID)).isEmpty();
+    }
+
+    @Test
+    void getEpoch_DiffersBetweenStorages() {
+        assertThat(dao.getEpoch())
+                .isNotBlank()
+                .isNotEqualTo(
+                        new UserProfileDaoSharded(SHARD_COUNT, 1000, new MetricRegistry())
+                                .getEpoch());
+    }
+
+    @Test
+    void putAndGetUser_ReturnsCorrectValues() {
+        dao.put(USER_PROFILE);
+
+        assertThat(dao.get(UserProfileFixtures.USER_ID)).containsSame(USER_PROFILE);
+    }
+
+    @Test
+    void computeNonExistingUser_StoresComputedValue() {
+        var computedUserProfile =
+                dao.compute(
+                        UserProfileFixtures.USER_ID,
+                        currentUserProfile -> {
+                            assertThat(currentUserProfile).isEmpty();
+                            return USER_PROFILE;
+                        });
+
+        assertThat(computedUserProfile).isSameAs(USER_PROFILE);
+        assertThat(dao.get(UserProfileFixtures.USER_ID)).containsSame(USER_PROFILE);
+    }
+
+    @Test
+    void computeExistingUser_ReceivesCurrentValue() {
+        dao.put(USER_PROFILE);
+
+        dao.compute(
+                UserProfileFixtures.USER_ID,
+                currentUserProfile -> {
+                    assertThat(currentUserProfile).containsSame(USER_PROFILE);
+                    return currentUserProfile.get();
+                });
+    }
+
+    @Test
+    void putManyUsers_ShardMetricsReflectDistribution() {
+        IntStream.range(0, 1000).mapToObj(this::createUserProfile).forEach(dao::put);
+
+        var sizes = metricRegistry.getGauges((name, metric) -> name.endsWith(".size"));
+        assertThat(sizes).hasSize(SHARD_COUNT);
+        assertThat(sizes.values().stream().mapToInt(gauge -> (Integer) gauge.getValue()).sum())
+                .isEqualTo(1000);
+        assertThat(sizes.values()).allMatch(gauge -> (Integer) gauge.getValue() > 0);
+        assertThat(sumMeters(metricRegistry.getMeters())).isEqualTo(1000);
+    }
+
+    @Test
+    void streamAll_ReturnsProfilesOfEveryShard() {
+        var userProfiles = IntStream.range(0, 100).mapToObj(this::createUserProfile).toList();
+        userProfiles.forEach(dao::put);
+
+        try (var streamedUserProfiles = dao.streamAll()) {
+            assertThat(streamedUserProfiles).containsExactlyInAnyOrderElementsOf(userProfiles);
+        }
+    }
+
+    @Test
+    void computeConcurrentlyForSameUser_NoUpdatesAreLost() {
+        dao.put(USER_PROFILE);
+
+        IntStream.range(0, 1000)
+                .parallel()
+                .forEach(
+                        i ->
+                                dao.compute(
+                                        UserProfileFixtures.USER_ID,
+                                        currentUserProfile ->
+                                                withLatestUpdateTimePlusOneMilli(
+                                                        currentUserProfile.get())));
+
+        assertThat(dao.get(UserProfileFixtures.USER_ID))
+                .hasValueSatisfying(
+                        userProfile ->
+                                assertThat(userProfile.latestUpdateTime())
+                                        .isEqualTo(
+                                                USER_PROFILE.latestUpdateTime().plusMillis(1000)));
+    }
+
+    @Test
+    void computeWithConcurrentWrite_RetriesAndCountsContention() {
+        dao.put(USER_PROFILE);
+        var concurrentUserProfile = withLatestUpdateTimePlusOneMilli(USER_PROFILE);
+        var invocations = new AtomicInteger();
+
+        var computedUserProfile =
+                dao.compute(
+                        UserProfileFixtures.USER_ID,
+                        currentUserProfile -> {
+                            if (invocations.getAndIncrement() == 0) {
+                                dao.put(concurrentUserProfile);
+                            }
+                            return withLatestUpdateTimePlusOneMilli(currentUserProfile.get());
+                        });
+
+        assertThat(invocations).hasValue(2);
+        assertThat(computedUserProfile.latestUpdateTime())
+                .isEqualTo(concurrentUserProfile.latestUpdateTime().plusMillis(1));
+        assertThat(sumCounters(metricRegistry.getCounters())).isEqualTo(1);
+    }
+
+    @Test
+    void putIfVersionOfNonExistingUser_StoresOnlyOnInitialVersion() {
+        var userProfile = withVersion(USER_PROFILE, 1);
+
+        assertThat(dao.putIfVersion(userProfile, 1)).isFalse();
+        assertThat(dao.get(UserProfileFixtures.USER_ID)).isEmpty();
+        assertThat(dao.putIfVersion(userProfile, UserProfile.INITIAL_VERSION)).isTrue();
+        assertThat(dao.get(UserProfileFixtures.USER_ID)).containsSame(userProfile);
+        assertThat(sumCounters(metricRegistry.getCounters())).isEqualTo(1);
+    }
+
+    @Test
+    void putIfVersionOfExistingUser_StoresOnlyOnStoredVersion() {
+        dao.put(USER_PROFILE);
+        var userProfile = withVersion(USER_PROFILE, USER_PROFILE.version() + 1);
+
+        assertThat(dao.putIfVersion(userProfile, USER_PROFILE.version())).isTrue();
+        assertThat(dao.putIfVersion(withVersion(USER_PROFILE, 5), USER_PROFILE.version()))
+                .isFalse();
+        assertThat(dao.get(UserProfileFixtures.USER_ID)).containsSame(userProfile);
+        assertThat(sumMeters(metricRegistry.getMeters())).isEqualTo(2);
+        assertThat(sumCounters(metricRegistry.getCounters())).isEqualTo(1);
+    }
+
+    private UserProfile createUserProfile(int index) {
+        return new UserProfile(
+                UserId.valueOf("user-" + index),
+                UserProfileFixtures.LAST_UPDATE_TIMESTAMP,
+                Map.of());
+    }
+
+    private static UserProfile withLatestUpdateTimePlusOneMilli(UserProfile userProfile) {
+        return new UserProfile(
+                userProfile.userId(),
+                userProfile.latestUpdateTime().plusMillis(1),
+                userProfile.userProfileProperties());
+    }
+
+    private static long sumCounters(Map<String, Counter> counters) {
+        return counters.values().stream().mapToLong(Counter::getCount).sum();
+    }
+
+    private static long sumMeters(Map<String, Meter> meters) {
+        return meters.values().stream().mapToLong(Meter::getCount).sum();
+    }
+
+    private static UserProfile withVersion(UserProfile userProfile, long version) {
+        return new UserProfile(
+                userProfile.userId(),
+                userProfile.latestUpdateTime(),
+                userProfile.userProfileProperties(),
+                version);
+    }
+}
@@ -0,0 +1,237 @@
+package com.spotlight.platform.userprofile.api.core.profile.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.codahale.metrics.MetricRegistry;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.IntStream;
+
+class WriteAheadLogTest {
+    private static final long MAX_COMMIT_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final String FIRST_SEGMENT_FILE_NAME = "segment-00000000000000000001.wal";
+
+    @TempDir Path directory;
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+
+    @Test
+    void appendAndReopen_replaysRecordsInOrder() throws IOException {
+        try (var writeAheadLog = open(new ArrayList<>())) {
+            writeAheadLog.awaitDurable(writeAheadLog.append(bytes("first")));
+            writeAheadLog.awaitDurable(writeAheadLog.append(bytes("second")));
+        }
+
+        List<String> replayedRecords = new ArrayList<>();
+        open(replayedRecords).close();
+
+        assertThat(replayedRecords).containsExactly("first", "second");
+    }
+
+    @Test
+    void appendConcurrently_sharesCommits() throws Exception {
+        var executorService = Executors.newFixedThreadPool(8);
+        try (var writeAheadLog = open(new ArrayList<>())) {
+            List<Callable<Void>> writers =
+                    IntStream.range(0, 100)
+                            .<Callable<Void>>mapToObj(
+                                    i ->
+                                            () -> {
+                                                writeAheadLog.awaitDurable(
+                                                        writeAheadLog.append(bytes("record-" + i)));
+                                                return null;
+                                            })
+                            .toList();
+            for (Future<Void> writer : executorService.invokeAll(writers)) {
+                writer.get();
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        List<String> replayedRecords = new ArrayList<>();
+        open(replayedRecords).close();
+
+        assertThat(replayedRecords).hasSize(100);
+        var commitSizes = metricRegistry.histogram("profile-storage.wal.commit-size");
+        assertThat(commitSizes.getSnapshot().getMax()).isGreaterThan(1);
+        assertThat(metricRegistry.timer("profile-storage.wal.commit").getCount())
+                .isEqualTo(commitSizes.getCount());
+    }
+
+    @Test
+    void reopenWithTornRecord_dropsTornRecordAndKeepsLaterRecords() throws IOException {
+        try (var writeAheadLog = open(new ArrayList<>())) {
+            writeAheadLog.awaitDurable(writeAheadLog.append(bytes("intact")));
+        }
+        try (var channel =
+                FileChannel.open(
+                        directory.resolve(FIRST_SEGMENT_FILE_NAME), StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 42, 1, 2}));
+        }
+
+        try (var writeAheadLog = open(new ArrayList<>())) {
+            writeAheadLog.awaitDurable(writeAheadLog.append(bytes("appended")));
+        }
+        List<String> replayedRecords = new ArrayList<>();
+        open(replayedRecords).close();
+
+        assertThat(replayedRecords).containsExactly("intact", "appended");
+    }
+
+    @Test
+    void reopenWithCorruptedRecord_dropsCorruptedRecord() throws IOException {
+        try (var writeAheadLog = open(new ArrayList<>())) {
+            writeAheadLog.awaitDurable(writeAheadLog.append(bytes("intact")));
+            writeAheadLog.awaitDurable(writeAheadLog.append(bytes("corrupted")));
+        }
+        try (var channel =
+                FileChannel.open(
+                        directory.resolve(FIRST_SEGMENT_FILE_NAME), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes("X")), channel.size() - 1);
+        }
+
+        List<String> replayedRecords = new ArrayList<>();
+        open(replayedRecords).close();
+
+        assertThat(replayedRecords).containsExactly("intact");
+    }
+
+    @Test
+    void rotate_returnsSealedSegmentAndReplaysAllSegments() throws IOException {
+        List<String> replayedRecords = new ArrayList<>();
+        try (var writeAheadLog = open(new ArrayList<>())) {
+            appendDurably(writeAheadLog, "first");
+            assertThat(writeAheadLog.rotate()).isEqualTo(1);
+            appendDurably(writeAheadLog, "second");
+            assertThat(writeAheadLog.rotate()).isEqualTo(2);
+        }
+
+        open(replayedRecords).close();
+
+        assertThat(replayedRecords).containsExactly("first", "second");
+    }
+
+    @Test
+    void rotate_commitsPendingRecordsOfSealedSegment() throws IOException {
+        // Long enough for the committer to never commit on its own
+        long maxCommitDelayNanos = TimeUnit.HOURS.toNanos(1);
+        try (var writeAheadLog = open(0, maxCommitDelayNanos, new ArrayList<>())) {
+            long sequence = writeAheadLog.append(bytes("pending"));
+            var rotation = CompletableFuture.supplyAsync(() -> rotate(writeAheadLog));
+
+            writeAheadLog.awaitDurable(sequence);
+
+            assertThat(rotation.join()).isEqualTo(1);
+        }
+        List<String> replayedRecords = new ArrayList<>();
+        open(replayedRecords).close();
+
+        assertThat(replayedRecords).containsExactly("pending");
+    }
+
+    @Test
+    void rotate_waitsUntilRecordsOfSealedSegmentAreApplied() throws Exception {
+        try (var writeAheadLog = open(new ArrayList<>())) {
+            long sequence = writeAheadLog.append(bytes("unapplied"));
+            var rotation = CompletableFuture.supplyAsync(() -> rotate(writeAheadLog));
+
+            assertThatThrownBy(() -> rotation.get(100, TimeUnit.MILLISECONDS))
+                    .isInstanceOf(TimeoutException.class);
+            writeAheadLog.awaitDurable(sequence);
+            assertThat(rotation.join()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void openCoveringSegments_skipsAndDeletesCoveredSegments() throws IOException {
+        try (var writeAheadLog = open(new ArrayList<>())) {
+            appendDurably(writeAheadLog, "covered");
+            writeAheadLog.rotate();
+            appendDurably(writeAheadLog, "uncovered");
+        }
+
+        List<String> replayedRecords = new ArrayList<>();
+        open(1, replayedRecords).close();
+
+        assertThat(replayedRecords).containsExactly("uncovered");
+        assertThat(directory.resolve(FIRST_SEGMENT_FILE_NAME)).doesNotExist();
+    }
+
+    @Test
+    void deleteSegmentsUpTo_removesSealedSegmentsFromReplay() throws IOException {
+        try (var writeAheadLog = open(new ArrayList<>())) {
+            appendDurably(writeAheadLog, "deleted");
+            writeAheadLog.deleteSegmentsUpTo(writeAheadLog.rotate());
+            appendDurably(writeAheadLog, "kept");
+        }
+
+        List<String> replayedRecords = new ArrayList<>();
+        open(replayedRecords).close();
+
+        assertThat(replayedRecords).containsExactly("kept");
+    }
+
+    @Test
+    void appendAfterClose_throwsException() throws IOException {
+        var writeAheadLog = open(new ArrayList<>());
+        writeAheadLog.close();
+
+        assertThatThrownBy(() -> writeAheadLog.append(bytes("record")))
+                .isExactlyInstanceOf(IllegalStateException.class);
+    }
+
+    private WriteAheadLog open(List<String> replayedRecords) throws IOException {
+        return open(0, replayedRecords);
+    }
+
+    private WriteAheadLog open(long coveredSegmentId, List<String> replayedRecords)
+            throws IOException {
+        return open(coveredSegmentId, MAX_COMMIT_DELAY_NANOS, replayedRecords);
+    }
+
+    private WriteAheadLog open(
+            long coveredSegmentId, long maxCommitDelayNanos, List<String> replayedRecords)
+            throws IOException {
+        return WriteAheadLog.open(
+                directory,
+                coveredSegmentId,
+                maxCommitDelayNanos,
+                metricRegistry,
+                record -> replayedRecords.add(StandardCharsets.UTF_8.decode(record).toString()));
+    }
+
+    private static long rotate(WriteAheadLog writeAheadLog) {
+        try {
+            return writeAheadLog.rotate();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void appendDurably(WriteAheadLog writeAheadLog, String record) {
+        writeAheadLog.awaitDurable(writeAheadLog.append(bytes(record)));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -56,4 +56,26 @@ public abstract class AlphaNumericalStringWithMaxLengthAbstractTest<T> {
                 .extracting(ConstraintViolation::getMessage)
                 .contains("must match \"[A-Za-z0-9_-]*\"");
     }
+
+    @Test
+    void validation_longNotAlphaNumericIsNotValidForBothRules() {
+        var violations = validator.validate(getInstance("$".repeat(2000)));
+
+        assertThat(violations)
+                .extracting(ConstraintViolation::getMessage)
+                .containsExactlyInAnyOrder(
+                        "length must be between 1 and 1024", "must match \"[A-Za-z0-9_-]*\"");
+    }
+
+    @Test
+    void validation_allAllowedCharactersAreValid() {
+        var violations =
+                validator.validate(
+                        getInstance(
+                                "ABCDEFGHIJKLMNOPQRSTUVWXYZ"
+                                        + "abcdefghijklmnopqrstuvwxyz"
+                                        + "0123456789_-"));
+
+        assertThat(violations).isEmpty();
+    }
 }
@@ -0,0 +1,134 @@
+package com.spotlight.platform.userprofile.api.model.common;
+
+import static net.javacrumbs.jsonunit.assertj.JsonAssertions.assertThatJson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+class AppendOnlyListTest {
+
+    @Test
+    void appendAll_keepsPreviousListUnchanged() {
+        var first = AppendOnlyList.copyOf(List.of("one"));
+        var second = first.appendAll(List.of("two", "three"));
+
+        assertThat(first).containsExactly("one");
+        assertThat(second).containsExactly("one", "two", "three");
+    }
+
+    @Test
+    void appendAllToOlderList_doesNotAffectNewerList() {
+        var base = AppendOnlyList.copyOf(List.of("one"));
+        var firstBranch = base.appendAll(List.of("two"));
+        var secondBranch = base.appendAll(List.of("three"));
+
+        assertThat(base).containsExactly("one");
+        assertThat(firstBranch).containsExactly("one", "two");
+        assertThat(secondBranch).containsExactly("one", "three");
+    }
+
+    @Test
+    void appendAllManyTimes_containsAllElementsInOrder() {
+        AppendOnlyList<Integer> list = AppendOnlyList.empty();
+        for (int i = 0; i < 1000; i++) {
+            list = list.appendAll(List.of(i));
+        }
+
+        assertThat(list).containsExactlyElementsOf(IntStream.range(0, 1000).boxed().toList());
+    }
+
+    @Test
+    void appendAllBeyondSeveralTrieLevels_containsAllElementsInOrder() {
+        var elements = IntStream.range(0, 40_000).boxed().toList();
+        AppendOnlyList<Integer> list = AppendOnlyList.empty();
+        for (int i = 0; i < elements.size(); i += 7) {
+            list = list.appendAll(elements.subList(i, Math.min(i + 7, elements.size())));
+        }
+
+        assertThat(list).containsExactlyElementsOf(elements);
+        assertThat(list.toArray()).containsExactly(elements.toArray());
+    }
+
+    @Test
+    void appendAllAfterDiscardedAppend_doesNotCopyPrefix() {
+        var base =
+                AppendOnlyList.copyOf(IntStream.range(0, 1000).boxed().toList())
+                        .appendAll(List.of(1000));
+        base.appendAll(List.of(-1));
+
+        var appended = base.appendAll(List.of(1001));
+
+        assertThat(appended).hasSize(1002).endsWith(1000, 1001);
+        for (int index = 0; index < 992; index += 32) {
+            assertThat(appended.getChunk(index)).isSameAs(base.getChunk(index));
+        }
+    }
+
+    @Test
+    void appendAllConcurrentlyToSameList_everyResultIsConsistent() {
+        var base = AppendOnlyList.copyOf(List.of(-1));
+
+        var results =
+                IntStream.range(0, 1000)
+                        .parallel()
+                        .mapToObj(i -> base.appendAll(List.of(i, i)))
+                        .toList();
+
+        assertThat(base).containsExactly(-1);
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i)).containsExactly(-1, i, i);
+        }
+    }
+
+    @Test
+    void appendAllEmpty_returnsSameList() {
+        var list = AppendOnlyList.copyOf(List.of("one"));
+
+        assertThat(list.appendAll(List.of())).isSameAs(list);
+    }
+
+    @Test
+    void copyOfAppendOnlyList_returnsSameList() {
+        var list = AppendOnlyList.copyOf(List.of("one"));
+
+        assertThat(AppendOnlyList.copyOf(list)).isSameAs(list);
+    }
+
+    @Test
+    void equals_comparesElements() {
+        assertThat(AppendOnlyList.copyOf(List.of("one", "two")))
+                .isEqualTo(List.of("one", "two"))
+                .hasSameHashCodeAs(List.of("one", "two"));
+    }
+
+    @Test
+    void modification_throwsException() {
+        var list = AppendOnlyList.copyOf(List.of("one"));
+
+        assertThatThrownBy(() -> list.add("two"))
+                .isExactlyInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> list.set(0, "two"))
+                .isExactlyInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void getOutOfBounds_throwsException() {
+        var list = AppendOnlyList.copyOf(List.of("one")).appendAll(List.of("two"));
+        var shorterList = AppendOnlyList.copyOf(List.of("one"));
+
+        assertThatThrownBy(() -> shorterList.get(1))
+                .isExactlyInstanceOf(IndexOutOfBoundsException.class);
+        assertThat(list.get(1)).isEqualTo("two");
+    }
+
+    @Test
+    void serialization_isFlatArray() {
+        assertThatJson(AppendOnlyList.copyOf(List.of("one")).appendAll(List.of("two")))
+                .isEqualTo("[\"one\",\"two\"]");
+    }
+}
@@ -0,0 +1,64 @@
+package com.spotlight.platform.userprofile.api.model.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+class BoundedInternerTest {
+    private final BoundedInterner<String, StringBuilder> interner =
+            new BoundedInterner<>(StringBuilder::new, 2);
+
+    @Test
+    void internSameKey_returnsSameInstance() {
+        StringBuilder value = interner.intern("a");
+
+        assertThat(interner.intern("a")).isSameAs(value).hasToString("a");
+        assertThat(interner.size()).isEqualTo(1);
+    }
+
+    @Test
+    void internBeyondMaxSize_returnsNewInstances() {
+        interner.intern("a");
+        interner.intern("b");
+
+        assertThat(interner.intern("c")).isNotSameAs(interner.intern("c")).hasToString("c");
+        assertThat(interner.intern("a")).isSameAs(interner.intern("a"));
+        assertThat(interner.size()).isEqualTo(2);
+    }
+
+    @Test
+    void lookup_returnsInternedInstanceWithoutInterningNewKeys() {
+        StringBuilder value = interner.intern("a");
+
+        assertThat(interner.lookup("a")).isSameAs(value);
+        assertThat(interner.lookup("b")).isNotSameAs(interner.lookup("b")).hasToString("b");
+        assertThat(interner.size()).isEqualTo(1);
+    }
+
+    @Test
+    void internNonInternableValue_returnsNewInstanceWithoutKeepingIt() {
+        var validatingInterner =
+                new BoundedInterner<String, StringBuilder>(
+                        StringBuilder::new, value -> value.length() > 1, 2);
+
+        assertThat(validatingInterner.intern("a")).isNotSameAs(validatingInterner.intern("a"));
+        assertThat(validatingInterner.intern("ab")).isSameAs(validatingInterner.intern("ab"));
+        assertThat(validatingInterner.size()).isEqualTo(1);
+    }
+
+    @Test
+    void internConcurrently_returnsOneInstancePerKey() {
+        var largeInterner = new BoundedInterner<String, StringBuilder>(StringBuilder::new, 100);
+
+        var values =
+                IntStream.range(0, 10_000)
+                        .parallel()
+                        .mapToObj(i -> largeInterner.intern("key-" + i % 10))
+                        .distinct()
+                        .toList();
+
+        assertThat(values).hasSize(10);
+    }
+}
@@ -0,0 +1,101 @@
+package com.spotlight.platform.userprofile.api.model.common;
+
+import static net.javacrumbs.jsonunit.assertj.JsonAssertions.assertThatJson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class PersistentHashMapTest {
+
+    @Test
+    void plus_keepsPreviousMapUnchanged() {
+        PersistentHashMap<String, Integer> first = PersistentHashMap.empty();
+        var second = first.plus("one", 1);
+        var third = second.plus("one", 2).plus("two", 2);
+
+        assertThat(first).isEmpty();
+        assertThat(second).containsExactly(Map.entry("one", 1));
+        assertThat(third).containsOnly(Map.entry("one", 2), Map.entry("two", 2));
+    }
+
+    @Test
+    void plusManyEntries_containsAllEntries() {
+        var expected =
+                IntStream.range(0, 10_000)
+                        .boxed()
+                        .collect(Collectors.toMap(i -> "key" + i, i -> i));
+
+        var map = PersistentHashMap.copyOf(expected);
+
+        assertThat(map).hasSize(10_000).isEqualTo(expected).hasSameHashCodeAs(expected);
+        expected.forEach((key, value) -> assertThat(map.get(key)).isEqualTo(value));
+        assertThat(new HashMap<>(map)).isEqualTo(expected);
+    }
+
+    @Test
+    void plusKeysWithSameHash_keepsAllEntries() {
+        var map =
+                PersistentHashMap.<CollidingKey, String>empty()
+                        .plus(new CollidingKey("a"), "a")
+                        .plus(new CollidingKey("b"), "b")
+                        .plus(new CollidingKey("a"), "c")
+                        .plus(new CollidingKey("d"), "d");
+
+        assertThat(map)
+                .hasSize(3)
+                .containsEntry(new CollidingKey("a"), "c")
+                .containsEntry(new CollidingKey("b"), "b")
+                .containsEntry(new CollidingKey("d"), "d")
+                .doesNotContainKey(new CollidingKey("e"));
+    }
+
+    @Test
+    void plusSameValue_returnsSameMap() {
+        var map = PersistentHashMap.<String, Integer>empty().plus("one", 1);
+
+        assertThat(map.plus("one", 1)).isSameAs(map);
+    }
+
+    @Test
+    void nullValues_areSupported() {
+        var map = PersistentHashMap.<String, Integer>empty().plus("one", null);
+
+        assertThat(map.containsKey("one")).isTrue();
+        assertThat(map.getOrDefault("one", 1)).isNull();
+        assertThat(map.getOrDefault("two", 2)).isEqualTo(2);
+        assertThat(map.get(null)).isNull();
+    }
+
+    @Test
+    void nullKey_throwsException() {
+        assertThatThrownBy(() -> PersistentHashMap.empty().plus(null, "value"))
+                .isExactlyInstanceOf(NullPointerException.class);
+    }
+
+    @Test
+    void copyOfPersistentHashMap_returnsSameMap() {
+        var map = PersistentHashMap.copyOf(Map.of("one", 1));
+
+        assertThat(PersistentHashMap.copyOf(map)).isSameAs(map);
+    }
+
+    @Test
+    void serialization_isJsonObject() {
+        assertThatJson(PersistentHashMap.copyOf(Map.of("one", 1, "two", 2)))
+                .isEqualTo("{\"one\":1,\"two\":2}");
+    }
+
+    private record CollidingKey(String value) {
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+    }
+}
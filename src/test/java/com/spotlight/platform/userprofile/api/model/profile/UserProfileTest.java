@@ -2,10 +2,17 @@ package com.spotlight.platform.userprofile.api.model.profile;
 
 import static net.javacrumbs.jsonunit.assertj.JsonAssertions.assertThatJson;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfileFixtures;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyName;
+import com.spotlight.platform.userprofile.api.model.profile.primitives.UserProfilePropertyValue;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.Map;
+
 class UserProfileTest {
 
     @Test
@@ -13,4 +20,29 @@ class UserProfileTest {
         assertThatJson(UserProfileFixtures.USER_PROFILE)
                 .isEqualTo(UserProfileFixtures.SERIALIZED_USER_PROFILE);
     }
+
+    @Test
+    void withOnlyProperties_keepsOnlyExistingRequestedProperties() {
+        var gold = UserProfilePropertyName.valueOf("currentGold");
+        var gems = UserProfilePropertyName.valueOf("currentGems");
+        var userProfile =
+                new UserProfile(
+                        UserProfileFixtures.USER_ID,
+                        UserProfileFixtures.LAST_UPDATE_TIMESTAMP,
+                        Map.of(
+                                gold,
+                                UserProfilePropertyValue.valueOf(500),
+                                gems,
+                                UserProfilePropertyValue.valueOf(800)));
+
+        var projectedUserProfile =
+                userProfile.withOnlyProperties(
+                        List.of(gold, UserProfilePropertyName.valueOf("missing")));
+
+        assertThat(projectedUserProfile.userId()).isEqualTo(userProfile.userId());
+        assertThat(projectedUserProfile.latestUpdateTime())
+                .isEqualTo(userProfile.latestUpdateTime());
+        assertThat(projectedUserProfile.userProfileProperties())
+                .containsExactly(Map.entry(gold, UserProfilePropertyValue.valueOf(500)));
+    }
 }
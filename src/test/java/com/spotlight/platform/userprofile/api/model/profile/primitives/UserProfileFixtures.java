@@ -24,4 +24,7 @@ public class UserProfileFixtures {
 
     public static final String SERIALIZED_USER_PROFILE =
             FixtureHelpers.fixture("/fixtures/model/profile/userProfile.json");
+
+    public static final String SERIALIZED_USER_PROFILE_WITH_ALL_VALUE_TYPES =
+            FixtureHelpers.fixture("/fixtures/model/profile/userProfileWithAllValueTypes.json");
 }
@@ -2,10 +2,15 @@ package com.spotlight.platform.userprofile.api.model.profile.primitives;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.spotlight.platform.userprofile.api.core.json.JsonMapper;
 import com.spotlight.platform.userprofile.api.model.common.AlphaNumericalStringWithMaxLengthAbstractTest;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.Map;
+
 class UserProfilePropertyNameTest
         extends AlphaNumericalStringWithMaxLengthAbstractTest<UserProfilePropertyName> {
 
@@ -31,4 +36,52 @@ class UserProfilePropertyNameTest
         assertThat(UserProfilePropertyName.valueOf("a"))
                 .isEqualTo(UserProfilePropertyName.valueOf("a"));
     }
+
+    @Test
+    void valueOf_returnsInternedInstance() {
+        assertThat(UserProfilePropertyName.valueOf("a"))
+                .isSameAs(UserProfilePropertyName.valueOf("a"));
+    }
+
+    @Test
+    void lookup_returnsInternedInstanceOrEqualNewInstance() {
+        assertThat(UserProfilePropertyName.lookup("a"))
+                .isSameAs(UserProfilePropertyName.valueOf("a"));
+        assertThat(UserProfilePropertyName.lookup("neverInterned"))
+                .isEqualTo(UserProfilePropertyName.lookup("neverInterned"))
+                .isNotSameAs(UserProfilePropertyName.lookup("neverInterned"));
+    }
+
+    @Test
+    void deserialization_returnsInternedInstance() throws JsonProcessingException {
+        assertThat(JsonMapper.getInstance().readValue("\"a\"", UserProfilePropertyName.class))
+                .isSameAs(UserProfilePropertyName.valueOf("a"));
+    }
+
+    @Test
+    void mapKeyDeserialization_returnsInternedInstance() throws JsonProcessingException {
+        Map<UserProfilePropertyName, String> map =
+                JsonMapper.getInstance()
+                        .readValue(
+                                "{\"a\":\"value\"}",
+                                new TypeReference<Map<UserProfilePropertyName, String>>() {});
+
+        assertThat(map.keySet()).singleElement().isSameAs(UserProfilePropertyName.valueOf("a"));
+    }
+
+    @Test
+    void mapKeyDeserializationOfInvalidName_doesNotInternIt() throws JsonProcessingException {
+        Map<UserProfilePropertyName, String> map =
+                JsonMapper.getInstance()
+                        .readValue(
+                                "{\"invalid name%\":\"value\"}",
+                                new TypeReference<Map<UserProfilePropertyName, String>>() {});
+
+        assertThat(map.keySet())
+                .singleElement()
+                .isEqualTo(UserProfilePropertyName.lookup("invalid name%"))
+                .isNotSameAs(UserProfilePropertyName.lookup("invalid name%"));
+        assertThat(UserProfilePropertyName.valueOf("invalid name%"))
+                .isNotSameAs(UserProfilePropertyName.valueOf("invalid name%"));
+    }
 }
@@ -5,6 +5,9 @@ import static net.javacrumbs.jsonunit.assertj.JsonAssertions.assertThatJson;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import com.spotlight.platform.userprofile.api.core.exceptions.IncrementOverflowException;
+import com.spotlight.platform.userprofile.api.core.json.JsonMapper;
+
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -29,12 +32,47 @@ class UserProfilePropertyValueTest {
                 .isEqualTo(UserProfilePropertyValue.valueOf(LIST_VALUE));
     }
 
+    @Test
+    void equals_returnsTrueForSameNumberOfDifferentWidth() {
+        assertThat(UserProfilePropertyValue.valueOf((Object) INTEGER_VALUE))
+                .isEqualTo(UserProfilePropertyValue.valueOf((long) INTEGER_VALUE))
+                .isEqualTo(UserProfilePropertyValue.valueOf(INTEGER_VALUE));
+        assertThat(UserProfilePropertyValue.valueOf((Object) 15.5f))
+                .isEqualTo(UserProfilePropertyValue.valueOf(15.5));
+    }
+
+    @Test
+    void equals_returnsFalseForDifferentTypes() {
+        assertThat(UserProfilePropertyValue.valueOf(INTEGER_VALUE))
+                .isNotEqualTo(UserProfilePropertyValue.valueOf((double) INTEGER_VALUE))
+                .isNotEqualTo(UserProfilePropertyValue.valueOf(String.valueOf(INTEGER_VALUE)))
+                .isNotEqualTo(null);
+    }
+
     @Test
     void serialization_worksCorrectly() {
         assertThatJson(UserProfilePropertyValue.valueOf(STRING_VALUE)).isEqualTo("someString");
         assertThatJson(UserProfilePropertyValue.valueOf(INTEGER_VALUE)).isEqualTo("5");
         assertThatJson(UserProfilePropertyValue.valueOf(DOUBLE_VALUE)).isEqualTo("15.2");
         assertThatJson(UserProfilePropertyValue.valueOf(LIST_VALUE)).isEqualTo("[\"one\",\"two\"]");
+        assertThatJson(UserProfilePropertyValue.valueOf(true)).isEqualTo("true");
+    }
+
+    @Test
+    void deserialization_createsSpecializedValues() throws Exception {
+        assertThat(deserialize("\"someString\""))
+                .isEqualTo(UserProfilePropertyValue.valueOf(STRING_VALUE));
+        assertThat(deserialize("5")).isEqualTo(UserProfilePropertyValue.valueOf(INTEGER_VALUE));
+        assertThat(deserialize("4294967296"))
+                .isEqualTo(UserProfilePropertyValue.valueOf(4294967296L));
+        assertThat(deserialize("15.2")).isEqualTo(UserProfilePropertyValue.valueOf(DOUBLE_VALUE));
+        assertThat(deserialize("[\"one\",\"two\"]"))
+                .isEqualTo(UserProfilePropertyValue.valueOf(LIST_VALUE));
+        assertThat(deserialize("true")).isEqualTo(UserProfilePropertyValue.valueOf(true));
+    }
+
+    private static UserProfilePropertyValue deserialize(String json) throws Exception {
+        return JsonMapper.getInstance().readValue(json, UserProfilePropertyValue.class);
     }
 
     @Nested
@@ -51,6 +89,37 @@ class UserProfilePropertyValueTest {
                     .isEqualTo(UserProfilePropertyValue.valueOf(0));
         }
 
+        @Test
+        void incrementBeyondIntegerRange_worksCorrectly() {
+            assertThat(
+                            UserProfilePropertyValue.valueOf(Integer.MAX_VALUE)
+                                    .increment(UserProfilePropertyValue.valueOf(1)))
+                    .isEqualTo(UserProfilePropertyValue.valueOf(2147483648L));
+        }
+
+        @Test
+        void incrementBeyondLongRange_throwsException() {
+            assertThatThrownBy(
+                            () ->
+                                    UserProfilePropertyValue.valueOf(Long.MAX_VALUE)
+                                            .increment(UserProfilePropertyValue.valueOf(1)))
+                    .isExactlyInstanceOf(IncrementOverflowException.class);
+        }
+
+        @Test
+        void incrementWithDouble_worksCorrectly() {
+            assertThat(currentValue.increment(UserProfilePropertyValue.valueOf(0.5)))
+                    .isEqualTo(UserProfilePropertyValue.valueOf(5.5));
+            assertThat(
+                            UserProfilePropertyValue.valueOf(0.5)
+                                    .increment(UserProfilePropertyValue.valueOf(INTEGER_VALUE)))
+                    .isEqualTo(UserProfilePropertyValue.valueOf(5.5));
+            assertThat(
+                            UserProfilePropertyValue.valueOf(0.5)
+                                    .increment(UserProfilePropertyValue.valueOf(0.25)))
+                    .isEqualTo(UserProfilePropertyValue.valueOf(0.75));
+        }
+
         @Test
         void increment_throwsException() {
             assertThatThrownBy(
@@ -60,8 +129,15 @@ class UserProfilePropertyValueTest {
                     .isExactlyInstanceOf(ClassCastException.class);
             assertThatThrownBy(
                             () ->
-                                    currentValue.increment(
-                                            UserProfilePropertyValue.valueOf(DOUBLE_VALUE)))
+                                    UserProfilePropertyValue.valueOf(DOUBLE_VALUE)
+                                            .increment(
+                                                    UserProfilePropertyValue.valueOf(
+                                                            STRING_VALUE)))
+                    .isExactlyInstanceOf(ClassCastException.class);
+            assertThatThrownBy(
+                            () ->
+                                    UserProfilePropertyValue.valueOf(STRING_VALUE)
+                                            .increment(currentValue))
                     .isExactlyInstanceOf(ClassCastException.class);
             assertThatThrownBy(
                             () ->
@@ -83,6 +159,24 @@ class UserProfilePropertyValueTest {
                     .isEqualTo(UserProfilePropertyValue.valueOf(List.of("one", "two", "three")));
         }
 
+        @Test
+        void collectRepeatedly_keepsPreviousValuesUnchanged() {
+            var collectedOnce = currentList.collect(UserProfilePropertyValue.valueOf(List.of("a")));
+            var collectedTwice =
+                    collectedOnce.collect(UserProfilePropertyValue.valueOf(List.of("b")));
+            var collectedOnceAgain =
+                    collectedOnce.collect(UserProfilePropertyValue.valueOf(List.of("c")));
+
+            assertThat(currentList).isEqualTo(UserProfilePropertyValue.valueOf(LIST_VALUE));
+            assertThat(collectedOnce)
+                    .isEqualTo(UserProfilePropertyValue.valueOf(List.of("one", "two", "a")));
+            assertThat(collectedTwice)
+                    .isEqualTo(UserProfilePropertyValue.valueOf(List.of("one", "two", "a", "b")));
+            assertThat(collectedOnceAgain)
+                    .isEqualTo(UserProfilePropertyValue.valueOf(List.of("one", "two", "a", "c")));
+            assertThatJson(collectedTwice).isEqualTo("[\"one\",\"two\",\"a\",\"b\"]");
+        }
+
         @Test
         void collect_throwsException() {
             assertThatThrownBy(
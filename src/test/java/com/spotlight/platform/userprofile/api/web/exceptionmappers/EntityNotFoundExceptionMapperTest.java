@@ -2,6 +2,7 @@ package com.spotlight.platform.userprofile.api.web.exceptionmappers;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.codahale.metrics.MetricRegistry;
 import com.spotlight.platform.userprofile.api.core.exceptions.EntityNotFoundException;
 
 import io.dropwizard.testing.junit5.DropwizardExtensionsSupport;
@@ -19,12 +20,13 @@ import javax.ws.rs.core.Response;
 
 @ExtendWith(DropwizardExtensionsSupport.class)
 class EntityNotFoundExceptionMapperTest {
+    private static final MetricRegistry METRIC_REGISTRY = new MetricRegistry();
 
     private static final ResourceExtension EXT =
             ResourceExtension.builder()
                     .addResource(new MockResource())
                     .setRegisterDefaultExceptionMappers(false)
-                    .addProvider(new EntityNotFoundExceptionMapper())
+                    .addProvider(new EntityNotFoundExceptionMapper(METRIC_REGISTRY))
                     .build();
 
     private Client client;
@@ -42,6 +44,11 @@ class EntityNotFoundExceptionMapperTest {
                         .post(Entity.json("{}"));
 
         assertThat(response.getStatus()).isEqualTo(Response.Status.NOT_FOUND.getStatusCode());
+        assertThat(
+                        METRIC_REGISTRY
+                                .meter(EntityNotFoundExceptionMapper.NOT_FOUND_METER_NAME)
+                                .getCount())
+                .isEqualTo(1);
     }
 
     @Path("/")
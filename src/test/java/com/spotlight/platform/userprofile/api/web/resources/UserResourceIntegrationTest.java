@@ -4,8 +4,12 @@ import static net.javacrumbs.jsonunit.assertj.JsonAssertions.assertThatJson;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.inject.AbstractModule;
@@ -35,9 +39,12 @@ import ru.vyarus.dropwizard.guice.test.jupiter.ext.TestDropwizardAppExtension;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 
 @Execution(ExecutionMode.SAME_THREAD)
@@ -59,9 +66,15 @@ class UserResourceIntegrationTest {
                     .randomPorts()
                     .create();
 
+    private static final String STORAGE_EPOCH = "epoch";
+
     @BeforeEach
     void beforeEach(UserProfileDao userProfileDao) {
         reset(userProfileDao);
+        // Updates are stored on top of whatever the individual test stubs for get.
+        when(userProfileDao.putIfVersion(any(UserProfile.class), anyLong(), anyCollection()))
+                .thenReturn(true);
+        when(userProfileDao.getEpoch()).thenReturn(STORAGE_EPOCH);
     }
 
     @Nested
@@ -88,6 +101,164 @@ class UserResourceIntegrationTest {
                     .isEqualTo(UserProfileFixtures.SERIALIZED_USER_PROFILE);
         }
 
+        @Test
+        void existingUser_versionIsReturnedAsEntityTag(
+                ClientSupport client, UserProfileDao userProfileDao) {
+            when(userProfileDao.get(any(UserId.class)))
+                    .thenReturn(Optional.of(UserProfileFixtures.USER_PROFILE));
+
+            var response =
+                    client.targetRest()
+                            .path(URL)
+                            .resolveTemplate(USER_ID_PATH_PARAM, UserProfileFixtures.USER_ID)
+                            .request()
+                            .get();
+
+            assertThat(response.getEntityTag())
+                    .isEqualTo(
+                            new EntityTag(
+                                    STORAGE_EPOCH
+                                            + "-"
+                                            + UserProfileFixtures.USER_PROFILE.version()));
+        }
+
+        @Test
+        void existingUserWithMatchingEntityTag_returns304WithoutBody(
+                ClientSupport client, UserProfileDao userProfileDao) {
+            when(userProfileDao.get(any(UserId.class)))
+                    .thenReturn(Optional.of(UserProfileFixtures.USER_PROFILE));
+
+            var response =
+                    client.targetRest()
+                            .path(URL)
+                            .resolveTemplate(USER_ID_PATH_PARAM, UserProfileFixtures.USER_ID)
+                            .request()
+                            .header(
+                                    HttpHeaders.IF_NONE_MATCH,
+                                    "\""
+                                            + STORAGE_EPOCH
+                                            + "-"
+                                            + UserProfileFixtures.USER_PROFILE.version()
+                                            + "\"")
+                            .get();
+
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED_304);
+            assertThat(response.hasEntity()).isFalse();
+        }
+
+        @Test
+        void existingUserWithEntityTagOfEarlierEpoch_returnsProfile(
+                ClientSupport client, UserProfileDao userProfileDao) {
+            when(userProfileDao.get(any(UserId.class)))
+                    .thenReturn(Optional.of(UserProfileFixtures.USER_PROFILE));
+
+            var response =
+                    client.targetRest()
+                            .path(URL)
+                            .resolveTemplate(USER_ID_PATH_PARAM, UserProfileFixtures.USER_ID)
+                            .request()
+                            .header(
+                                    HttpHeaders.IF_NONE_MATCH,
+                                    "\"earlier-epoch-"
+                                            + UserProfileFixtures.USER_PROFILE.version()
+                                            + "\"")
+                            .get();
+
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.OK_200);
+            assertThat(response.getEntityTag())
+                    .isEqualTo(
+                            new EntityTag(
+                                    STORAGE_EPOCH
+                                            + "-"
+                                            + UserProfileFixtures.USER_PROFILE.version()));
+        }
+
+        @Test
+        void existingUserWithOutdatedEntityTag_returnsProfile(
+                ClientSupport client, UserProfileDao userProfileDao) {
+            when(userProfileDao.get(any(UserId.class)))
+                    .thenReturn(
+                            Optional.of(
+                                    new UserProfile(
+                                            UserProfileFixtures.USER_ID,
+                                            UserProfileFixtures.LAST_UPDATE_TIMESTAMP,
+                                            UserProfileFixtures.USER_PROFILE
+                                                    .userProfileProperties(),
+                                            2)));
+
+            var response =
+                    client.targetRest()
+                            .path(URL)
+                            .resolveTemplate(USER_ID_PATH_PARAM, UserProfileFixtures.USER_ID)
+                            .request()
+                            .header(HttpHeaders.IF_NONE_MATCH, "\"" + STORAGE_EPOCH + "-1\"")
+                            .get();
+
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.OK_200);
+            assertThat(response.getEntityTag()).isEqualTo(new EntityTag(STORAGE_EPOCH + "-2"));
+            assertThatJson(response.readEntity(String.class)).node("version").isEqualTo(2);
+        }
+
+        @Test
+        void existingUserWithProjection_noEntityTagIsReturned(
+                ClientSupport client, UserProfileDao userProfileDao) {
+            when(userProfileDao.get(any(UserId.class)))
+                    .thenReturn(Optional.of(UserProfileFixtures.USER_PROFILE));
+
+            var response =
+                    client.targetRest()
+                            .path(URL)
+                            .resolveTemplate(USER_ID_PATH_PARAM, UserProfileFixtures.USER_ID)
+                            .queryParam("properties", "property1")
+                            .request()
+                            .get();
+
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.OK_200);
+            assertThat(response.getEntityTag()).isNull();
+        }
+
+        @Test
+        void existingUserWithProjection_onlyRequestedPropertiesAreReturned(
+                ClientSupport client, UserProfileDao userProfileDao) {
+            when(userProfileDao.get(any(UserId.class)))
+                    .thenReturn(Optional.of(UserProfileFixtures.USER_PROFILE));
+
+            var response =
+                    client.targetRest()
+                            .path(URL)
+                            .resolveTemplate(USER_ID_PATH_PARAM, UserProfileFixtures.USER_ID)
+                            .queryParam("properties", "missing,property1")
+                            .request()
+                            .get();
+
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.OK_200);
+            var userProfile = response.readEntity(String.class);
+            assertThatJson(userProfile)
+                    .node("userProfileProperties")
+                    .isEqualTo(Map.of("property1", "property1Value"));
+        }
+
+        @Test
+        void existingUserWithEmptyProjection_noPropertiesAreReturned(
+                ClientSupport client, UserProfileDao userProfileDao) {
+            when(userProfileDao.get(any(UserId.class)))
+                    .thenReturn(Optional.of(UserProfileFixtures.USER_PROFILE));
+
+            var response =
+                    client.targetRest()
+                            .path(URL)
+                            .resolveTemplate(USER_ID_PATH_PARAM, UserProfileFixtures.USER_ID)
+                            .queryParam("properties", "")
+                            .request()
+                            .get();
+
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.OK_200);
+            assertThatJson(response.readEntity(String.class))
+                    .node("userProfileProperties")
+                    .isObject()
+                    .isEmpty();
+        }
+
         @Test
         void nonExistingUser_returns404(ClientSupport client, UserProfileDao userProfileDao) {
             when(userProfileDao.get(any(UserId.class))).thenReturn(Optional.empty());
@@ -132,6 +303,121 @@ class UserResourceIntegrationTest {
         }
     }
 
+    @Nested
+    @DisplayName("getUserProfiles")
+    class GetUserProfiles {
+        private static final String URL = "/users/profiles";
+
+        @Test
+        void existingAndMissingUsers_foundProfilesAndMissingIdsAreReturned(
+                ClientSupport client, UserProfileDao userProfileDao) {
+            when(userProfileDao.getAll(any()))
+                    .thenReturn(
+                            Map.of(UserProfileFixtures.USER_ID, UserProfileFixtures.USER_PROFILE));
+
+            var response =
+                    client.targetRest()
+                            .path(URL)
+                            .request()
+                            .post(
+                                    Entity.json(
+                                            List.of(
+                                                    UserProfileFixtures.USER_ID,
+                                                    UserProfileFixtures.NON_EXISTING_USER_ID)));
+
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.OK_200);
+            var userProfileBatch = response.readEntity(String.class);
+            assertThatJson(userProfileBatch)
+                    .node("userProfiles[0]")
+                    .isEqualTo(UserProfileFixtures.SERIALIZED_USER_PROFILE);
+            assertThatJson(userProfileBatch)
+                    .node("missingUserIds")
+                    .isEqualTo(List.of(UserProfileFixtures.NON_EXISTING_USER_ID.toString()));
+        }
+
+        @Test
+        void tooManyUsers_returns422(ClientSupport client) {
+            var userIds =
+                    IntStream.rangeClosed(0, UserResource.MAX_BATCH_GET_SIZE)
+                            .mapToObj(i -> UserId.valueOf("user-" + i))
+                            .toList();
+
+            var response = client.targetRest().path(URL).request().post(Entity.json(userIds));
+
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY_422);
+        }
+
+        @Test
+        void invalidUser_returns422(ClientSupport client) {
+            var response =
+                    client.targetRest()
+                            .path(URL)
+                            .request()
+                            .post(Entity.json(List.of(UserProfileFixtures.INVALID_USER_ID)));
+
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY_422);
+        }
+    }
+
+    @Nested
+    @DisplayName("exportUserProfiles")
+    class ExportUserProfiles {
+        private static final String URL = "/users/export";
+
+        @Test
+        void existingUsers_oneProfilePerLineIsReturned(
+                ClientSupport client, UserProfileDao userProfileDao) {
+            when(userProfileDao.streamAll())
+                    .thenAnswer(
+                            invocation ->
+                                    Stream.of(
+                                            UserProfileFixtures.USER_PROFILE,
+                                            UserProfileFixtures.USER_PROFILE));
+
+            var response = client.targetRest().path(URL).request().get();
+
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.OK_200);
+            assertThat(response.getMediaType().toString())
+                    .isEqualTo(UserResource.APPLICATION_NDJSON);
+            var lines = response.readEntity(String.class).split("\n");
+            assertThat(lines).hasSize(2);
+            for (String line : lines) {
+                assertThatJson(line).isEqualTo(UserProfileFixtures.SERIALIZED_USER_PROFILE);
+            }
+        }
+
+        @Test
+        void updatedSince_onlyRecentProfilesAreReturned(
+                ClientSupport client, UserProfileDao userProfileDao) {
+            when(userProfileDao.streamAll())
+                    .thenAnswer(invocation -> Stream.of(UserProfileFixtures.USER_PROFILE));
+
+            var response =
+                    client.targetRest()
+                            .path(URL)
+                            .queryParam(
+                                    "updatedSince",
+                                    UserProfileFixtures.LATEST_UPDATE_TIMESTAMP.toString())
+                            .request()
+                            .get();
+
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.OK_200);
+            assertThat(response.readEntity(String.class)).isEmpty();
+        }
+
+        @Test
+        void invalidUpdatedSince_returns400(ClientSupport client) {
+            var response =
+                    client.targetRest()
+                            .path(URL)
+                            .queryParam("updatedSince", "yesterday")
+                            .request()
+                            .get();
+
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST_400);
+        }
+    }
+
     @Nested
     @DisplayName("updateUserProfile")
     class UpdateUserProfile {
@@ -175,6 +461,25 @@ class UserResourceIntegrationTest {
             assertThat(response.getStatus()).isEqualTo(HttpStatus.NO_CONTENT_204);
         }
 
+        @Test
+        void asyncUpdate_returns202(ClientSupport client, UserProfileDao userProfileDao) {
+            when(userProfileDao.get(any(UserId.class)))
+                    .thenReturn(Optional.of(UserProfileFixtures.USER_PROFILE));
+
+            var response =
+                    client.targetRest()
+                            .path(URL)
+                            .resolveTemplate(USER_ID_PATH_PARAM, UserProfileFixtures.USER_ID)
+                            .resolveTemplate(USER_UPDATE_TYPE, UserUpdateType.INCREMENT.toString())
+                            .queryParam("async", true)
+                            .request()
+                            .post(
+                                    Entity.entity(
+                                            UserProfileUpdateFixture.INCREMENT_PROFILE_PROPERTY,
+                                            MediaType.APPLICATION_JSON_TYPE));
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.ACCEPTED_202);
+        }
+
         @Test
         void userWithInvalidUserUpdateType_returns400(
                 ClientSupport client, UserProfileDao userProfileDao) {
@@ -252,6 +557,60 @@ class UserResourceIntegrationTest {
 
             assertThat(response.getStatus()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR_500);
         }
+
+        @Test
+        void userWithIncrementBeyondLongRange_returns400(
+                ClientSupport client, UserProfileDao userProfileDao) {
+            var counter = UserProfilePropertyName.valueOf("counter");
+            when(userProfileDao.get(any(UserId.class)))
+                    .thenReturn(
+                            Optional.of(
+                                    new UserProfile(
+                                            UserProfileFixtures.USER_ID,
+                                            UserProfileFixtures.LAST_UPDATE_TIMESTAMP,
+                                            Map.of(
+                                                    counter,
+                                                    UserProfilePropertyValue.valueOf(
+                                                            Long.MAX_VALUE)))));
+
+            var response =
+                    client.targetRest()
+                            .path(URL)
+                            .resolveTemplate(USER_ID_PATH_PARAM, UserProfileFixtures.USER_ID)
+                            .resolveTemplate(USER_UPDATE_TYPE, UserUpdateType.INCREMENT.toString())
+                            .request()
+                            .post(
+                                    Entity.entity(
+                                            Map.of(counter, UserProfilePropertyValue.valueOf(1)),
+                                            MediaType.APPLICATION_JSON_TYPE));
+
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST_400);
+        }
+
+        @Test
+        void userUpdatedConcurrentlyOnEveryRetry_returns204(
+                ClientSupport client, UserProfileDao userProfileDao) {
+            when(userProfileDao.get(any(UserId.class)))
+                    .thenReturn(Optional.of(UserProfileFixtures.USER_PROFILE));
+            when(userProfileDao.putIfVersion(any(UserProfile.class), anyLong(), anyCollection()))
+                    .thenReturn(false);
+            when(userProfileDao.compute(any(UserId.class), any(), anyCollection()))
+                    .thenReturn(UserProfileFixtures.USER_PROFILE);
+
+            var response =
+                    client.targetRest()
+                            .path(URL)
+                            .resolveTemplate(USER_ID_PATH_PARAM, UserProfileFixtures.USER_ID)
+                            .resolveTemplate(USER_UPDATE_TYPE, UserUpdateType.REPLACE.toString())
+                            .request()
+                            .post(
+                                    Entity.entity(
+                                            UserProfileUpdateFixture.REPLACE_PROFILE_PROPERTY,
+                                            MediaType.APPLICATION_JSON_TYPE));
+
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.NO_CONTENT_204);
+            verify(userProfileDao).compute(eq(UserProfileFixtures.USER_ID), any(), anyCollection());
+        }
     }
 
     @Nested
@@ -311,6 +670,27 @@ class UserResourceIntegrationTest {
             assertThat(response.getStatus()).isEqualTo(HttpStatus.NO_CONTENT_204);
         }
 
+        @Test
+        void asyncBulkUpdate_returns202(ClientSupport client, UserProfileDao userProfileDao) {
+            when(userProfileDao.get(UserProfileFixtures.USER_ID))
+                    .thenReturn(Optional.of(UserProfileFixtures.USER_PROFILE));
+
+            var response =
+                    client.targetRest()
+                            .path(URL)
+                            .queryParam("async", true)
+                            .request()
+                            .post(
+                                    Entity.entity(
+                                            List.of(
+                                                    UserProfileUpdateFixture
+                                                            .REPLACE_USER_PROFILE_UPDATE,
+                                                    UserProfileUpdateFixture
+                                                            .INCREMENT_USER_PROFILE_UPDATE),
+                                            MediaType.APPLICATION_JSON_TYPE));
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.ACCEPTED_202);
+        }
+
         @Test
         void usersWithBulkValidUserUpdateTypes_returns204(
                 ClientSupport client, UserProfileDao userProfileDao) {
@@ -420,4 +800,33 @@ class UserResourceIntegrationTest {
             assertThat(response.getStatus()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY_422);
         }
     }
+
+    @Nested
+    @DisplayName("updateUserProfilesStream")
+    class UpdateUserProfilesStream {
+        private static final String URL = "/users/update/stream";
+
+        @Test
+        void validAndInvalidCommands_returnsSummary(
+                ClientSupport client, UserProfileDao userProfileDao) {
+            when(userProfileDao.get(any(UserId.class))).thenReturn(Optional.empty());
+
+            var response =
+                    client.targetRest()
+                            .path(URL)
+                            .request()
+                            .post(
+                                    Entity.entity(
+                                            UserProfileUpdateFixture.SERIALIZED_USER_PROFILE_UPDATE
+                                                            .replace("\n", "")
+                                                    + "\n{}\n",
+                                            UserResource.APPLICATION_NDJSON));
+
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.OK_200);
+            var summary = response.readEntity(String.class);
+            assertThatJson(summary).node("applied").isEqualTo(1);
+            assertThatJson(summary).node("rejected").isEqualTo(1);
+            assertThatJson(summary).node("errors[0].line").isEqualTo(2);
+        }
+    }
 }